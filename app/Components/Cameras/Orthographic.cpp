@@ -22,6 +22,29 @@ Ray Orthographic::generateRay(const float u, const float v,
     return ray;
 }
 
+/**
+ * Generates a packet of rays with the origin in the camera.
+ * <br>
+ * All the rays share the same direction, so only their origins are calculated, in a loop without dependencies
+ * between the rays.
+ *
+ * @param samples The image plane coordinates of the rays.
+ * @param rays    The vector where the generated rays are appended.
+ */
+void Orthographic::generateRays(const PacketSamples &samples, ::std::vector<Ray> *const rays) const {
+    ::std::array<float, ::MobileRT::RayPacketSize> rightFactors {};
+    ::std::array<float, ::MobileRT::RayPacketSize> upFactors {};
+    for (::std::uint32_t i {}; i < static_cast<::std::uint32_t> (::MobileRT::RayPacketSize); ++i) {
+        rightFactors[i] = (samples.u_[i] - 0.5F) * this->sizeH_;
+        upFactors[i] = (0.5F - samples.v_[i]) * this->sizeV_;
+    }
+    for (::std::uint32_t i {}; i < static_cast<::std::uint32_t> (samples.numRays_); ++i) {
+        const ::glm::vec3 &right {this->right_ * rightFactors[i] + this->right_ * samples.deviationU_[i]};
+        const ::glm::vec3 &up {this->up_ * upFactors[i] + this->up_ * samples.deviationV_[i]};
+        rays->emplace_back(this->direction_, this->position_ + right + up, 1, false);
+    }
+}
+
 AABB Orthographic::getAABB() const {
     const ::glm::vec3 &min {
         this->position_ +
@@ -40,6 +40,8 @@ namespace Components {
                         float deviationU,
                         float deviationV) const final;
 
+        void generateRays(const PacketSamples &samples, ::std::vector<::MobileRT::Ray> *rays) const final;
+
         ::MobileRT::AABB getAABB() const final;
 
         float getSizeH() const;
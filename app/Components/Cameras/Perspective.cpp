@@ -27,6 +27,29 @@ Ray Perspective::generateRay(const float u, const float v,
     return ray;
 }
 
+/**
+ * Generates a packet of rays with the origin in the camera.
+ * <br>
+ * The projection factors of all the rays are calculated first, in a loop without dependencies between the rays, so
+ * the compiler can vectorize it, and only then the rays are created.
+ *
+ * @param samples The image plane coordinates of the rays.
+ * @param rays    The vector where the generated rays are appended.
+ */
+void Perspective::generateRays(const PacketSamples &samples, ::std::vector<Ray> *const rays) const {
+    ::std::array<float, ::MobileRT::RayPacketSize> rightFactors {};
+    ::std::array<float, ::MobileRT::RayPacketSize> upFactors {};
+    for (::std::uint32_t i {}; i < static_cast<::std::uint32_t> (::MobileRT::RayPacketSize); ++i) {
+        rightFactors[i] = fastArcTan(this->hFov_ * (samples.u_[i] - 0.5F)) + samples.deviationU_[i];
+        upFactors[i] = fastArcTan(this->vFov_ * (0.5F - samples.v_[i])) + samples.deviationV_[i];
+    }
+    const ::glm::vec3 center {this->position_ + this->direction_};
+    for (::std::uint32_t i {}; i < static_cast<::std::uint32_t> (samples.numRays_); ++i) {
+        const ::glm::vec3 &dest {center + this->right_ * rightFactors[i] + this->up_ * upFactors[i]};
+        rays->emplace_back(::glm::normalize(dest - this->position_), this->position_, 1, false);
+    }
+}
+
 /**
  * Helper method that calculates the inverse tangent function.
  * This is an approximate algorithm from
@@ -39,6 +39,8 @@ namespace Components {
         ::MobileRT::Ray generateRay(float u, float v,
                         float deviationU, float deviationV) const final;
 
+        void generateRays(const PacketSamples &samples, ::std::vector<::MobileRT::Ray> *rays) const final;
+
         float getHFov() const;
 
         float getVFov() const;
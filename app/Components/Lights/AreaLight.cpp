@@ -1,9 +1,12 @@
 #include "Components/Lights/AreaLight.hpp"
+#include "MobileRT/Utils/Utils.hpp"
 
 using ::Components::AreaLight;
+using ::MobileRT::AABB;
 using ::MobileRT::Material;
 using ::MobileRT::Sampler;
 using ::MobileRT::Intersection;
+using ::MobileRT::LightSample;
 
 AreaLight::AreaLight(
     Material radiance,
@@ -39,3 +42,59 @@ Intersection AreaLight::intersect(Intersection &&intersection) {
     }
     return ::std::move(intersection);
 }
+
+/**
+ * Samples a point uniformly in the triangle of the light.
+ *
+ * @return The sampled point, with the normal of the triangle and the probability density of sampling it.
+ */
+LightSample AreaLight::sample() {
+    const ::glm::vec3 &normal {::glm::normalize(::glm::cross(this->triangle_.getAB(), this->triangle_.getAC()))};
+    return LightSample {getPosition(), normal, this->radiance_.Le_, getAreaPdf()};
+}
+
+/**
+ * Gets the probability density of sampling any point of the light, which is the inverse of its area since the points
+ * are sampled uniformly.
+ *
+ * @return The probability density of sampling a point of the light.
+ */
+float AreaLight::getAreaPdf() const {
+    return 1.0F / getArea();
+}
+
+/**
+ * Gets the power emitted by the light, which is the luminance of its radiance times its area.
+ *
+ * @return The power emitted by the light.
+ */
+float AreaLight::getPower() const {
+    return ::MobileRT::toLuminance(this->radiance_.Le_) * getArea();
+}
+
+/**
+ * Helper method which calculates the area of the triangle of the light.
+ *
+ * @return The area of the light.
+ */
+float AreaLight::getArea() const {
+    return ::glm::length(::glm::cross(this->triangle_.getAB(), this->triangle_.getAC())) * 0.5F;
+}
+
+/**
+ * Whether the light has a shape which can be intersected by the rays.
+ *
+ * @return true, because an area light is a triangle.
+ */
+bool AreaLight::isBounded() const {
+    return true;
+}
+
+/**
+ * Calculates the bounding box of the triangle of the light.
+ *
+ * @return The bounding box of the light.
+ */
+AABB AreaLight::getAABB() const {
+    return this->triangle_.getAABB();
+}
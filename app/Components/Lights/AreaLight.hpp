@@ -19,6 +19,9 @@ namespace Components {
         ::MobileRT::Triangle triangle_;
         ::std::unique_ptr<::MobileRT::Sampler> samplerPointLight_ {};
 
+    private:
+        float getArea() const;
+
     public:
         explicit AreaLight() = delete;
 
@@ -39,6 +42,16 @@ namespace Components {
         void resetSampling() final;
 
         ::MobileRT::Intersection intersect(::MobileRT::Intersection &&intersection) final;
+
+        ::MobileRT::LightSample sample() final;
+
+        float getAreaPdf() const final;
+
+        float getPower() const final;
+
+        bool isBounded() const final;
+
+        ::MobileRT::AABB getAABB() const final;
     };
 }//namespace Components
 
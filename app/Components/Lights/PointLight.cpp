@@ -1,4 +1,5 @@
 #include "Components/Lights/PointLight.hpp"
+#include "MobileRT/Utils/Utils.hpp"
 
 using ::Components::PointLight;
 using ::MobileRT::Material;
@@ -19,3 +20,12 @@ void PointLight::resetSampling() {
 Intersection PointLight::intersect(Intersection &&intersection) {
     return ::std::move(intersection);
 }
+
+/**
+ * Gets the power emitted by the light, which is the luminance of its radiance.
+ *
+ * @return The power emitted by the light.
+ */
+float PointLight::getPower() const {
+    return ::MobileRT::toLuminance(this->radiance_.Le_);
+}
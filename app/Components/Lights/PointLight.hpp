@@ -32,6 +32,8 @@ namespace Components {
         void resetSampling() final;
 
         ::MobileRT::Intersection intersect(::MobileRT::Intersection &&intersection) final;
+
+        float getPower() const final;
     };
 }//namespace Components
 
@@ -9,3 +9,8 @@ Constant::Constant(const float value) :
 float Constant::getSample(const ::std::uint32_t /*sample*/) {
     return this->value_;
 }
+
+float Constant::getPixelSample(const ::std::uint32_t /*pixel*/, const ::std::uint32_t /*sample*/,
+                               const ::std::uint32_t /*dimension*/) {
+    return this->value_;
+}
@@ -28,6 +28,8 @@ namespace Components {
         Constant &operator=(Constant &&constant) noexcept = delete;
 
         float getSample(::std::uint32_t sample) final;
+
+        float getPixelSample(::std::uint32_t pixel, ::std::uint32_t sample, ::std::uint32_t dimension) final;
     };
 }//namespace Components
 
@@ -13,3 +13,11 @@ float PCG::getSample(const ::std::uint32_t /*sample*/) {
     const float res {uniformDist(generator)};
     return res;
 }
+
+float PCG::getPixelSample(const ::std::uint32_t pixel, const ::std::uint32_t sample,
+                          const ::std::uint32_t dimension) {
+    // Use the 24 most significant bits of the hash, so all the values are representable in a float and below 1.
+    const ::std::uint32_t hash {Sampler::getPixelSampleIndex(pixel, sample, dimension)};
+    const float res {static_cast<float> (hash >> 8U) / 16777216.0F};
+    return res;
+}
@@ -23,3 +23,8 @@ StaticHaltonSeq::StaticHaltonSeq(const ::std::uint32_t width, const ::std::uint3
 float StaticHaltonSeq::getSample(const ::std::uint32_t /*sample*/) {
     return Sampler::getSampleFromArray(randomSequence);
 }
+
+float StaticHaltonSeq::getPixelSample(const ::std::uint32_t pixel, const ::std::uint32_t sample,
+                                      const ::std::uint32_t dimension) {
+    return Sampler::getPixelSampleFromArray(randomSequence, pixel, sample, dimension);
+}
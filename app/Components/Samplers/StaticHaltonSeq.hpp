@@ -27,6 +27,8 @@ namespace Components {
         StaticHaltonSeq &operator=(StaticHaltonSeq &&random) noexcept = delete;
 
         float getSample(::std::uint32_t sample) final;
+
+        float getPixelSample(::std::uint32_t pixel, ::std::uint32_t sample, ::std::uint32_t dimension) final;
     };
 }//namespace Components
 
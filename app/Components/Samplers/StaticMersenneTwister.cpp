@@ -17,3 +17,8 @@ StaticMersenneTwister::StaticMersenneTwister() {
 float StaticMersenneTwister::getSample(const ::std::uint32_t /*sample*/) {
     return Sampler::getSampleFromArray(randomSequence);
 }
+
+float StaticMersenneTwister::getPixelSample(const ::std::uint32_t pixel, const ::std::uint32_t sample,
+                                            const ::std::uint32_t dimension) {
+    return Sampler::getPixelSampleFromArray(randomSequence, pixel, sample, dimension);
+}
@@ -18,3 +18,8 @@ StaticPCG::StaticPCG() {
 float StaticPCG::getSample(const ::std::uint32_t /*sample*/) {
     return Sampler::getSampleFromArray(randomSequence);
 }
+
+float StaticPCG::getPixelSample(const ::std::uint32_t pixel, const ::std::uint32_t sample,
+                                const ::std::uint32_t dimension) {
+    return Sampler::getPixelSampleFromArray(randomSequence, pixel, sample, dimension);
+}
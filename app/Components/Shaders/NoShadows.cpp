@@ -1,5 +1,6 @@
 #include "Components/Shaders/NoShadows.hpp"
 #include <glm/glm.hpp>
+#include <glm/gtc/constants.hpp>
 
 using ::Components::NoShadows;
 using ::MobileRT::Intersection;
@@ -18,7 +19,6 @@ bool NoShadows::shade(::glm::vec3 *const rgb, const Intersection &intersection)
     }
 
     const ::glm::vec3 &kD {intersection.material_->Kd_};
-    const ::glm::vec3 &shadingNormal {intersection.normal_};
 
     // direct lighting - only for diffuse materials
     if (::MobileRT::hasPositiveValue(kD)) {
@@ -26,18 +26,13 @@ bool NoShadows::shade(::glm::vec3 *const rgb, const Intersection &intersection)
         if (sizeLights > 0) {
             const ::std::int32_t samplesLight {this->samplesLight_};
             for (::std::int32_t j {}; j < samplesLight; ++j) {
-                const ::std::uint32_t chosenLight {getLightIndex()};
-                ::MobileRT::Light &light {*this->lights_[chosenLight]};
-                const ::glm::vec3 &lightPosition {light.getPosition()};
-                //vectorIntersectCameraNormalized = light.position_ - intersection.point_
-                const ::glm::vec3 &vectorToLightNormalized {::glm::normalize(lightPosition - intersection.point_)};
-                const float cosNl {::glm::dot(shadingNormal, vectorToLightNormalized)};
-                if (cosNl > 0.0F) {
-                    // "rgb += kD * radLight * cosNl;"
-                    *rgb += light.radiance_.Le_ * cosNl;
+                ::MobileRT::DirectLightSample lightSample {};
+                if (sampleDirectLight(intersection, &lightSample)) {
+                    // "rgb += kD / Pi * irradiance;"
+                    *rgb += lightSample.irradiance_;
                 }
             }
-            *rgb *= kD;
+            *rgb *= kD * ::glm::one_over_pi<float> ();
             *rgb /= samplesLight;
         } // end direct
     }
@@ -9,6 +9,26 @@ using ::MobileRT::Scene;
 using ::MobileRT::RayDepthMin;
 using ::MobileRT::RayDepthMax;
 
+namespace {
+    /**
+     * The minimum probability of a path to continue in the Russian roulette, so the paths with a dim throughput don't
+     * all finish, which would add a lot of variance.
+     */
+    const float MinContinueProbability {0.05F};
+
+    /**
+     * Helper method which calculates the weight of a sample with the power heuristic of multiple importance sampling.
+     *
+     * @param pdf      The probability density of the strategy which created the sample, times its number of samples.
+     * @param otherPdf The probability density of the other strategy for the same sample, times its number of samples.
+     * @return The weight of the sample.
+     */
+    float powerHeuristic(const float pdf, const float otherPdf) {
+        const float pdf2 {pdf * pdf};
+        return pdf2 / (pdf2 + otherPdf * otherPdf);
+    }
+}//namespace
+
 PathTracer::PathTracer(Scene scene,
                        ::std::unique_ptr<Sampler> samplerRussianRoulette,
                        const ::std::int32_t samplesLight,
@@ -19,9 +39,20 @@ PathTracer::PathTracer(Scene scene,
 }
 
 //pag 28 slides Monte Carlo
+/**
+ * Calculates the color of the path which starts in an intersection.
+ * <br>
+ * The path is traced iteratively. In each bounce, the direct lighting of a diffuse material is estimated and a single
+ * lobe of the material (diffuse, specular reflection or specular transmission) is randomly chosen, proportionally to
+ * its luminance, to continue the path. The throughput carries the attenuation of all the previous bounces and, after
+ * the minimum number of bounces, it also decides the probability of the path to continue (Russian roulette).
+ *
+ * @param rgb          A pointer to store the color of the path.
+ * @param intersection The first intersection of the path.
+ * @return Whether the first intersection is a light or not.
+ */
 bool PathTracer::shade(::glm::vec3 *const rgb, const Intersection &intersection) {
-    const ::std::int32_t rayDepth {intersection.ray_.depth_};
-    if (rayDepth > RayDepthMax) {
+    if (intersection.ray_.depth_ > RayDepthMax) {
         return false;
     }
 
@@ -31,114 +62,124 @@ bool PathTracer::shade(::glm::vec3 *const rgb, const Intersection &intersection)
         *rgb = lE;
         return true;
     }
-    ::glm::vec3 Ld {};
-    ::glm::vec3 LiD {};
-    ::glm::vec3 LiS {};
-    ::glm::vec3 LiT {};
-
-    const ::glm::vec3 &kD {intersection.material_->Kd_};
-    const ::glm::vec3 &kS {intersection.material_->Ks_};
-    const ::glm::vec3 &kT {intersection.material_->Kt_};
-    const float finishProbability {0.5F};
-    const float continueProbability {1.0F - finishProbability};
-
-    // the normal always points to outside objects (e.g., spheres)
-    // if the cosine between the ray and the normal is less than 0 then
-    // the ray intersected the object from the inside and the shading normal
-    // should be symmetric to the geometric normal
-    const ::glm::vec3 &shadingNormal {intersection.normal_};
-
-    bool intersectedLight {false};
-
-    // shadowed direct lighting - only for diffuse materials
-    //Ld = Ld (p->Wr)
-    if (::MobileRT::hasPositiveValue(kD)) {
-        const long long unsigned sizeLights {this->lights_.size()};
-        if (sizeLights > 0) {
-            const ::std::int32_t samplesLight {this->samplesLight_};
-            //direct light
-            for (::std::int32_t i {}; i < samplesLight; ++i) {
-                //PDF = 1 / sizeLights
-                const ::std::uint32_t chosenLight {getLightIndex()};
-                ::MobileRT::Light &light {*this->lights_[chosenLight]};
-                //calculates vector starting in intersection to the light
-                const ::glm::vec3 lightPosition {light.getPosition()};
-                ::glm::vec3 vectorToLight {lightPosition - intersection.point_};
-                //distance from intersection to the light (and normalize it)
-                const float distanceToLight {::glm::length(vectorToLight)};
-                vectorToLight = ::glm::normalize(vectorToLight);
-                //x*x + y*y + z*z
-                const float cosNormalLight {::glm::dot(shadingNormal, vectorToLight)};
-                if (cosNormalLight > 0.0F) {
-                    //shadow ray->orig=intersection, dir=light
-                    Ray shadowRay {vectorToLight, intersection.point_, rayDepth + 1, true, intersection.primitive_};
-                    //intersection between shadow ray and the closest primitive
-                    //if there are no primitives between intersection and the light
-                    if (!shadowTrace(distanceToLight, ::std::move(shadowRay))) {
-                        //Ld += kD * radLight * cosNormalLight * sizeLights / samplesLight
-                        Ld += light.radiance_.Le_ * cosNormalLight;
-                    }
-                }
+
+    const ::std::int32_t samplesLight {this->lights_.empty() ? 0 : this->samplesLight_};
+    Intersection current {intersection};
+    ::glm::vec3 throughput {1.0F};
+    ::glm::vec3 radiance {};
+    // The probability density of the direction of the current ray, if it was sampled from a diffuse material, or 0
+    // if it was a specular bounce (which can't be sampled by the lights, so its light is always counted).
+    float brdfPdf {};
+    while (current.ray_.depth_ <= RayDepthMax) {
+        const ::std::int32_t rayDepth {current.ray_.depth_};
+        const ::glm::vec3 &lightRadiance {current.material_->Le_};
+        if (::MobileRT::hasPositiveValue(lightRadiance)) {
+            // The BRDF sample intersected a light, so its emission is weighted against sampling that light.
+            float weight {1.0F};
+            const float lightPdf {brdfPdf > 0.0F && samplesLight > 0 ? getDirectLightPdf(current) : 0.0F};
+            if (lightPdf > 0.0F) {
+                weight = powerHeuristic(brdfPdf, static_cast<float> (samplesLight) * lightPdf);
             }
-            Ld *= kD;
-            // "Ld *= sizeLights;"
-            Ld /= samplesLight;
+            radiance += throughput * lightRadiance * weight;
+            break;
         }
 
-        //indirect light
-        if (rayDepth <= RayDepthMin || this->samplerRussianRoulette_->getSample() > finishProbability) {
-            const ::glm::vec3 &newDirection {getCosineSampleHemisphere(shadingNormal)};
-            Ray normalizedSecundaryRay {newDirection, intersection.point_, rayDepth + 1, false, intersection.primitive_};
-
-            //Li = Pi/N * SOMATORIO i=1->i=N [fr (p,Wi <-> Wr) L(p <- Wi)]
-            //estimator = <F^N>=1/N * ∑(i=0)(N−1) f(Xi) / pdf(Xi)
-
-            ::glm::vec3 LiD_RGB {};
-            intersectedLight = rayTrace(&LiD_RGB, ::std::move(normalizedSecundaryRay));
-            //PDF = cos(theta) / Pi
-            //cos (theta) = cos(dir, normal)
-            //PDF = cos(dir, normal) / Pi
-
-            //LiD += kD * LiD_RGB * cos (dir, normal) / (PDF * continueProbability)
-            //LiD += kD * LiD_RGB * Pi / continueProbability
-            LiD += kD * LiD_RGB;
-            if (rayDepth > RayDepthMin) {
-                LiD /= continueProbability * 0.5F;
+        const ::glm::vec3 &kD {current.material_->Kd_};
+        const ::glm::vec3 &kS {current.material_->Ks_};
+        const ::glm::vec3 &kT {current.material_->Kt_};
+
+        // the normal always points to outside objects (e.g., spheres)
+        // if the cosine between the ray and the normal is less than 0 then
+        // the ray intersected the object from the inside and the shading normal
+        // should be symmetric to the geometric normal
+        const ::glm::vec3 &shadingNormal {current.normal_};
+
+        // the lobes are chosen proportionally to their luminance
+        const float luminanceD {::MobileRT::toLuminance(kD)};
+        const float luminanceS {::MobileRT::toLuminance(kS)};
+        const float luminanceT {::MobileRT::toLuminance(kT)};
+        const float luminanceSum {luminanceD + luminanceS + luminanceT};
+        if (luminanceSum <= 0.0F) {
+            break;
+        }
+        const float probabilityD {luminanceD / luminanceSum};
+
+        // shadowed direct lighting - only for diffuse materials
+        //Ld = Ld (p->Wr)
+        // The direct lighting is estimated both by sampling the lights and by sampling the BRDF, and the two estimates
+        // are combined with multiple importance sampling (power heuristic).
+        if (luminanceD > 0.0F && samplesLight > 0) {
+            ::glm::vec3 Ld {};
+            for (::std::int32_t i {}; i < samplesLight; ++i) {
+                ::MobileRT::DirectLightSample lightSample {};
+                if (!sampleDirectLight(current, &lightSample)) {
+                    continue;
+                }
+                //shadow ray->orig=intersection, dir=light
+                Ray shadowRay {lightSample.direction_, current.point_, rayDepth + 1, true, current.primitive_};
+                //if there are no primitives between intersection and the light
+                if (shadowTrace(lightSample.distance_, ::std::move(shadowRay))) {
+                    continue;
+                }
+                // A point light can't be hit by the BRDF samples, so it is only sampled by the lights.
+                float weight {1.0F};
+                if (lightSample.pdf_ > 0.0F) {
+                    //PDF = probability of the diffuse lobe * cos(dir, normal) / Pi
+                    const float cosNormalLight {::glm::dot(shadingNormal, lightSample.direction_)};
+                    const float lobePdf {probabilityD * cosNormalLight * ::glm::one_over_pi<float> ()};
+                    weight = powerHeuristic(static_cast<float> (samplesLight) * lightSample.pdf_, lobePdf);
+                }
+                Ld += lightSample.irradiance_ * weight;
             }
+            //BRDF = kD / Pi
+            radiance += throughput * kD * ::glm::one_over_pi<float> () * Ld / static_cast<float> (samplesLight);
+        }
 
-            //if it has Ld and if LiD intersects a light source then LiD = 0
-            if (::MobileRT::hasPositiveValue(Ld) && intersectedLight) {
-                LiD = {};
+        // Russian roulette: after the minimum bounces, the dim paths are more likely to finish and the surviving
+        // paths compensate the finished ones.
+        if (rayDepth > RayDepthMin) {
+            const float continueProbability {
+                ::glm::clamp(::MobileRT::toLuminance(throughput), MinContinueProbability, 1.0F)
+            };
+            if (this->samplerRussianRoulette_->getSample() >= continueProbability) {
+                break;
             }
+            throughput /= continueProbability;
         }
-    }
 
-    // specular reflection
-    if (::MobileRT::hasPositiveValue(kS)) {
-        //PDF = 1 / 2 Pi
-        const ::glm::vec3 &reflectionDir {::glm::reflect(intersection.ray_.direction_, shadingNormal)};
-        Ray specularRay {reflectionDir, intersection.point_, rayDepth + 1, false, intersection.primitive_};
-        ::glm::vec3 LiS_RGB {};
-        rayTrace(&LiS_RGB, ::std::move(specularRay));
-        LiS += kS * LiS_RGB;
-    }
+        ::glm::vec3 newDirection {};
+        const float lobeSample {this->samplerRussianRoulette_->getSample() * luminanceSum};
+        if (lobeSample < luminanceD || (luminanceS <= 0.0F && luminanceT <= 0.0F)) {
+            // diffuse reflection
+            //PDF = cos(dir, normal) / Pi
+            //throughput *= kD / Pi * cos(dir, normal) / (PDF * probabilityD)
+            //throughput *= kD / probabilityD
+            newDirection = getCosineSampleHemisphere(shadingNormal);
+            throughput *= kD / probabilityD;
+            brdfPdf = probabilityD * ::glm::dot(shadingNormal, newDirection) * ::glm::one_over_pi<float> ();
+        } else if (lobeSample < luminanceD + luminanceS || luminanceT <= 0.0F) {
+            // specular reflection
+            newDirection = ::glm::reflect(current.ray_.direction_, shadingNormal);
+            throughput *= kS * luminanceSum / luminanceS;
+            brdfPdf = 0.0F;
+        } else {
+            // specular transmission
+            const float refractiveIndice {1.0F / current.material_->refractiveIndice_};
+            newDirection = ::glm::refract(current.ray_.direction_, shadingNormal, refractiveIndice);
+            throughput *= kT * luminanceSum / luminanceT;
+            brdfPdf = 0.0F;
+        }
 
-    // specular transmission
-    if (::MobileRT::hasPositiveValue(kT)) {
-        //PDF = 1 / 2 Pi
-        const float refractiveIndice {1.0F / intersection.material_->refractiveIndice_};
-        const ::glm::vec3 &refractDir {::glm::refract(intersection.ray_.direction_, shadingNormal, refractiveIndice)};
-        Ray transmissionRay {refractDir, intersection.point_, rayDepth + 1, false, intersection.primitive_};
-        ::glm::vec3 LiT_RGB {};
-        rayTrace(&LiT_RGB, ::std::move(transmissionRay));
-        LiT += kT * LiT_RGB;
+        Ray secundaryRay {newDirection, current.point_, rayDepth + 1, false, current.primitive_};
+        current = traceRay(::std::move(secundaryRay));
+        if (current.length_ >= ::MobileRT::RayLengthMax) {
+            // the ray didn't intersect anything
+            break;
+        }
     }
 
-    *rgb += Ld;
-    *rgb += LiD;
-    *rgb += LiS;
-    *rgb += LiT;
-    return intersectedLight;
+    *rgb += radiance;
+    return false;
 }
 
 void PathTracer::resetSampling() {
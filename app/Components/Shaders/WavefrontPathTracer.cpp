@@ -0,0 +1,273 @@
+#include "Components/Shaders/WavefrontPathTracer.hpp"
+#include <glm/gtc/constants.hpp>
+
+using ::Components::WavefrontPathTracer;
+using ::MobileRT::Sampler;
+using ::MobileRT::Intersection;
+using ::MobileRT::Ray;
+using ::MobileRT::Scene;
+using ::MobileRT::RayDepthMin;
+using ::MobileRT::RayDepthMax;
+
+namespace {
+    /**
+     * The minimum probability of a path to continue in the Russian roulette, so the paths with a dim throughput don't
+     * all finish, which would add a lot of variance.
+     */
+    const float MinContinueProbability {0.05F};
+}//namespace
+
+/**
+ * The constructor.
+ *
+ * @param scene                  The scene.
+ * @param samplerRussianRoulette The sampler used to decide when the paths finish.
+ * @param samplesLight           The number of samples per light.
+ * @param accelerator            The acceleration structure to use.
+ */
+WavefrontPathTracer::WavefrontPathTracer(Scene scene,
+                                         ::std::unique_ptr<Sampler> samplerRussianRoulette,
+                                         const ::std::int32_t samplesLight,
+                                         const Accelerator accelerator) :
+    Shader {::std::move(scene), samplesLight, accelerator},
+    samplerRussianRoulette_ {::std::move(samplerRussianRoulette)} {
+    LOG_DEBUG("samplesLight = ", this->samplesLight_);
+}
+
+/**
+ * The destructor.
+ */
+WavefrontPathTracer::~WavefrontPathTracer() {
+    LOG_INFO("Time in shading stage = ", getStageTime(STAGE_SHADING) / 1000000, " ms");
+    LOG_INFO("Time in shadow stage = ", getStageTime(STAGE_SHADOW) / 1000000, " ms");
+    LOG_INFO("Time in extension stage = ", getStageTime(STAGE_EXTENSION) / 1000000, " ms");
+}
+
+/**
+ * Casts a batch of rays into the scene and calculates the color of each one of them, by processing all the paths
+ * together, stage by stage.
+ *
+ * @param rgbs A pointer to the array where the color of each ray should be put.
+ * @param rays The casted rays into the scene.
+ */
+void WavefrontPathTracer::rayTraceBatch(::glm::vec3 *const rgbs, ::std::vector<Ray> *const rays) {
+    Queues &queues {getQueues()};
+    queues.extensions_.clear();
+    queues.extensionPaths_.clear();
+    for (::std::uint32_t ray {}; ray < static_cast<::std::uint32_t> (rays->size()); ++ray) {
+        queues.extensions_.emplace_back(::std::move((*rays)[ray]));
+        queues.extensionPaths_.push_back(PathState {::glm::vec3 {1.0F}, ray, true});
+    }
+    extensionStage(&queues);
+    tracePaths(rgbs, &queues);
+}
+
+/**
+ * Calculates the color of a single intersection, by processing the path started by it like a batch with just one
+ * path.
+ *
+ * @param rgb          A pointer to store the color of the intersection.
+ * @param intersection The intersection data, like point, normal, material, etc.
+ * @return Whether the ray intersected a light or not.
+ */
+bool WavefrontPathTracer::shade(::glm::vec3 *const rgb, const Intersection &intersection) {
+    Queues &queues {getQueues()};
+    queues.hits_.clear();
+    queues.paths_.clear();
+    queues.hits_.emplace_back(intersection);
+    queues.paths_.push_back(PathState {::glm::vec3 {1.0F}, 0, true});
+    tracePaths(rgb, &queues);
+    return ::MobileRT::hasPositiveValue(intersection.material_->Le_);
+}
+
+/**
+ * Helper method which processes the stages of the wavefront until all the paths in the queues finished.
+ *
+ * @param rgbs   A pointer to the array where the color of each path should be added.
+ * @param queues The queues, with the resolved hits of the paths.
+ */
+void WavefrontPathTracer::tracePaths(::glm::vec3 *const rgbs, Queues *const queues) {
+    while (!queues->hits_.empty()) {
+        shadeStage(rgbs, queues);
+        shadowStage(rgbs, queues);
+        extensionStage(queues);
+    }
+}
+
+/**
+ * Helper method which shades all the hits in the queue.
+ * <br>
+ * It adds the light emitted by the hits, creates the shadow rays to sample the direct lighting of the diffuse
+ * materials and creates the extension rays of the paths which continue. Like in the PathTracer, a single lobe of the
+ * material is chosen to continue each path and the Russian roulette depends on the throughput of the path.
+ *
+ * @param rgbs   A pointer to the array where the color of each path should be added.
+ * @param queues The queues of the wavefront.
+ */
+void WavefrontPathTracer::shadeStage(::glm::vec3 *const rgbs, Queues *const queues) {
+    const ::std::chrono::steady_clock::time_point start {::std::chrono::steady_clock::now()};
+    queues->shadowRays_.clear();
+    queues->shadowPaths_.clear();
+    queues->extensions_.clear();
+    queues->extensionPaths_.clear();
+    const ::std::int32_t samplesLight {this->samplesLight_};
+    const bool sampleLights {!this->lights_.empty() && samplesLight > 0};
+    for (::std::uint32_t index {}; index < static_cast<::std::uint32_t> (queues->hits_.size()); ++index) {
+        const Intersection &intersection {queues->hits_[index]};
+        const PathState &path {queues->paths_[index]};
+        const ::std::int32_t rayDepth {intersection.ray_.depth_};
+        if (intersection.length_ >= ::MobileRT::RayLengthMax || rayDepth > RayDepthMax) {
+            continue;
+        }
+
+        const ::glm::vec3 &lE {intersection.material_->Le_};
+        if (::MobileRT::hasPositiveValue(lE)) {
+            if (path.countEmission_) {
+                rgbs[path.pixel_] += path.throughput_ * lE;
+            }
+            continue;
+        }
+
+        const ::glm::vec3 &kD {intersection.material_->Kd_};
+        const ::glm::vec3 &kS {intersection.material_->Ks_};
+        const ::glm::vec3 &kT {intersection.material_->Kt_};
+        const ::glm::vec3 &shadingNormal {intersection.normal_};
+
+        // The lobes are chosen proportionally to their luminance, like in the PathTracer.
+        const float luminanceD {::MobileRT::toLuminance(kD)};
+        const float luminanceS {::MobileRT::toLuminance(kS)};
+        const float luminanceT {::MobileRT::toLuminance(kT)};
+        const float luminanceSum {luminanceD + luminanceS + luminanceT};
+        if (luminanceSum <= 0.0F) {
+            continue;
+        }
+
+        if (luminanceD > 0.0F) {
+            const ::glm::vec3 diffuseThroughput {path.throughput_ * kD};
+            for (::std::int32_t i {}; i < samplesLight && sampleLights; ++i) {
+                ::MobileRT::DirectLightSample lightSample {};
+                if (sampleDirectLight(intersection, &lightSample)) {
+                    queues->shadowRays_.emplace_back(
+                        lightSample.direction_, intersection.point_, rayDepth + 1, true, intersection.primitive_
+                    );
+                    queues->shadowPaths_.push_back(ShadowState {
+                        diffuseThroughput * ::glm::one_over_pi<float> () * lightSample.irradiance_
+                        / static_cast<float> (samplesLight),
+                        lightSample.distance_, path.pixel_
+                    });
+                }
+            }
+        }
+
+        // Russian roulette: after the minimum bounces, the dim paths are more likely to finish and the surviving
+        // paths compensate the finished ones.
+        ::glm::vec3 throughput {path.throughput_};
+        if (rayDepth > RayDepthMin) {
+            const float continueProbability {
+                ::glm::clamp(::MobileRT::toLuminance(throughput), MinContinueProbability, 1.0F)
+            };
+            if (this->samplerRussianRoulette_->getSample() >= continueProbability) {
+                continue;
+            }
+            throughput /= continueProbability;
+        }
+
+        // Only one lobe continues the path, so each hit creates at most one extension ray.
+        ::glm::vec3 newDirection {};
+        bool countEmission {true};
+        const float lobeSample {this->samplerRussianRoulette_->getSample() * luminanceSum};
+        if (lobeSample < luminanceD || (luminanceS <= 0.0F && luminanceT <= 0.0F)) {
+            newDirection = getCosineSampleHemisphere(shadingNormal);
+            throughput *= kD * luminanceSum / luminanceD;
+            countEmission = !sampleLights;
+        } else if (lobeSample < luminanceD + luminanceS || luminanceT <= 0.0F) {
+            newDirection = ::glm::reflect(intersection.ray_.direction_, shadingNormal);
+            throughput *= kS * luminanceSum / luminanceS;
+        } else {
+            const float refractiveIndice {1.0F / intersection.material_->refractiveIndice_};
+            newDirection = ::glm::refract(intersection.ray_.direction_, shadingNormal, refractiveIndice);
+            throughput *= kT * luminanceSum / luminanceT;
+        }
+        queues->extensions_.emplace_back(
+            Ray {newDirection, intersection.point_, rayDepth + 1, false, intersection.primitive_}
+        );
+        queues->extensionPaths_.push_back(PathState {throughput, path.pixel_, countEmission});
+    }
+    addStageTime(STAGE_SHADING, start);
+}
+
+/**
+ * Helper method which traces all the shadow rays in the queue and adds the direct lighting of the ones which are not
+ * occluded.
+ *
+ * @param rgbs   A pointer to the array where the color of each path should be added.
+ * @param queues The queues of the wavefront.
+ */
+void WavefrontPathTracer::shadowStage(::glm::vec3 *const rgbs, Queues *const queues) {
+    const ::std::chrono::steady_clock::time_point start {::std::chrono::steady_clock::now()};
+    for (::std::uint32_t index {}; index < static_cast<::std::uint32_t> (queues->shadowRays_.size()); ++index) {
+        const ShadowState &shadow {queues->shadowPaths_[index]};
+        if (!shadowTrace(shadow.distance_, ::std::move(queues->shadowRays_[index]))) {
+            rgbs[shadow.pixel_] += shadow.radiance_;
+        }
+    }
+    addStageTime(STAGE_SHADOW, start);
+}
+
+/**
+ * Helper method which traces all the extension rays in the queue together and makes their resolved nearest
+ * intersections the hits of the next shading stage.
+ *
+ * @param queues The queues of the wavefront.
+ */
+void WavefrontPathTracer::extensionStage(Queues *const queues) {
+    const ::std::chrono::steady_clock::time_point start {::std::chrono::steady_clock::now()};
+    queues->hits_.swap(queues->extensions_);
+    queues->paths_.swap(queues->extensionPaths_);
+    traceNearestBatch(&queues->hits_);
+    for (Intersection &intersection : queues->hits_) {
+        intersection = resolveNearest(::std::move(intersection));
+    }
+    addStageTime(STAGE_EXTENSION, start);
+}
+
+/**
+ * Helper method which adds the time elapsed since the start of a stage to its accumulated time.
+ *
+ * @param stage The stage.
+ * @param start The time when the stage started.
+ */
+void WavefrontPathTracer::addStageTime(const Stage stage, const ::std::chrono::steady_clock::time_point start) {
+    const ::std::chrono::steady_clock::duration elapsed {::std::chrono::steady_clock::now() - start};
+    const ::std::int64_t nanoseconds {::std::chrono::duration_cast<::std::chrono::nanoseconds>(elapsed).count()};
+    this->stageTimes_[static_cast<::std::uint32_t> (stage)].fetch_add(nanoseconds, ::std::memory_order_relaxed);
+}
+
+/**
+ * Helper method which gets the queues of the current thread.
+ * They are kept between batches, so the stages don't need to allocate memory.
+ *
+ * @return The queues of the current thread.
+ */
+WavefrontPathTracer::Queues &WavefrontPathTracer::getQueues() {
+    thread_local Queues queues {};
+    return queues;
+}
+
+/**
+ * Gets the accumulated time spent in a stage of the wavefront, by all the threads.
+ *
+ * @param stage The stage.
+ * @return The time spent in the stage, in nanoseconds.
+ */
+::std::int64_t WavefrontPathTracer::getStageTime(const Stage stage) const {
+    return this->stageTimes_[static_cast<::std::uint32_t> (stage)].load(::std::memory_order_relaxed);
+}
+
+/**
+ * Resets the sampling process of the lights and of the Russian roulette.
+ */
+void WavefrontPathTracer::resetSampling() {
+    Shader::resetSampling();
+    this->samplerRussianRoulette_->resetSampling();
+}
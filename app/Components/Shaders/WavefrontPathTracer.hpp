@@ -0,0 +1,126 @@
+#ifndef COMPONENTS_SHADERS_WAVEFRONTPATHTRACER_HPP
+#define COMPONENTS_SHADERS_WAVEFRONTPATHTRACER_HPP
+
+#include "MobileRT/Sampler.hpp"
+#include "MobileRT/Shader.hpp"
+#include <array>
+#include <atomic>
+#include <chrono>
+#include <memory>
+#include <vector>
+
+namespace Components {
+
+    /**
+     * A Path Tracer which processes the paths of a batch of rays in stages (wavefront) instead of recursively.
+     * <br>
+     * The paths are kept in queues and every stage processes the whole queue before the next stage starts:
+     * <br>
+     *  - shading: calculates the emitted light of the hits and creates the shadow rays and the extension rays
+     *  (next bounces)<br>
+     *  - shadow: traces the shadow rays and adds the direct lighting of the unoccluded ones<br>
+     *  - extension: traces the extension rays together and resolves their nearest intersections<br>
+     * <br>
+     * Each path carries its throughput instead of being multiplied when the recursion returns, so there is no
+     * recursion and the time spent in each stage can be measured.
+     */
+    class WavefrontPathTracer final : public ::MobileRT::Shader {
+    public:
+        /**
+         * The stages of the wavefront.
+         */
+        enum Stage {
+            STAGE_SHADING = 0,
+            STAGE_SHADOW,
+            STAGE_EXTENSION,
+            STAGE_COUNT,
+        };
+
+    private:
+        /**
+         * The state of a path waiting in a queue.
+         */
+        struct PathState {
+            ::glm::vec3 throughput_ {};
+            ::std::uint32_t pixel_ {};
+
+            /**
+             * Whether the light emitted by the next hit should be added, which is false after a diffuse bounce
+             * whose direct lighting was already sampled with shadow rays.
+             */
+            bool countEmission_ {};
+        };
+
+        /**
+         * The state of a shadow ray waiting in the queue.
+         */
+        struct ShadowState {
+            ::glm::vec3 radiance_ {};
+            float distance_ {};
+            ::std::uint32_t pixel_ {};
+        };
+
+        /**
+         * The queues of the wavefront.
+         * The hits and the paths are parallel vectors, as are the shadow rays and their states.
+         */
+        struct Queues {
+            ::std::vector<::MobileRT::Intersection> hits_ {};
+            ::std::vector<PathState> paths_ {};
+            ::std::vector<::MobileRT::Intersection> extensions_ {};
+            ::std::vector<PathState> extensionPaths_ {};
+            ::std::vector<::MobileRT::Ray> shadowRays_ {};
+            ::std::vector<ShadowState> shadowPaths_ {};
+        };
+
+    private:
+        ::std::unique_ptr<::MobileRT::Sampler> samplerRussianRoulette_ {};
+
+        /**
+         * The accumulated time in nanoseconds spent in each stage, by all the threads.
+         */
+        ::std::array<::std::atomic<::std::int64_t>, STAGE_COUNT> stageTimes_ {};
+
+    private:
+        bool shade(
+            ::glm::vec3 *rgb,
+            const ::MobileRT::Intersection &intersection) final;
+
+        void tracePaths(::glm::vec3 *rgbs, Queues *queues);
+
+        void shadeStage(::glm::vec3 *rgbs, Queues *queues);
+
+        void shadowStage(::glm::vec3 *rgbs, Queues *queues);
+
+        void extensionStage(Queues *queues);
+
+        void addStageTime(Stage stage, ::std::chrono::steady_clock::time_point start);
+
+        static Queues &getQueues();
+
+    public:
+        explicit WavefrontPathTracer() = delete;
+
+        explicit WavefrontPathTracer(::MobileRT::Scene scene,
+                                     ::std::unique_ptr<::MobileRT::Sampler> samplerRussianRoulette,
+                                     ::std::int32_t samplesLight, Accelerator accelerator);
+
+        WavefrontPathTracer(const WavefrontPathTracer &pathTracer) = delete;
+
+        WavefrontPathTracer(WavefrontPathTracer &&pathTracer) noexcept = delete;
+
+        ~WavefrontPathTracer() final;
+
+        WavefrontPathTracer &operator=(const WavefrontPathTracer &pathTracer) = delete;
+
+        WavefrontPathTracer &operator=(WavefrontPathTracer &&pathTracer) noexcept = delete;
+
+        void rayTraceBatch(::glm::vec3 *rgbs, ::std::vector<::MobileRT::Ray> *rays) final;
+
+        void resetSampling() final;
+
+        ::std::int64_t getStageTime(Stage stage) const;
+    };
+}//namespace Components
+
+#endif //COMPONENTS_SHADERS_WAVEFRONTPATHTRACER_HPP
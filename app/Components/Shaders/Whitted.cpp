@@ -1,4 +1,5 @@
 #include "Components/Shaders/Whitted.hpp"
+#include <glm/gtc/constants.hpp>
 
 using ::Components::Whitted;
 using ::MobileRT::Intersection;
@@ -39,27 +40,21 @@ bool Whitted::shade(::glm::vec3 *const rgb, const Intersection &intersection) {
         if (sizeLights > 0) {
             const ::std::int32_t samplesLight {this->samplesLight_};
             for (::std::int32_t i {}; i < samplesLight; ++i) {
-                const ::std::uint32_t chosenLight {getLightIndex()};
-                ::MobileRT::Light &light {*this->lights_[chosenLight]};
-                const ::glm::vec3 lightPosition {light.getPosition()};
-                //calculates vector starting in intersection to the light
-                ::glm::vec3 vectorToLight {lightPosition - intersection.point_};
-                //distance from intersection to the light (and normalize it)
-                const float distanceToLight {::glm::length(vectorToLight)};
-                vectorToLight = ::glm::normalize(vectorToLight);
-                const float cosNl {::glm::dot(shadingNormal, vectorToLight)};
-                if (cosNl > 0.0F) {
+                ::MobileRT::DirectLightSample lightSample {};
+                if (sampleDirectLight(intersection, &lightSample)) {
                     //shadow ray - orig=intersection, dir=light
-                    Ray shadowRay {vectorToLight, intersection.point_, rayDepth + 1, true, intersection.primitive_};
+                    Ray shadowRay {
+                        lightSample.direction_, intersection.point_, rayDepth + 1, true, intersection.primitive_
+                    };
                     //intersection between shadow ray and the closest primitive
                     //if there are no primitives between intersection and the light
-                    if (!shadowTrace(distanceToLight, ::std::move(shadowRay))) {
-                        // "rgb += kD * radLight * cosNl;"
-                        *rgb += light.radiance_.Le_ * cosNl;
+                    if (!shadowTrace(lightSample.distance_, ::std::move(shadowRay))) {
+                        // "rgb += kD / Pi * irradiance;"
+                        *rgb += lightSample.irradiance_;
                     }
                 }
             }
-            *rgb *= kD;
+            *rgb *= kD * ::glm::one_over_pi<float> ();
             *rgb /= samplesLight;
         } // end direct + ambient
     }
@@ -7,15 +7,36 @@
 #include "MobileRT/Utils/Utils.hpp"
 #include <algorithm>
 #include <array>
+#include <atomic>
 #include <boost/sort/spreadsort/spreadsort.hpp>
 #include <future>
 #include <glm/glm.hpp>
+#include <limits>
 #include <random>
 #include <thread>
 #include <vector>
 
 namespace MobileRT {
 
+    /**
+     * The algorithms available to split the nodes while building a BVH.
+     */
+    enum BVHBuilder {
+        /**
+         * Partitions the primitives in 10 buckets along the longest axis and evaluates the SAH for every possible
+         * split of the primitives.
+         */
+        BUILD_SWEEP_SAH = 1,
+
+        /**
+         * Evaluates the SAH only at the boundaries of a fixed number of bins along every axis.
+         */
+        BUILD_BINNED_SAH,
+    };
+
+    template<typename T>
+    class BVH4;
+
     /**
      * A class which represents the Bounding Volume Hierarchy acceleration structure.
      *
@@ -23,13 +44,16 @@ namespace MobileRT {
      */
     template<typename T>
     class BVH final {
+        friend class BVH4<T>;
+
         private:
             /**
              * An auxiliary node used for the construction of the BVH.
              * It is used to sort all the AABBs by the position of the centroid.
              */
             struct BuildNode {
-                AABB box_ {};
+                ::glm::vec3 pointMin_ {};
+                ::glm::vec3 pointMax_ {};
                 ::glm::vec3 centroid_ {};
                 ::std::int32_t oldIndex_ {};
 
@@ -46,20 +70,65 @@ namespace MobileRT {
                  * position.
                  */
                 explicit BuildNode(AABB &&box, const ::std::int32_t oldIndex) :
-                    box_ {box},
-                    centroid_ {box_.getCentroid()},
+                    pointMin_ {box.getPointMin()},
+                    pointMax_ {box.getPointMax()},
+                    centroid_ {box.getCentroid()},
                     oldIndex_ {oldIndex} {
 
                 }
+
+                /**
+                 * Gets the box stored in the node.
+                 *
+                 * @return The box stored in the node.
+                 */
+                AABB getBox() const {
+                    return AABB {this->pointMin_, this->pointMax_};
+                }
             };
 
             /**
-             * A node of the BVH vector.
+             * A node of the BVH vector used during the construction.
              */
             struct BVHNode {
                 AABB box_ {};
                 ::std::int32_t indexOffset_ {};
                 ::std::int32_t numPrimitives_ {};
+                ::std::int32_t axis_ {};
+            };
+
+            /**
+             * A compact node of the flattened BVH used during the traversal.
+             * <br>
+             * The nodes are stored in depth-first order, so the first child of an interior node is always the next
+             * node in the vector and only the index of the second child is stored.
+             * For a leaf, the offset is the index of the first primitive.
+             */
+            struct alignas(32) BVHFlatNode {
+                ::glm::vec3 pointMin_ {};
+                ::std::int32_t offset_ {};
+                ::glm::vec3 pointMax_ {};
+                ::std::uint16_t numPrimitives_ {};
+                ::std::uint8_t axis_ {};
+                ::std::uint8_t padding_ {};
+            };
+            static_assert(sizeof(BVHFlatNode) == 32, "The flattened BVH node should fit in 32 bytes.");
+
+            /**
+             * An entry of the traversal stack: the index of a node and the distance where the ray enters its box.
+             */
+            struct StackEntry {
+                ::std::int32_t nodeIndex_ {};
+                float entryDistance_ {};
+            };
+
+            /**
+             * An entry of the traversal stack of a packet: the index of a node and the mask of the rays of the packet
+             * which intersected its parent.
+             */
+            struct PacketStackEntry {
+                ::std::int32_t nodeIndex_ {};
+                ::std::uint32_t activeRays_ {};
             };
 
             struct rightshift {
@@ -80,14 +149,82 @@ namespace MobileRT {
                 }
             };
 
+            /**
+             * A bin used by the binned SAH builder, with the bounds and the number of the primitives whose centroid
+             * falls inside it.
+             */
+            struct Bin {
+                ::glm::vec3 pointMin_ {};
+                ::glm::vec3 pointMax_ {};
+                ::std::int32_t numPrimitives_ {};
+            };
+
+            /**
+             * The scratch memory used by the binned SAH builder.
+             * <br>
+             * It is allocated once per build and reused for every node, so splitting a node doesn't need any heap
+             * allocation.
+             */
+            struct BinningScratch {
+                ::std::vector<Bin> bins_ {};
+                ::std::vector<float> rightCosts_ {};
+
+                explicit BinningScratch(::std::int32_t numBins);
+            };
+
+            /**
+             * A node of the BVH left to build, with the range of its primitives.
+             */
+            struct BuildTask {
+                ::std::int32_t nodeIndex_ {};
+                ::std::int32_t begin_ {};
+                ::std::int32_t end_ {};
+            };
+
+            /**
+             * The maximum number of primitives in a leaf of the BVH.
+             */
+            static constexpr ::std::int32_t MaxPrimitivesInLeaf {4};
+
+            /**
+             * The minimum number of primitives in a subtree built in parallel with other subtrees.
+             */
+            static constexpr ::std::int32_t MinPrimitivesInSubtree {4096};
+
+            /**
+             * The number of subtrees to build in parallel per thread, so the workers can balance the work.
+             */
+            static constexpr ::std::int32_t SubtreesPerThread {8};
+
         private:
-            ::std::vector<BVHNode> boxes_ {};
+            ::std::vector<BVHFlatNode> nodes_ {};
             ::std::vector<T> primitives_ {};
 
         private:
-            void build(::std::vector<T> &&primitives);
+            void build(::std::vector<T> &&primitives, BVHBuilder builder, ::std::int32_t numBins);
+
+            ::std::int32_t buildSweepSah(::std::vector<BuildNode> *buildNodesPtr, ::std::vector<BVHNode> *buildBoxesPtr);
+
+            ::std::int32_t buildBinnedSah(::std::vector<BuildNode> *buildNodesPtr, ::std::vector<BVHNode> *buildBoxesPtr,
+                                          ::std::int32_t numBins);
+
+            static void buildBinnedSubtree(const BuildTask &root, ::std::int32_t maxSubtreeSize,
+                                           ::std::vector<BuildNode> *buildNodesPtr,
+                                           ::std::vector<BVHNode> *buildBoxesPtr,
+                                           BinningScratch *scratch,
+                                           ::std::atomic<::std::int32_t> *nextNodeIndex,
+                                           ::std::vector<BuildTask> *subtrees);
+
+            static ::std::int32_t splitBinnedSah(typename ::std::vector<BuildNode>::iterator itBegin,
+                                                 typename ::std::vector<BuildNode>::iterator itEnd,
+                                                 BinningScratch *scratch, AABB *box, ::std::int32_t *axis);
 
-            Intersection intersect(Intersection intersection);
+            void flatten(const ::std::vector<BVHNode> &boxes);
+
+            Intersection intersect(Intersection intersection, ::std::int32_t rootIndex = 0);
+
+            static bool intersectBox(const BVHFlatNode &node, const ::glm::vec3 &origin, const ::glm::vec3 &invDirection,
+                                     float maxDistance, float *entryDistance);
 
             template<typename Iterator>
             ::std::int32_t getSplitIndexSah(Iterator itBegin, Iterator itEnd);
@@ -98,7 +235,8 @@ namespace MobileRT {
         public:
             explicit BVH() = default;
 
-            explicit BVH(::std::vector<T> &&primitives);
+            explicit BVH(::std::vector<T> &&primitives, BVHBuilder builder = BUILD_BINNED_SAH,
+                         ::std::int32_t numBins = NumberOfBins);
 
             BVH(const BVH &bvh) = delete;
 
@@ -114,6 +252,10 @@ namespace MobileRT {
 
             Intersection shadowTrace(Intersection intersection);
 
+            bool occluded(const Ray &ray, float distance) const;
+
+            void tracePacket(Intersection *intersections, ::std::int32_t packetSize);
+
             const ::std::vector<T>& getPrimitives() const;
     };
 
@@ -124,20 +266,20 @@ namespace MobileRT {
      *
      * @tparam T The type of the primitives.
      * @param primitives The vector containing all the primitives to store in the BVH.
+     * @param builder    The algorithm used to split the nodes while building the BVH.
+     * @param numBins    The number of bins used by the binned SAH builder.
      */
     template<typename T>
-    BVH<T>::BVH(::std::vector<T> &&primitives) {
+    BVH<T>::BVH(::std::vector<T> &&primitives, const BVHBuilder builder, const ::std::int32_t numBins) {
         if (primitives.empty()) {
-            this->boxes_.emplace_back();
+            this->nodes_.emplace_back();
             LOG_WARN("Empty BVH for '", typeid(T).name(), "' without any primitives.");
             return;
         }
         const typename ::std::vector<T>::size_type numPrimitives {primitives.size()};
-        const typename ::std::vector<T>::size_type maxNodes {numPrimitives * 2 - 1};
-        this->boxes_.resize(maxNodes);
         LOG_INFO("Building BVH for '", typeid(T).name(), "' with '", numPrimitives, "' primitives.");
-        build(::std::move(primitives));
-        LOG_INFO("Built BVH for '", typeid(T).name(), "' with '", this->primitives_.size(), "' primitives in '", this->boxes_.size(), "' boxes.");
+        build(::std::move(primitives), builder, ::std::max(2, numBins));
+        LOG_INFO("Built BVH for '", typeid(T).name(), "' with '", this->primitives_.size(), "' primitives in '", this->nodes_.size(), "' boxes.");
     }
 
     /**
@@ -147,10 +289,10 @@ namespace MobileRT {
      */
     template<typename T>
     BVH<T>::~BVH() {
-        this->boxes_.clear();
+        this->nodes_.clear();
         this->primitives_.clear();
 
-        ::std::vector<BVHNode> {}.swap(this->boxes_);
+        ::std::vector<BVHFlatNode> {}.swap(this->nodes_);
         ::std::vector<T> {}.swap(this->primitives_);
     }
 
@@ -159,29 +301,12 @@ namespace MobileRT {
      *
      * @tparam T The type of the primitives.
      * @param primitives A vector containing all the primitives to store in the BVH.
+     * @param builder    The algorithm used to split the nodes.
+     * @param numBins    The number of bins used by the binned SAH builder.
      */
     template<typename T>
-    void BVH<T>::build(::std::vector<T> &&primitives) {
-        ::std::int32_t currentBoxIndex {};
-        ::std::int32_t beginBoxIndex {};
+    void BVH<T>::build(::std::vector<T> &&primitives, const BVHBuilder builder, const ::std::int32_t numBins) {
         const long long unsigned primitivesSize {primitives.size()};
-        ::std::int32_t endBoxIndex {static_cast<::std::int32_t> (primitivesSize)};
-        ::std::int32_t maxNodeIndex {};
-
-        ::std::array<::std::int32_t, StackSize> stackBoxIndex {};
-        ::std::array<::std::int32_t, StackSize> stackBoxBegin {};
-        ::std::array<::std::int32_t, StackSize> stackBoxEnd {};
-
-        ::std::array<::std::int32_t, StackSize>::iterator itStackBoxIndex {stackBoxIndex.begin()};
-        ::std::advance(itStackBoxIndex, 1);
-
-        ::std::array<::std::int32_t, StackSize>::iterator itStackBoxBegin {stackBoxBegin.begin()};
-        ::std::advance(itStackBoxBegin, 1);
-
-        ::std::array<::std::int32_t, StackSize>::iterator itStackBoxEnd {stackBoxEnd.begin()};
-        ::std::advance(itStackBoxEnd, 1);
-
-        const ::std::array<::std::int32_t, StackSize>::const_iterator itStackBoxIndexBegin {stackBoxIndex.cbegin()};
 
         // Auxiliary structure used to sort all the AABBs by the position of the centroid.
         ::std::vector<BuildNode> buildNodes (static_cast<long unsigned> (primitivesSize));
@@ -216,8 +341,61 @@ namespace MobileRT {
             task.get();
         }
 
+        ::std::vector<BVHNode> buildBoxes (static_cast<long unsigned> (primitivesSize * 2 - 1));
+        const ::std::int32_t maxNodeIndex {
+            builder == BVHBuilder::BUILD_BINNED_SAH
+            ? buildBinnedSah(&buildNodes, &buildBoxes, numBins)
+            : buildSweepSah(&buildNodes, &buildBoxes)
+        };
+
+        LOG_INFO("maxNodeIndex = ", maxNodeIndex);
+        buildBoxes.erase (buildBoxes.begin() + maxNodeIndex + 1, buildBoxes.end());
+        flatten(buildBoxes);
+
+        // Insert primitives with the proper order.
+        this->primitives_.reserve(static_cast<long unsigned> (primitivesSize));
+        for (::std::uint32_t i {}; i < primitivesSize; ++i) {
+            const BuildNode &node {buildNodes[i]};
+            const ::std::uint32_t oldIndex {static_cast<::std::uint32_t> (node.oldIndex_)};
+            this->primitives_.emplace_back(::std::move(primitives[oldIndex]));
+        }
+    }
+
+    /**
+     * A helper method which builds the nodes of the BVH by partitioning the primitives in buckets along the longest
+     * axis and then evaluating the Surface Area Heuristic for every possible split of the primitives.
+     *
+     * @tparam T The type of the primitives.
+     * @param buildNodesPtr The auxiliary nodes with the boxes of all the primitives.
+     * @param buildBoxesPtr The nodes of the BVH to fill.
+     * @return The index of the last node created.
+     */
+    template<typename T>
+    ::std::int32_t BVH<T>::buildSweepSah(::std::vector<BuildNode> *const buildNodesPtr, ::std::vector<BVHNode> *const buildBoxesPtr) {
+        ::std::vector<BuildNode> &buildNodes {*buildNodesPtr};
+        ::std::vector<BVHNode> &buildBoxes {*buildBoxesPtr};
+        ::std::int32_t currentBoxIndex {};
+        ::std::int32_t beginBoxIndex {};
+        ::std::int32_t endBoxIndex {static_cast<::std::int32_t> (buildNodes.size())};
+        ::std::int32_t maxNodeIndex {};
+
+        ::std::array<::std::int32_t, StackSize> stackBoxIndex {};
+        ::std::array<::std::int32_t, StackSize> stackBoxBegin {};
+        ::std::array<::std::int32_t, StackSize> stackBoxEnd {};
+
+        ::std::array<::std::int32_t, StackSize>::iterator itStackBoxIndex {stackBoxIndex.begin()};
+        ::std::advance(itStackBoxIndex, 1);
+
+        ::std::array<::std::int32_t, StackSize>::iterator itStackBoxBegin {stackBoxBegin.begin()};
+        ::std::advance(itStackBoxBegin, 1);
+
+        ::std::array<::std::int32_t, StackSize>::iterator itStackBoxEnd {stackBoxEnd.begin()};
+        ::std::advance(itStackBoxEnd, 1);
+
+        const ::std::array<::std::int32_t, StackSize>::const_iterator itStackBoxIndexBegin {stackBoxIndex.cbegin()};
+
         do {
-            const auto itCurrentBox {this->boxes_.begin() + currentBoxIndex};
+            const auto itCurrentBox {buildBoxes.begin() + currentBoxIndex};
             const ::std::int32_t boxPrimitivesSize {endBoxIndex - beginBoxIndex};
             const auto itBegin {buildNodes.begin() + beginBoxIndex};
 
@@ -254,17 +432,16 @@ namespace MobileRT {
             }
 
 
-            itCurrentBox->box_ = itBegin->box_;
+            itCurrentBox->box_ = itBegin->getBox();
             ::std::vector<AABB> boxes {itCurrentBox->box_};
             boxes.reserve(static_cast<::std::uint32_t> (boxPrimitivesSize));
             for (::std::int32_t i {beginBoxIndex + 1}; i < endBoxIndex; ++i) {
-                const AABB newBox {buildNodes[static_cast<::std::uint32_t> (i)].box_};
+                const AABB newBox {buildNodes[static_cast<::std::uint32_t> (i)].getBox()};
                 itCurrentBox->box_ = ::MobileRT::surroundingBox(newBox, itCurrentBox->box_);
                 boxes.emplace_back(newBox);
             }
 
-            const int maxPrimitivesInBoxLeaf {4};
-            const bool isLeaf {boxPrimitivesSize <= maxPrimitivesInBoxLeaf};
+            const bool isLeaf {boxPrimitivesSize <= MaxPrimitivesInLeaf};
             if (isLeaf) {
                 itCurrentBox->indexOffset_ = beginBoxIndex;
                 itCurrentBox->numPrimitives_ = boxPrimitivesSize;
@@ -281,6 +458,7 @@ namespace MobileRT {
                 const ::std::int32_t splitIndex {getSplitIndexSah(boxes.begin(), boxes.end())};
 
                 itCurrentBox->indexOffset_ = left;
+                itCurrentBox->axis_ = longestAxis;
                 maxNodeIndex = ::std::max(right, maxNodeIndex);
 
                 *itStackBoxIndex = right;
@@ -294,19 +472,274 @@ namespace MobileRT {
                 endBoxIndex = beginBoxIndex + splitIndex;
             }
         } while(itStackBoxIndex > itStackBoxIndexBegin);
+        return maxNodeIndex;
+    }
 
-        LOG_INFO("maxNodeIndex = ", maxNodeIndex);
-        this->boxes_.erase (this->boxes_.begin() + maxNodeIndex + 1, this->boxes_.end());
-        this->boxes_.shrink_to_fit();
-        ::std::vector<BVHNode> {this->boxes_}.swap(this->boxes_);
+    /**
+     * The constructor.
+     *
+     * @tparam T The type of the primitives.
+     * @param numBins The number of bins used to split each node.
+     */
+    template<typename T>
+    BVH<T>::BinningScratch::BinningScratch(const ::std::int32_t numBins) :
+        bins_ (static_cast<::std::uint32_t> (NumberOfAxes * numBins)),
+        rightCosts_ (static_cast<::std::uint32_t> (numBins)) {
+    }
 
-        // Insert primitives with the proper order.
-        this->primitives_.reserve(static_cast<long unsigned> (primitivesSize));
-        for (::std::uint32_t i {}; i < primitivesSize; ++i) {
-            const BuildNode &node {buildNodes[i]};
-            const ::std::uint32_t oldIndex {static_cast<::std::uint32_t> (node.oldIndex_)};
-            this->primitives_.emplace_back(::std::move(primitives[oldIndex]));
+    /**
+     * A helper method which builds the nodes of the BVH with the binned Surface Area Heuristic.
+     * <br>
+     * Instead of evaluating the SAH for every possible split of the primitives, the centroids are distributed by a
+     * fixed number of bins along each axis and the SAH is only evaluated at the boundaries between the bins.
+     * All the memory needed to split the nodes is allocated once, before starting the construction.
+     * <br>
+     * The top of the tree is built by the calling thread until the nodes get small enough, then the remaining
+     * subtrees are built in parallel by a pool of workers which keep taking the biggest subtree not built yet.
+     *
+     * @tparam T The type of the primitives.
+     * @param buildNodesPtr The auxiliary nodes with the boxes of all the primitives.
+     * @param buildBoxesPtr The nodes of the BVH to fill.
+     * @param numBins       The number of bins used to split each node.
+     * @return The index of the last node created.
+     */
+    template<typename T>
+    ::std::int32_t BVH<T>::buildBinnedSah(::std::vector<BuildNode> *const buildNodesPtr,
+                                          ::std::vector<BVHNode> *const buildBoxesPtr,
+                                          const ::std::int32_t numBins) {
+        const ::std::int32_t numPrimitives {static_cast<::std::int32_t> (buildNodesPtr->size())};
+        const unsigned int numThreadsRaw {::std::thread::hardware_concurrency()};
+        const ::std::int32_t numThreads {static_cast<::std::int32_t> (numThreadsRaw == 0U ? 1U : numThreadsRaw)};
+        // Only the nodes with more primitives than this are split by the calling thread.
+        const ::std::int32_t maxSubtreeSize {
+            numThreads == 1 ? 0 : ::std::max(MinPrimitivesInSubtree, numPrimitives / (numThreads * SubtreesPerThread))
+        };
+
+        ::std::atomic<::std::int32_t> nextNodeIndex {1};
+        ::std::vector<BuildTask> subtrees {};
+        BinningScratch scratch {numBins};
+        buildBinnedSubtree(BuildTask {0, 0, numPrimitives}, maxSubtreeSize, buildNodesPtr, buildBoxesPtr,
+                           &scratch, &nextNodeIndex, &subtrees);
+        if (subtrees.empty()) {
+            return nextNodeIndex.load(::std::memory_order_relaxed) - 1;
+        }
+
+        // Start with the biggest subtrees, so the smaller ones can fill the gaps at the end.
+        ::std::sort(subtrees.begin(), subtrees.end(), [](const BuildTask &task1, const BuildTask &task2) {
+            return (task1.end_ - task1.begin_) > (task2.end_ - task2.begin_);
+        });
+        ::std::atomic<::std::uint32_t> nextSubtree {};
+        const ::std::int32_t numWorkers {::std::min(numThreads, static_cast<::std::int32_t> (subtrees.size()))};
+        ::std::vector<::std::future<void>> workers {};
+        workers.reserve(static_cast<::std::uint32_t> (numWorkers));
+        for (::std::int32_t workerIndex {}; workerIndex < numWorkers; ++workerIndex) {
+            workers.emplace_back(::std::async(::std::launch::async,
+                [&subtrees, &nextSubtree, &nextNodeIndex, buildNodesPtr, buildBoxesPtr, numBins]() {
+                    BinningScratch workerScratch {numBins};
+                    ::std::uint32_t subtreeIndex {nextSubtree.fetch_add(1, ::std::memory_order_relaxed)};
+                    while (subtreeIndex < subtrees.size()) {
+                        buildBinnedSubtree(subtrees[subtreeIndex], 0, buildNodesPtr, buildBoxesPtr,
+                                           &workerScratch, &nextNodeIndex, nullptr);
+                        subtreeIndex = nextSubtree.fetch_add(1, ::std::memory_order_relaxed);
+                    }
+                }
+            ));
+        }
+        for (::std::future<void> &worker : workers) {
+            worker.get();
         }
+        return nextNodeIndex.load(::std::memory_order_relaxed) - 1;
+    }
+
+    /**
+     * A helper method which builds a subtree of the BVH with the binned Surface Area Heuristic.
+     * <br>
+     * The indices of the new nodes are taken from a shared counter, so many subtrees can be built at the same time.
+     * If a vector of subtrees is provided, then the nodes which have at most the given number of primitives are not
+     * split but added to that vector instead, so they can be built later.
+     *
+     * @tparam T The type of the primitives.
+     * @param root           The root node of the subtree and the range of its primitives.
+     * @param maxSubtreeSize The maximum number of primitives in a node to be added to the subtrees.
+     * @param buildNodesPtr  The auxiliary nodes with the boxes of all the primitives.
+     * @param buildBoxesPtr  The nodes of the BVH to fill.
+     * @param scratch        The scratch memory used to evaluate the SAH.
+     * @param nextNodeIndex  The index of the next node to create.
+     * @param subtrees       The subtrees left to build or nullptr to build the whole subtree.
+     */
+    template<typename T>
+    void BVH<T>::buildBinnedSubtree(const BuildTask &root, const ::std::int32_t maxSubtreeSize,
+                                    ::std::vector<BuildNode> *const buildNodesPtr,
+                                    ::std::vector<BVHNode> *const buildBoxesPtr,
+                                    BinningScratch *const scratch,
+                                    ::std::atomic<::std::int32_t> *const nextNodeIndex,
+                                    ::std::vector<BuildTask> *const subtrees) {
+        const typename ::std::vector<BuildNode>::iterator itBuildNodes {buildNodesPtr->begin()};
+        const typename ::std::vector<BVHNode>::iterator itBuildBoxes {buildBoxesPtr->begin()};
+
+        // The depth of the tree isn't bounded (e.g. the fallback split of badly clustered primitives), so the stack
+        // grows as needed.
+        ::std::vector<BuildTask> stack {root};
+        while (!stack.empty()) {
+            const BuildTask task {stack.back()};
+            stack.pop_back(); // pop
+            if (subtrees != nullptr && (task.end_ - task.begin_) <= maxSubtreeSize) {
+                subtrees->emplace_back(task);
+                continue;
+            }
+            BVHNode &node {*(itBuildBoxes + task.nodeIndex_)};
+
+            ::std::int32_t axis {};
+            const ::std::int32_t splitIndex {
+                splitBinnedSah(itBuildNodes + task.begin_, itBuildNodes + task.end_, scratch, &node.box_, &axis)
+            };
+            if (splitIndex == 0) {
+                node.indexOffset_ = task.begin_;
+                node.numPrimitives_ = task.end_ - task.begin_;
+                continue;
+            }
+
+            const ::std::int32_t left {nextNodeIndex->fetch_add(2, ::std::memory_order_relaxed)};
+            const ::std::int32_t right {left + 1};
+            node.indexOffset_ = left;
+            node.axis_ = axis;
+
+            stack.emplace_back(BuildTask {right, task.begin_ + splitIndex, task.end_}); // push
+            stack.emplace_back(BuildTask {left, task.begin_, task.begin_ + splitIndex}); // push
+        }
+    }
+
+    /**
+     * A helper method which calculates the bounding box of some primitives and splits them in two groups with the
+     * binned Surface Area Heuristic.
+     * <br>
+     * The primitives are partitioned in place, so the primitives of the first group are placed before the ones of the
+     * second group.
+     *
+     * @tparam T The type of the primitives.
+     * @param itBegin The iterator of the first primitive.
+     * @param itEnd   The iterator after the last primitive.
+     * @param scratch The scratch memory used to evaluate the SAH.
+     * @param box     The box surrounding all the primitives.
+     * @param axis    The axis used to split the primitives.
+     * @return The number of primitives in the first group or 0 if the primitives should be kept in a leaf.
+     */
+    template<typename T>
+    ::std::int32_t BVH<T>::splitBinnedSah(const typename ::std::vector<BuildNode>::iterator itBegin,
+                                          const typename ::std::vector<BuildNode>::iterator itEnd,
+                                          BinningScratch *const scratch, AABB *const box, ::std::int32_t *const axis) {
+        const ::std::int32_t numPrimitives {static_cast<::std::int32_t> (itEnd - itBegin)};
+        ::glm::vec3 boxMin {itBegin->pointMin_};
+        ::glm::vec3 boxMax {itBegin->pointMax_};
+        ::glm::vec3 centroidMin {itBegin->centroid_};
+        ::glm::vec3 centroidMax {itBegin->centroid_};
+        for (typename ::std::vector<BuildNode>::iterator it {itBegin + 1}; it < itEnd; ::std::advance(it, 1)) {
+            boxMin = ::glm::min(boxMin, it->pointMin_);
+            boxMax = ::glm::max(boxMax, it->pointMax_);
+            centroidMin = ::glm::min(centroidMin, it->centroid_);
+            centroidMax = ::glm::max(centroidMax, it->centroid_);
+        }
+        *box = AABB {boxMin, boxMax};
+        if (numPrimitives <= MaxPrimitivesInLeaf) {
+            return 0;
+        }
+
+        const auto getSurfaceArea {[](const ::glm::vec3 &pointMin, const ::glm::vec3 &pointMax) {
+            const ::glm::vec3 lengths {::glm::max(pointMax - pointMin, ::glm::vec3 {0.0F})};
+            return 2.0F * (lengths[0] * lengths[1] + lengths[1] * lengths[2] + lengths[2] * lengths[0]);
+        }};
+        // Small nodes don't need more bins than primitives.
+        const ::std::int32_t numBins {::std::min(static_cast<::std::int32_t> (scratch->rightCosts_.size()), numPrimitives)};
+        const ::glm::vec3 centroidExtent {centroidMax - centroidMin};
+        // The axes where all the centroids are equal (e.g. a flat mesh) have no extent, so all of their primitives go
+        // to the first bin instead of dividing by 0 (which would turn the bin index into NaN).
+        ::glm::vec3 binScale {};
+        for (::std::int32_t binAxis {}; binAxis < NumberOfAxes; ++binAxis) {
+            if (centroidExtent[binAxis] > 0.0F) {
+                binScale[binAxis] = static_cast<float> (numBins) / centroidExtent[binAxis];
+            }
+        }
+        const auto getBinIndex {[&](const float centroid, const ::std::int32_t binAxis) {
+            // The bin is clamped before the conversion, so a tiny extent can't overflow the integer.
+            const float bin {::glm::clamp(
+                (centroid - centroidMin[binAxis]) * binScale[binAxis], 0.0F, static_cast<float> (numBins - 1)
+            )};
+            return static_cast<::std::int32_t> (bin);
+        }};
+
+        const typename ::std::vector<Bin>::iterator itBins {scratch->bins_.begin()};
+        const ::std::vector<float>::iterator itRightCosts {scratch->rightCosts_.begin()};
+        ::std::fill(itBins, itBins + NumberOfAxes * numBins, Bin {
+            ::glm::vec3 {::std::numeric_limits<float>::max()}, ::glm::vec3 {-::std::numeric_limits<float>::max()}, 0
+        });
+        // Distribute the primitives by the bins of all the axes at once, so each primitive is only read once.
+        for (typename ::std::vector<BuildNode>::iterator it {itBegin}; it < itEnd; ::std::advance(it, 1)) {
+            const ::glm::vec3 pointMin {it->pointMin_};
+            const ::glm::vec3 pointMax {it->pointMax_};
+            for (::std::int32_t binAxis {}; binAxis < NumberOfAxes; ++binAxis) {
+                Bin &bin {*(itBins + binAxis * numBins + getBinIndex(it->centroid_[binAxis], binAxis))};
+                bin.pointMin_ = ::glm::min(bin.pointMin_, pointMin);
+                bin.pointMax_ = ::glm::max(bin.pointMax_, pointMax);
+                ++bin.numPrimitives_;
+            }
+        }
+
+        float bestCost {::std::numeric_limits<float>::max()};
+        ::std::int32_t bestAxis {-1};
+        ::std::int32_t bestBin {};
+        for (::std::int32_t binAxis {}; binAxis < NumberOfAxes; ++binAxis) {
+            if (centroidExtent[binAxis] <= 0.0F) {
+                continue;
+            }
+            const typename ::std::vector<Bin>::iterator itAxisBins {itBins + binAxis * numBins};
+
+            // Sweep the bins from right to left to get the cost of the right side of each boundary.
+            ::glm::vec3 rightMin {::std::numeric_limits<float>::max()};
+            ::glm::vec3 rightMax {-::std::numeric_limits<float>::max()};
+            ::std::int32_t rightCount {};
+            for (::std::int32_t binIndex {numBins - 1}; binIndex > 0; --binIndex) {
+                const Bin &bin {*(itAxisBins + binIndex)};
+                rightMin = ::glm::min(rightMin, bin.pointMin_);
+                rightMax = ::glm::max(rightMax, bin.pointMax_);
+                rightCount += bin.numPrimitives_;
+                *(itRightCosts + binIndex) = static_cast<float> (rightCount) * getSurfaceArea(rightMin, rightMax);
+            }
+
+            // Sweep the bins from left to right and evaluate the SAH at each boundary.
+            ::glm::vec3 leftMin {::std::numeric_limits<float>::max()};
+            ::glm::vec3 leftMax {-::std::numeric_limits<float>::max()};
+            ::std::int32_t leftCount {};
+            for (::std::int32_t binIndex {}; binIndex < numBins - 1; ++binIndex) {
+                const Bin &bin {*(itAxisBins + binIndex)};
+                leftMin = ::glm::min(leftMin, bin.pointMin_);
+                leftMax = ::glm::max(leftMax, bin.pointMax_);
+                leftCount += bin.numPrimitives_;
+                if (leftCount == 0 || leftCount == numPrimitives) {
+                    continue;
+                }
+                const float cost {
+                    static_cast<float> (leftCount) * getSurfaceArea(leftMin, leftMax) + *(itRightCosts + binIndex + 1)
+                };
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = binAxis;
+                    bestBin = binIndex;
+                }
+            }
+        }
+
+        if (bestAxis < 0) {
+            // All the centroids are in the same position, so just split the primitives in half.
+            *axis = 0;
+            return numPrimitives / 2;
+        }
+        *axis = bestAxis;
+        const typename ::std::vector<BuildNode>::iterator itSplit {::std::partition(itBegin, itEnd,
+            [&](const BuildNode &node) {
+                return getBinIndex(node.centroid_[bestAxis], bestAxis) <= bestBin;
+            }
+        )};
+        return static_cast<::std::int32_t> (itSplit - itBegin);
     }
 
     /**
@@ -338,76 +771,334 @@ namespace MobileRT {
         return intersection;
     }
 
+    /**
+     * This method casts a ray into the geometry and determines if it intersects any primitive before a given distance.
+     * <br>
+     * The traversal stops at the first primitive intersected, so the children of the nodes are visited in any order
+     * and the intersection point is never calculated.
+     *
+     * @tparam T The type of the primitives.
+     * @param ray      The ray.
+     * @param distance The maximum distance of the intersection.
+     * @return Whether the ray intersects a primitive or not.
+     */
+    template<typename T>
+    bool BVH<T>::occluded(const Ray &ray, const float distance) const {
+        if (this->primitives_.empty()) {
+            return false;
+        }
+        const ::glm::vec3 origin {ray.origin_};
+        const ::glm::vec3 invDirection {1.0F / ray.direction_};
+
+        float entryDistance {};
+        const typename ::std::vector<BVHFlatNode>::const_iterator itNodes {this->nodes_.cbegin()};
+        if (!intersectBox(*itNodes, origin, invDirection, distance, &entryDistance)) {
+            return false;
+        }
+
+        ::std::array<::std::int32_t, StackSize> stack {};
+        ::std::int32_t stackSize {};
+        ::std::int32_t nodeIndex {};
+        const typename ::std::vector<T>::const_iterator itPrimitives {this->primitives_.cbegin()};
+        while (true) {
+            const BVHFlatNode &node {*(itNodes + nodeIndex)};
+            const ::std::int32_t numberPrimitives {node.numPrimitives_};
+            if (numberPrimitives > 0) {
+                for (::std::int32_t i {}; i < numberPrimitives; ++i) {
+                    const T &primitive {*(itPrimitives + node.offset_ + i)};
+                    if (primitive.intersect(ray, distance)) {
+                        return true;
+                    }
+                }
+            } else {
+                const ::std::int32_t leftIndex {nodeIndex + 1};
+                const ::std::int32_t rightIndex {node.offset_};
+                const bool traverseLeft {
+                    intersectBox(*(itNodes + leftIndex), origin, invDirection, distance, &entryDistance)
+                };
+                const bool traverseRight {
+                    intersectBox(*(itNodes + rightIndex), origin, invDirection, distance, &entryDistance)
+                };
+
+                if (traverseLeft) {
+                    if (traverseRight) {
+                        stack[static_cast<::std::uint32_t> (stackSize)] = rightIndex;
+                        ++stackSize; // push
+                    }
+                    nodeIndex = leftIndex;
+                    continue;
+                }
+                if (traverseRight) {
+                    nodeIndex = rightIndex;
+                    continue;
+                }
+            }
+
+            if (stackSize == 0) {
+                return false;
+            }
+            --stackSize; // pop
+            nodeIndex = stack[static_cast<::std::uint32_t> (stackSize)];
+        }
+    }
+
     /**
      * Helper method which calculates the intersection point from the origin of the ray.
      * <br>
      * This method supports two modes:<br>
      *  - trace the ray until finding the nearest intersection point from the origin of the ray<br>
      *  - trace the ray until finding any intersection point from the origin of the ray<br>
+     * <br>
+     * The children of each interior node are visited from near to far, according to the sign of the ray direction
+     * along the split axis, and the subtrees whose entry distance is farther than the nearest intersection found so
+     * far are culled.
      *
      * @tparam T The type of the primitives.
      * @param intersection The previous intersection point of the ray (used to update its data in case it is found a
      * nearest intersection point.
+     * @param rootIndex    The index of the node where the traversal starts, so a subtree can be traversed alone.
      * @return The intersection point of the ray in the scene.
      */
     template<typename T>
-    Intersection BVH<T>::intersect(Intersection intersection) {
+    Intersection BVH<T>::intersect(Intersection intersection, const ::std::int32_t rootIndex) {
         if (this->primitives_.empty()) {
             return intersection;
         }
-        ::std::int32_t boxIndex {};
-        ::std::array<::std::int32_t, StackSize> stackBoxIndex {};
+        const ::glm::vec3 origin {intersection.ray_.origin_};
+        const ::glm::vec3 invDirection {1.0F / intersection.ray_.direction_};
+        const ::std::array<bool, NumberOfAxes> dirIsNeg {
+            invDirection[0] < 0.0F, invDirection[1] < 0.0F, invDirection[2] < 0.0F
+        };
 
-        const ::std::array<::std::int32_t, StackSize>::const_iterator itBeginBoxIndex {stackBoxIndex.cbegin()};
-        ::std::array<::std::int32_t, StackSize>::iterator itStackBoxIndex {stackBoxIndex.begin()};
-        ::std::advance(itStackBoxIndex, 1);
+        float entryDistance {};
+        const typename ::std::vector<BVHFlatNode>::const_iterator itNodes {this->nodes_.cbegin()};
+        if (!intersectBox(*(itNodes + rootIndex), origin, invDirection, intersection.length_, &entryDistance)) {
+            return intersection;
+        }
 
-        const typename ::std::vector<BVHNode>::iterator itBoxes {this->boxes_.begin()};
+        ::std::array<StackEntry, StackSize> stack {};
+        ::std::int32_t stackSize {};
+        ::std::int32_t nodeIndex {rootIndex};
         const typename ::std::vector<T>::iterator itPrimitives {this->primitives_.begin()};
-        do {
-            const BVHNode &node {*(itBoxes + boxIndex)};
-            if (node.box_.intersect(intersection.ray_)) {
+        while (true) {
+            const BVHFlatNode &node {*(itNodes + nodeIndex)};
+            const ::std::int32_t numberPrimitives {node.numPrimitives_};
+            if (numberPrimitives > 0) {
+                for (::std::int32_t i {}; i < numberPrimitives; ++i) {
+                    T &primitive {*(itPrimitives + node.offset_ + i)};
+                    const float lastDist {intersection.length_};
+                    intersection = primitive.intersect(intersection);
+                    if (intersection.ray_.shadowTrace_ && intersection.length_ < lastDist) {
+                        return intersection;
+                    }
+                }
+            } else {
+                ::std::int32_t nearIndex {nodeIndex + 1};
+                ::std::int32_t farIndex {node.offset_};
+                if (dirIsNeg[node.axis_]) {
+                    ::std::swap(nearIndex, farIndex);
+                }
+                float nearEntry {};
+                float farEntry {};
+                const bool traverseNear {
+                    intersectBox(*(itNodes + nearIndex), origin, invDirection, intersection.length_, &nearEntry)
+                };
+                const bool traverseFar {
+                    intersectBox(*(itNodes + farIndex), origin, invDirection, intersection.length_, &farEntry)
+                };
+
+                if (traverseNear) {
+                    if (traverseFar) {
+                        stack[static_cast<::std::uint32_t> (stackSize)] = StackEntry {farIndex, farEntry};
+                        ++stackSize; // push
+                    }
+                    nodeIndex = nearIndex;
+                    continue;
+                }
+                if (traverseFar) {
+                    nodeIndex = farIndex;
+                    continue;
+                }
+            }
+
+            // Pop the next subtree which can still contain an intersection nearer than the current one.
+            do {
+                if (stackSize == 0) {
+                    return intersection;
+                }
+                --stackSize; // pop
+                const StackEntry &entry {stack[static_cast<::std::uint32_t> (stackSize)]};
+                nodeIndex = entry.nodeIndex_;
+                entryDistance = entry.entryDistance_;
+            } while (entryDistance >= intersection.length_);
+        }
+    }
+
+    /**
+     * This method casts a packet of coherent rays, like the primary rays of neighbouring pixels, into the geometry
+     * and calculates the nearest intersection point of each ray.
+     * <br>
+     * The packet is traversed together: the box of each visited node is tested against all the active rays and the
+     * node is only fetched once for all of them. The children are visited from near to far according to the direction
+     * of the first active ray. When less than {@link RayPacketMinActive} rays intersect a node, the packet diverged
+     * and each of the remaining rays traverses that subtree alone.
+     *
+     * @tparam T The type of the primitives.
+     * @param intersections The current intersections of the rays of the packet with previous primitives, which are
+     * updated with the nearest intersections found.
+     * @param packetSize    The number of rays in the packet (up to {@link RayPacketSize}).
+     */
+    template<typename T>
+    void BVH<T>::tracePacket(Intersection *const intersections, const ::std::int32_t packetSize) {
+        static_assert(RayPacketSize <= 32, "The mask of the active rays of a packet only fits 32 rays.");
+        const ::std::uint32_t numRays {static_cast<::std::uint32_t> (packetSize)};
+        if (this->primitives_.empty() || numRays == 0) {
+            return;
+        }
+        ::std::array<::glm::vec3, RayPacketSize> origins {};
+        ::std::array<::glm::vec3, RayPacketSize> invDirections {};
+        for (::std::uint32_t ray {}; ray < numRays; ++ray) {
+            const Intersection &intersection {intersections[ray]};
+            origins[ray] = intersection.ray_.origin_;
+            invDirections[ray] = 1.0F / intersection.ray_.direction_;
+        }
 
+        const typename ::std::vector<BVHFlatNode>::const_iterator itNodes {this->nodes_.cbegin()};
+        const typename ::std::vector<T>::iterator itPrimitives {this->primitives_.begin()};
+        ::std::array<PacketStackEntry, StackSize> stack {};
+        ::std::int32_t stackSize {};
+        ::std::int32_t nodeIndex {};
+        ::std::uint32_t activeRays {(1U << numRays) - 1U};
+        while (true) {
+            const BVHFlatNode &node {*(itNodes + nodeIndex)};
+            // Only keep the rays which intersect the box before their nearest intersection found so far.
+            ::std::uint32_t hitRays {};
+            ::std::int32_t numHitRays {};
+            ::std::uint32_t firstHitRay {};
+            for (::std::uint32_t ray {}; ray < numRays; ++ray) {
+                float entryDistance {};
+                if ((activeRays & (1U << ray)) != 0U
+                    && intersectBox(node, origins[ray], invDirections[ray], intersections[ray].length_, &entryDistance)) {
+                    firstHitRay = numHitRays == 0 ? ray : firstHitRay;
+                    hitRays |= 1U << ray;
+                    ++numHitRays;
+                }
+            }
+
+            if (numHitRays > 0 && numHitRays < RayPacketMinActive) {
+                // The packet diverged, so the few rays left are cheaper to trace alone.
+                for (::std::uint32_t ray {firstHitRay}; ray < numRays; ++ray) {
+                    if ((hitRays & (1U << ray)) != 0U) {
+                        intersections[ray] = intersect(intersections[ray], nodeIndex);
+                    }
+                }
+            } else if (numHitRays > 0) {
                 const ::std::int32_t numberPrimitives {node.numPrimitives_};
                 if (numberPrimitives > 0) {
-                    for (::std::int32_t i {}; i < numberPrimitives; ++i) {
-                        T &primitive {*(itPrimitives + node.indexOffset_ + i)};
-                        const float lastDist {intersection.length_};
-                        intersection = primitive.intersect(intersection);
-                        if (intersection.ray_.shadowTrace_ && intersection.length_ < lastDist) {
-                            return intersection;
+                    for (::std::uint32_t ray {}; ray < numRays; ++ray) {
+                        if ((hitRays & (1U << ray)) == 0U) {
+                            continue;
+                        }
+                        Intersection &intersection {intersections[ray]};
+                        for (::std::int32_t i {}; i < numberPrimitives; ++i) {
+                            T &primitive {*(itPrimitives + node.offset_ + i)};
+                            intersection = primitive.intersect(intersection);
                         }
                     }
-                    ::std::advance(itStackBoxIndex, -1); // pop
-                    boxIndex = *itStackBoxIndex;
                 } else {
-                    const ::std::int32_t left {node.indexOffset_};
-                    const ::std::int32_t right {node.indexOffset_ + 1};
-                    const BVHNode &childLeft {*(itBoxes + left)};
-                    const BVHNode &childRight {*(itBoxes + right)};
-
-                    const bool traverseLeft {childLeft.box_.intersect(intersection.ray_)};
-                    const bool traverseRight {childRight.box_.intersect(intersection.ray_)};
-
-                    if (!traverseLeft && !traverseRight) {
-                        ::std::advance(itStackBoxIndex, -1); // pop
-                        boxIndex = *itStackBoxIndex;
-                    } else {
-                        boxIndex = (traverseLeft) ? left : right;
-                        if (traverseLeft && traverseRight) {
-                            *itStackBoxIndex = right;
-                            ::std::advance(itStackBoxIndex, 1); // push
-                        }
+                    ::std::int32_t nearIndex {nodeIndex + 1};
+                    ::std::int32_t farIndex {node.offset_};
+                    if (invDirections[firstHitRay][node.axis_] < 0.0F) {
+                        ::std::swap(nearIndex, farIndex);
                     }
+                    stack[static_cast<::std::uint32_t> (stackSize)] = PacketStackEntry {farIndex, hitRays};
+                    ++stackSize; // push
+                    nodeIndex = nearIndex;
+                    activeRays = hitRays;
+                    continue;
                 }
+            }
 
-            } else {
-                ::std::advance(itStackBoxIndex, -1); // pop
-                boxIndex = *itStackBoxIndex;
+            if (stackSize == 0) {
+                return;
             }
+            --stackSize; // pop
+            const PacketStackEntry &entry {stack[static_cast<::std::uint32_t> (stackSize)]};
+            nodeIndex = entry.nodeIndex_;
+            activeRays = entry.activeRays_;
+        }
+    }
 
-        } while (itStackBoxIndex > itBeginBoxIndex);
-        return intersection;
+    /**
+     * Helper method which checks if a ray intersects the box of a node of the flattened BVH.
+     * <br>
+     * The inverse of the ray direction is precomputed by the caller, so it can be reused for all the nodes visited
+     * by the ray.
+     *
+     * @tparam T The type of the primitives.
+     * @param node          The node of the BVH.
+     * @param origin        The origin of the ray.
+     * @param invDirection  The inverse of the direction of the ray.
+     * @param maxDistance   The distance of the nearest intersection found so far.
+     * @param entryDistance The distance where the ray enters the box.
+     * @return Whether the ray intersected the box before the maximum distance.
+     */
+    template<typename T>
+    bool BVH<T>::intersectBox(const BVHFlatNode &node, const ::glm::vec3 &origin, const ::glm::vec3 &invDirection,
+                              const float maxDistance, float *const entryDistance) {
+        const ::glm::vec3 t1 {(node.pointMin_ - origin) * invDirection};
+        const ::glm::vec3 t2 {(node.pointMax_ - origin) * invDirection};
+        float tMin {0.0F};
+        float tMax {maxDistance};
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            // The distances are the second operand, so a NaN (ray parallel to and on a slab) doesn't clip the range.
+            tMin = ::std::max(tMin, ::std::min(t1[axis], t2[axis]));
+            tMax = ::std::min(tMax, ::std::max(t1[axis], t2[axis]));
+        }
+        *entryDistance = tMin;
+        return tMax >= tMin;
+    }
+
+    /**
+     * Helper method which converts the nodes created during the construction of the BVH into the compact nodes used
+     * by the traversal.
+     * <br>
+     * The nodes are stored in depth-first order, so the first child of each interior node is placed right after its
+     * parent, which improves the locality of the memory accesses while traversing the tree.
+     *
+     * @tparam T The type of the primitives.
+     * @param boxes The nodes created during the construction of the BVH.
+     */
+    template<typename T>
+    void BVH<T>::flatten(const ::std::vector<BVHNode> &boxes) {
+        this->nodes_.clear();
+        this->nodes_.reserve(boxes.size());
+
+        // Pairs of the index of the build node to visit and the index of its parent in the flattened vector.
+        ::std::vector<::std::pair<::std::int32_t, ::std::int32_t>> stack {{0, -1}};
+        while (!stack.empty()) {
+            const ::std::pair<::std::int32_t, ::std::int32_t> entry {stack.back()};
+            stack.pop_back();
+            const BVHNode &box {boxes[static_cast<::std::uint32_t> (entry.first)]};
+            const ::std::int32_t flatIndex {static_cast<::std::int32_t> (this->nodes_.size())};
+            if (entry.second >= 0 && flatIndex != entry.second + 1) {
+                // This is the second child of its parent.
+                this->nodes_[static_cast<::std::uint32_t> (entry.second)].offset_ = flatIndex;
+            }
+
+            BVHFlatNode node {};
+            node.pointMin_ = box.box_.getPointMin();
+            node.pointMax_ = box.box_.getPointMax();
+            node.axis_ = static_cast<::std::uint8_t> (box.axis_);
+            if (box.numPrimitives_ > 0) {
+                node.offset_ = box.indexOffset_;
+                node.numPrimitives_ = static_cast<::std::uint16_t> (box.numPrimitives_);
+            } else {
+                stack.emplace_back(box.indexOffset_ + 1, flatIndex);
+                stack.emplace_back(box.indexOffset_, flatIndex);
+            }
+            this->nodes_.emplace_back(node);
+        }
     }
 
     /**
@@ -476,10 +1167,10 @@ namespace MobileRT {
     template<typename T>
     template<typename Iterator>
     AABB BVH<T>::getSurroundingBox(const Iterator itBegin, const Iterator itEnd) {
-        AABB maxBox {itBegin->box_.getPointMin(), itBegin->box_.getPointMax()};
+        AABB maxBox {itBegin->getBox()};
 
         for (Iterator it {itBegin + 1}; it < itEnd; ::std::advance(it, 1)) {
-            const AABB &box {it->box_};
+            const AABB box {it->getBox()};
             maxBox = surroundingBox(maxBox, box);
         }
 
@@ -0,0 +1 @@
+#include "MobileRT/Accelerators/BVH4.hpp"
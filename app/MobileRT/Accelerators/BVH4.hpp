@@ -0,0 +1,549 @@
+#ifndef MOBILERT_ACCELERATORS_BVH4_HPP
+#define MOBILERT_ACCELERATORS_BVH4_HPP
+
+#include "MobileRT/Accelerators/BVH.hpp"
+#include "MobileRT/Intersection.hpp"
+#include "MobileRT/Shapes/Primitive.hpp"
+#include "MobileRT/Shapes/TrianglePacket.hpp"
+#include "MobileRT/Utils/Simd.hpp"
+#include "MobileRT/Utils/Utils.hpp"
+#include <array>
+#include <glm/glm.hpp>
+#include <limits>
+#include <vector>
+
+namespace MobileRT {
+
+    /**
+     * A class which represents a Bounding Volume Hierarchy where each node has up to 4 children.
+     * <br>
+     * It is built by collapsing the levels of a binary BVH, so it has about half of its depth.
+     * The bounds of the 4 children are stored in the parent node in SoA form, so the ray is tested against all of them
+     * at once with SIMD instructions.
+     * The triangles in each leaf are also stored in SoA packets, so they are intersected 4 at a time too.
+     *
+     * @tparam T The type of the primitives.
+     */
+    template<typename T>
+    class BVH4 final {
+        private:
+            /**
+             * The number of children of each node.
+             */
+            static constexpr ::std::int32_t Width {4};
+
+            /**
+             * A node of the 4-wide BVH.
+             * <br>
+             * The bounds are stored in the order: minimum X, Y, Z and maximum X, Y, Z, each one with the values for the
+             * 4 children.
+             * A child with primitives is a leaf and its index is the index of the leaf, otherwise it is the index of
+             * another node.
+             * The unused children are always the last ones.
+             */
+            struct alignas(16) BVH4Node {
+                ::std::array<::std::array<float, Width>, 6> bounds_ {};
+                ::std::array<::std::int32_t, Width> children_ {};
+                ::std::array<::std::uint8_t, Width> numPrimitives_ {};
+                ::std::uint8_t numChildren_ {};
+            };
+            static_assert(sizeof(BVH4Node) == 128, "The node of the 4-wide BVH should have 128 bytes.");
+
+            /**
+             * A leaf of the 4-wide BVH.
+             * <br>
+             * The triangles of the leaf are intersected with the packets and the other primitives (if any) are
+             * intersected one by one.
+             */
+            struct BVH4Leaf {
+                ::std::int32_t offset_ {};
+                ::std::int32_t firstPacket_ {};
+                ::std::int32_t numPackets_ {};
+                ::std::int32_t numOtherPrimitives_ {};
+            };
+
+            /**
+             * An entry of the traversal stack.
+             * It can reference either a node or a leaf with primitives.
+             */
+            struct StackEntry {
+                ::std::int32_t index_ {};
+                ::std::int32_t numPrimitives_ {};
+                float entryDistance_ {};
+            };
+
+        private:
+            ::std::vector<BVH4Node> nodes_ {};
+            ::std::vector<BVH4Leaf> leaves_ {};
+            ::std::vector<TrianglePacket> packets_ {};
+            ::std::vector<T> primitives_ {};
+
+        private:
+            void collapse(const BVH<T> &bvh);
+
+            void buildPackets();
+
+            static const Triangle *getTriangle(const Triangle &triangle);
+
+            static const Triangle *getTriangle(const Primitive &primitive);
+
+            template<typename Shape>
+            static const Triangle *getTriangle(const Shape &shape);
+
+            Intersection intersect(Intersection intersection);
+
+        public:
+            explicit BVH4() = default;
+
+            explicit BVH4(::std::vector<T> &&primitives);
+
+            BVH4(const BVH4 &bvh) = delete;
+
+            BVH4(BVH4 &&bvh) noexcept = default;
+
+            ~BVH4();
+
+            BVH4 &operator=(const BVH4 &bvh) = delete;
+
+            BVH4 &operator=(BVH4 &&bvh) noexcept = default;
+
+            Intersection trace(Intersection intersection);
+
+            Intersection shadowTrace(Intersection intersection);
+
+            bool occluded(const Ray &ray, float distance) const;
+
+            const ::std::vector<T>& getPrimitives() const;
+    };
+
+
+
+    /**
+     * The constructor.
+     *
+     * @tparam T The type of the primitives.
+     * @param primitives The vector containing all the primitives to store in the BVH.
+     */
+    template<typename T>
+    BVH4<T>::BVH4(::std::vector<T> &&primitives) {
+        if (primitives.empty()) {
+            LOG_WARN("Empty BVH4 for '", typeid(T).name(), "' without any primitives.");
+            return;
+        }
+        BVH<T> bvh {::std::move(primitives)};
+        LOG_INFO("Collapsing BVH for '", typeid(T).name(), "' with '", bvh.nodes_.size(), "' boxes.");
+        collapse(bvh);
+        this->primitives_ = ::std::move(bvh.primitives_);
+        buildPackets();
+        LOG_INFO("Built BVH4 for '", typeid(T).name(), "' with '", this->primitives_.size(), "' primitives in '", this->nodes_.size(), "' nodes and '", this->packets_.size(), "' triangle packets.");
+    }
+
+    /**
+     * The destructor.
+     *
+     * @tparam T The type of the primitives.
+     */
+    template<typename T>
+    BVH4<T>::~BVH4() {
+        this->nodes_.clear();
+        this->leaves_.clear();
+        this->packets_.clear();
+        this->primitives_.clear();
+
+        ::std::vector<BVH4Node> {}.swap(this->nodes_);
+        ::std::vector<BVH4Leaf> {}.swap(this->leaves_);
+        ::std::vector<TrianglePacket> {}.swap(this->packets_);
+        ::std::vector<T> {}.swap(this->primitives_);
+    }
+
+    /**
+     * A helper method which builds the 4-wide BVH from a binary BVH.
+     * <br>
+     * For each node, the children of the binary node are opened, starting with the ones with the biggest surface area,
+     * until the node has 4 children or all of them are leaves.
+     *
+     * @tparam T The type of the primitives.
+     * @param bvh The binary BVH.
+     */
+    template<typename T>
+    void BVH4<T>::collapse(const BVH<T> &bvh) {
+        using BVHFlatNode = typename BVH<T>::BVHFlatNode;
+        const auto getSurfaceArea {[](const BVHFlatNode &node) {
+            const ::glm::vec3 lengths {node.pointMax_ - node.pointMin_};
+            return lengths[0] * lengths[1] + lengths[1] * lengths[2] + lengths[2] * lengths[0];
+        }};
+
+        this->nodes_.reserve(bvh.nodes_.size() / 2 + 1);
+        this->nodes_.emplace_back();
+        // Pairs of the index of a node in the binary BVH and the index of the equivalent node in the 4-wide BVH.
+        ::std::vector<::std::pair<::std::int32_t, ::std::int32_t>> stack {{0, 0}};
+        while (!stack.empty()) {
+            const ::std::pair<::std::int32_t, ::std::int32_t> entry {stack.back()};
+            stack.pop_back();
+
+            ::std::array<::std::int32_t, Width> children {entry.first};
+            ::std::int32_t numChildren {1};
+            const BVHFlatNode &root {bvh.nodes_[static_cast<::std::uint32_t> (entry.first)]};
+            if (root.numPrimitives_ == 0) {
+                children[0] = entry.first + 1;
+                children[1] = root.offset_;
+                numChildren = 2;
+            }
+            while (numChildren < Width) {
+                ::std::int32_t biggestChild {-1};
+                float biggestArea {-1.0F};
+                for (::std::int32_t i {}; i < numChildren; ++i) {
+                    const BVHFlatNode &child {bvh.nodes_[static_cast<::std::uint32_t> (children[static_cast<::std::uint32_t> (i)])]};
+                    const float area {getSurfaceArea(child)};
+                    if (child.numPrimitives_ == 0 && area > biggestArea) {
+                        biggestChild = i;
+                        biggestArea = area;
+                    }
+                }
+                if (biggestChild < 0) {
+                    break;
+                }
+                const ::std::int32_t openedIndex {children[static_cast<::std::uint32_t> (biggestChild)]};
+                children[static_cast<::std::uint32_t> (biggestChild)] = openedIndex + 1;
+                children[static_cast<::std::uint32_t> (numChildren)] = bvh.nodes_[static_cast<::std::uint32_t> (openedIndex)].offset_;
+                ++numChildren;
+            }
+
+            BVH4Node node {};
+            node.numChildren_ = static_cast<::std::uint8_t> (numChildren);
+            for (::std::int32_t i {}; i < Width; ++i) {
+                const ::std::uint32_t lane {static_cast<::std::uint32_t> (i)};
+                if (i >= numChildren) {
+                    // The unused children have inverted bounds and are ignored by the traversal anyway.
+                    for (::std::uint32_t axis {}; axis < NumberOfAxes; ++axis) {
+                        node.bounds_[axis][lane] = ::std::numeric_limits<float>::max();
+                        node.bounds_[axis + NumberOfAxes][lane] = -::std::numeric_limits<float>::max();
+                    }
+                    node.children_[lane] = -1;
+                    continue;
+                }
+                const BVHFlatNode &child {bvh.nodes_[static_cast<::std::uint32_t> (children[lane])]};
+                for (::std::uint32_t axis {}; axis < NumberOfAxes; ++axis) {
+                    node.bounds_[axis][lane] = child.pointMin_[static_cast<::std::int32_t> (axis)];
+                    node.bounds_[axis + NumberOfAxes][lane] = child.pointMax_[static_cast<::std::int32_t> (axis)];
+                }
+                node.numPrimitives_[lane] = static_cast<::std::uint8_t> (child.numPrimitives_);
+                if (child.numPrimitives_ > 0) {
+                    node.children_[lane] = static_cast<::std::int32_t> (this->leaves_.size());
+                    this->leaves_.emplace_back(BVH4Leaf {child.offset_, 0, 0, child.numPrimitives_});
+                } else {
+                    node.children_[lane] = static_cast<::std::int32_t> (this->nodes_.size());
+                    this->nodes_.emplace_back();
+                    stack.emplace_back(children[lane], node.children_[lane]);
+                }
+            }
+            this->nodes_[static_cast<::std::uint32_t> (entry.second)] = node;
+        }
+    }
+
+    /**
+     * A helper method which stores the triangles of each leaf in SoA packets of 4 triangles.
+     * <br>
+     * It must be called after the primitives are in their final place, because the packets reference them.
+     *
+     * @tparam T The type of the primitives.
+     */
+    template<typename T>
+    void BVH4<T>::buildPackets() {
+        for (BVH4Leaf &leaf : this->leaves_) {
+            leaf.firstPacket_ = static_cast<::std::int32_t> (this->packets_.size());
+            ::std::array<const Triangle *, TrianglePacket::Width> triangles {};
+            ::std::int32_t numTriangles {};
+            // The leaf starts with all its primitives counted as other primitives.
+            const ::std::int32_t numPrimitives {leaf.numOtherPrimitives_};
+            for (::std::int32_t i {}; i < numPrimitives; ++i) {
+                const Triangle *const triangle {getTriangle(this->primitives_[static_cast<::std::uint32_t> (leaf.offset_ + i)])};
+                if (triangle == nullptr) {
+                    continue;
+                }
+                --leaf.numOtherPrimitives_;
+                triangles[static_cast<::std::uint32_t> (numTriangles)] = triangle;
+                ++numTriangles;
+                if (numTriangles == TrianglePacket::Width) {
+                    this->packets_.emplace_back(triangles);
+                    triangles = {};
+                    numTriangles = 0;
+                }
+            }
+            if (numTriangles > 0) {
+                this->packets_.emplace_back(triangles);
+            }
+            leaf.numPackets_ = static_cast<::std::int32_t> (this->packets_.size()) - leaf.firstPacket_;
+        }
+    }
+
+    /**
+     * Helper method which gets a primitive as a triangle.
+     *
+     * @tparam T The type of the primitives.
+     * @param triangle The triangle.
+     * @return The triangle.
+     */
+    template<typename T>
+    const Triangle *BVH4<T>::getTriangle(const Triangle &triangle) {
+        return &triangle;
+    }
+
+    /**
+     * Helper method which gets a primitive as a triangle.
+     *
+     * @tparam T The type of the primitives.
+     * @param primitive The primitive.
+     * @return The triangle or nullptr if the primitive is not a triangle.
+     */
+    template<typename T>
+    const Triangle *BVH4<T>::getTriangle(const Primitive &primitive) {
+        return primitive.getTriangle();
+    }
+
+    /**
+     * Helper method which gets a primitive as a triangle.
+     *
+     * @tparam T     The type of the primitives.
+     * @tparam Shape The type of the shape, which is not a triangle.
+     * @return nullptr, because the shape is not a triangle.
+     */
+    template<typename T>
+    template<typename Shape>
+    const Triangle *BVH4<T>::getTriangle(const Shape &/*shape*/) {
+        return nullptr;
+    }
+
+    /**
+     * This method casts a ray into the geometry and calculates the nearest intersection point from the origin of the
+     * ray.
+     *
+     * @tparam T The type of the primitives.
+     * @param intersection The current intersection of the ray with previous primitives.
+     * @return The intersection of the ray with the geometry.
+     */
+    template<typename T>
+    Intersection BVH4<T>::trace(Intersection intersection) {
+        intersection = intersect(intersection);
+        return intersection;
+    }
+
+    /**
+     * This method casts a ray into the geometry and calculates a random intersection point.
+     * The intersection point itself is not important, the important is to determine if the ray intersects some
+     * primitive in the scene or not.
+     *
+     * @tparam T The type of the primitives.
+     * @param intersection The current intersection of the ray with previous primitives.
+     * @return The intersection of the ray with the geometry.
+     */
+    template<typename T>
+    Intersection BVH4<T>::shadowTrace(Intersection intersection) {
+        intersection = intersect(intersection);
+        return intersection;
+    }
+
+    /**
+     * This method casts a ray into the geometry and determines if it intersects any primitive before a given distance.
+     * <br>
+     * The traversal stops at the first primitive intersected, so the children intersected are pushed without being
+     * sorted and the intersection point is never calculated.
+     *
+     * @tparam T The type of the primitives.
+     * @param ray      The ray.
+     * @param distance The maximum distance of the intersection.
+     * @return Whether the ray intersects a primitive or not.
+     */
+    template<typename T>
+    bool BVH4<T>::occluded(const Ray &ray, const float distance) const {
+        if (this->primitives_.empty()) {
+            return false;
+        }
+        const ::glm::vec3 invDirection {1.0F / ray.direction_};
+        const ::std::array<Float4, NumberOfAxes> origin {
+            Float4::broadcast(ray.origin_[0]), Float4::broadcast(ray.origin_[1]), Float4::broadcast(ray.origin_[2])
+        };
+        const ::std::array<Float4, NumberOfAxes> invDir {
+            Float4::broadcast(invDirection[0]), Float4::broadcast(invDirection[1]), Float4::broadcast(invDirection[2])
+        };
+        // The index of the bounds where the ray enters the boxes in each axis.
+        const ::std::array<::std::uint32_t, NumberOfAxes> nearBounds {
+            invDirection[0] < 0.0F ? 3U : 0U, invDirection[1] < 0.0F ? 4U : 1U, invDirection[2] < 0.0F ? 5U : 2U
+        };
+        const Float4 zero {Float4::broadcast(0.0F)};
+        const Float4 maxDistance {Float4::broadcast(distance)};
+
+        ::std::array<StackEntry, StackSize> stack {};
+        ::std::int32_t stackSize {};
+        StackEntry entry {};
+        const typename ::std::vector<BVH4Node>::const_iterator itNodes {this->nodes_.cbegin()};
+        const typename ::std::vector<BVH4Leaf>::const_iterator itLeaves {this->leaves_.cbegin()};
+        const typename ::std::vector<TrianglePacket>::const_iterator itPackets {this->packets_.cbegin()};
+        const typename ::std::vector<T>::const_iterator itPrimitives {this->primitives_.cbegin()};
+        while (true) {
+            if (entry.numPrimitives_ > 0) {
+                const BVH4Leaf &leaf {*(itLeaves + entry.index_)};
+                for (::std::int32_t i {}; i < leaf.numPackets_; ++i) {
+                    const TrianglePacket &packet {*(itPackets + leaf.firstPacket_ + i)};
+                    if (packet.intersect(ray, distance)) {
+                        return true;
+                    }
+                }
+                for (::std::int32_t i {}; leaf.numOtherPrimitives_ > 0 && i < entry.numPrimitives_; ++i) {
+                    const T &primitive {*(itPrimitives + leaf.offset_ + i)};
+                    if (getTriangle(primitive) == nullptr && primitive.intersect(ray, distance)) {
+                        return true;
+                    }
+                }
+            } else {
+                const BVH4Node &node {*(itNodes + entry.index_)};
+                Float4 tNear {zero};
+                Float4 tFar {maxDistance};
+                for (::std::uint32_t axis {}; axis < NumberOfAxes; ++axis) {
+                    const ::std::uint32_t nearBound {nearBounds[axis]};
+                    const ::std::uint32_t farBound {(nearBound + NumberOfAxes) % (NumberOfAxes * 2)};
+                    tNear = max((Float4::load(node.bounds_[nearBound].data()) - origin[axis]) * invDir[axis], tNear);
+                    tFar = min((Float4::load(node.bounds_[farBound].data()) - origin[axis]) * invDir[axis], tFar);
+                }
+                const ::std::int32_t childrenMask {(1 << node.numChildren_) - 1};
+                ::std::int32_t hitMask {lessEqual(tNear, tFar).getMask() & childrenMask};
+                while (hitMask != 0) {
+                    const ::std::uint32_t lane {getFirstLane(hitMask)};
+                    hitMask &= hitMask - 1;
+                    stack[static_cast<::std::uint32_t> (stackSize)] = StackEntry {
+                        node.children_[lane], node.numPrimitives_[lane], 0.0F
+                    };
+                    ++stackSize; // push
+                }
+            }
+
+            if (stackSize == 0) {
+                return false;
+            }
+            --stackSize; // pop
+            entry = stack[static_cast<::std::uint32_t> (stackSize)];
+        }
+    }
+
+    /**
+     * Helper method which calculates the intersection point from the origin of the ray.
+     * <br>
+     * The ray is tested against the boxes of the 4 children of a node at once and the children intersected are
+     * visited from the nearest to the farthest.
+     * The subtrees whose entry distance is farther than the nearest intersection found so far are culled.
+     *
+     * @tparam T The type of the primitives.
+     * @param intersection The previous intersection point of the ray (used to update its data in case it is found a
+     * nearest intersection point.
+     * @return The intersection point of the ray in the scene.
+     */
+    template<typename T>
+    Intersection BVH4<T>::intersect(Intersection intersection) {
+        if (this->primitives_.empty()) {
+            return intersection;
+        }
+        const ::glm::vec3 invDirection {1.0F / intersection.ray_.direction_};
+        const ::std::array<Float4, NumberOfAxes> origin {
+            Float4::broadcast(intersection.ray_.origin_[0]),
+            Float4::broadcast(intersection.ray_.origin_[1]),
+            Float4::broadcast(intersection.ray_.origin_[2])
+        };
+        const ::std::array<Float4, NumberOfAxes> invDir {
+            Float4::broadcast(invDirection[0]), Float4::broadcast(invDirection[1]), Float4::broadcast(invDirection[2])
+        };
+        // The index of the bounds where the ray enters the boxes in each axis.
+        const ::std::array<::std::uint32_t, NumberOfAxes> nearBounds {
+            invDirection[0] < 0.0F ? 3U : 0U, invDirection[1] < 0.0F ? 4U : 1U, invDirection[2] < 0.0F ? 5U : 2U
+        };
+        const Float4 zero {Float4::broadcast(0.0F)};
+
+        ::std::array<StackEntry, StackSize> stack {};
+        ::std::int32_t stackSize {};
+        StackEntry entry {};
+        const typename ::std::vector<BVH4Node>::const_iterator itNodes {this->nodes_.cbegin()};
+        const typename ::std::vector<BVH4Leaf>::const_iterator itLeaves {this->leaves_.cbegin()};
+        const typename ::std::vector<TrianglePacket>::const_iterator itPackets {this->packets_.cbegin()};
+        const typename ::std::vector<T>::iterator itPrimitives {this->primitives_.begin()};
+        while (true) {
+            if (entry.numPrimitives_ > 0) {
+                const BVH4Leaf &leaf {*(itLeaves + entry.index_)};
+                for (::std::int32_t i {}; i < leaf.numPackets_; ++i) {
+                    const TrianglePacket &packet {*(itPackets + leaf.firstPacket_ + i)};
+                    const float lastDist {intersection.length_};
+                    intersection = packet.intersect(intersection);
+                    if (intersection.ray_.shadowTrace_ && intersection.length_ < lastDist) {
+                        return intersection;
+                    }
+                }
+                for (::std::int32_t i {}; leaf.numOtherPrimitives_ > 0 && i < entry.numPrimitives_; ++i) {
+                    T &primitive {*(itPrimitives + leaf.offset_ + i)};
+                    if (getTriangle(primitive) != nullptr) {
+                        continue;
+                    }
+                    const float lastDist {intersection.length_};
+                    intersection = primitive.intersect(intersection);
+                    if (intersection.ray_.shadowTrace_ && intersection.length_ < lastDist) {
+                        return intersection;
+                    }
+                }
+            } else {
+                const BVH4Node &node {*(itNodes + entry.index_)};
+                Float4 tNear {zero};
+                Float4 tFar {Float4::broadcast(intersection.length_)};
+                for (::std::uint32_t axis {}; axis < NumberOfAxes; ++axis) {
+                    const ::std::uint32_t nearBound {nearBounds[axis]};
+                    const ::std::uint32_t farBound {(nearBound + NumberOfAxes) % (NumberOfAxes * 2)};
+                    tNear = max((Float4::load(node.bounds_[nearBound].data()) - origin[axis]) * invDir[axis], tNear);
+                    tFar = min((Float4::load(node.bounds_[farBound].data()) - origin[axis]) * invDir[axis], tFar);
+                }
+                const ::std::int32_t childrenMask {(1 << node.numChildren_) - 1};
+                ::std::int32_t hitMask {lessEqual(tNear, tFar).getMask() & childrenMask};
+
+                alignas(16) ::std::array<float, Width> entryDistances {};
+                tNear.store(entryDistances.data());
+                // Sort the children intersected from the farthest to the nearest, so the nearest is popped first.
+                ::std::array<StackEntry, Width> hits {};
+                ::std::int32_t numHits {};
+                while (hitMask != 0) {
+                    const ::std::uint32_t lane {getFirstLane(hitMask)};
+                    hitMask &= hitMask - 1;
+                    const StackEntry hit {node.children_[lane], node.numPrimitives_[lane], entryDistances[lane]};
+                    ::std::int32_t position {numHits};
+                    while (position > 0 && hits[static_cast<::std::uint32_t> (position - 1)].entryDistance_ < hit.entryDistance_) {
+                        hits[static_cast<::std::uint32_t> (position)] = hits[static_cast<::std::uint32_t> (position - 1)];
+                        --position;
+                    }
+                    hits[static_cast<::std::uint32_t> (position)] = hit;
+                    ++numHits;
+                }
+                for (::std::int32_t i {}; i < numHits; ++i) {
+                    stack[static_cast<::std::uint32_t> (stackSize)] = hits[static_cast<::std::uint32_t> (i)];
+                    ++stackSize; // push
+                }
+            }
+
+            // Pop the next child which can still contain an intersection nearer than the current one.
+            do {
+                if (stackSize == 0) {
+                    return intersection;
+                }
+                --stackSize; // pop
+                entry = stack[static_cast<::std::uint32_t> (stackSize)];
+            } while (entry.entryDistance_ >= intersection.length_);
+        }
+    }
+
+    /**
+     * Gets the primitives.
+     *
+     * @tparam T The type of the primitives.
+     * @return The primitives.
+     */
+    template<typename T>
+    const ::std::vector<T>& BVH4<T>::getPrimitives() const {
+        return this->primitives_;
+    }
+
+}//namespace MobileRT
+
+#endif //MOBILERT_ACCELERATORS_BVH4_HPP
@@ -44,6 +44,8 @@ namespace MobileRT {
 
             Intersection shadowTrace(Intersection intersection);
 
+            bool occluded(const Ray &ray, float distance) const;
+
             const ::std::vector<T>& getPrimitives() const;
     };
 
@@ -123,6 +125,27 @@ namespace MobileRT {
         return intersection;
     }
 
+    /**
+     * This method casts a ray into the geometry and determines if it intersects any primitive before a given distance.
+     * <br>
+     * It stops at the first primitive intersected and doesn't calculate the intersection point, so it is cheaper than
+     * {@link Naive#shadowTrace} for the shadow rays.
+     *
+     * @tparam T The type of the primitives.
+     * @param ray      The ray.
+     * @param distance The maximum distance of the intersection.
+     * @return Whether the ray intersects a primitive or not.
+     */
+    template<typename T>
+    bool Naive<T>::occluded(const Ray &ray, const float distance) const {
+        for (const T &primitive : this->primitives_) {
+            if (primitive.intersect(ray, distance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets the primitives.
      *
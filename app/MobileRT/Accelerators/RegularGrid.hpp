@@ -4,8 +4,12 @@
 #include "MobileRT/Accelerators/AABB.hpp"
 #include "MobileRT/Scene.hpp"
 #include "MobileRT/Utils/Utils.hpp"
-#include <mutex>
+#include <array>
+#include <atomic>
+#include <cmath>
 #include <glm/glm.hpp>
+#include <thread>
+#include <utility>
 #include <vector>
 
 namespace MobileRT {
@@ -18,71 +22,186 @@ namespace MobileRT {
      * So the scene geometry is divided in many boxes (each cell of the 3D matrix) and when a ray is casted into the
      * scene, it tries to intersect the nearest cell and then the primitives inside it until it finds the nearest
      * intersection point.
+     * <br>
+     * The number of cells in each axis is proportional to the cube root of the number of primitives and to the size of
+     * the scene in that axis, so the cells are roughly cubic. Optionally, the cells with too many primitives are
+     * subdivided again by another grid (a two-level grid), which helps scenes with a very uneven density.
      *
      * @tparam T The type of the primitives.
      */
     template<typename T>
     class RegularGrid final {
     private:
+        /**
+         * The mailbox of a thread, which remembers the last ray that was tested against each primitive.
+         * <br>
+         * A primitive which overlaps several cells is stored in all of them, so the mailbox avoids testing it more
+         * than once for the same ray.
+         */
+        struct Mailbox {
+            /**
+             * The identifier of the grid which the mailbox belongs to.
+             */
+            ::std::uint64_t gridId_ {};
+
+            /**
+             * The identifier of the last ray traced with the mailbox.
+             * <br>
+             * The rays are numbered by the mailbox itself, so no global ray identifier is needed.
+             */
+            ::std::uint64_t lastRayId_ {};
+
+            /**
+             * The identifier of the last ray tested against each primitive (zero if none).
+             */
+            ::std::vector<::std::uint64_t> rayIds_ {};
+        };
 
         /**
-         * The grid structure.
+         * A level of the grid.
+         * <br>
+         * The first level covers the whole scene and the other ones cover a single cell of the first level.
          */
-        ::std::vector<::std::vector<T*>> grid_;
+        struct GridLevel {
+            /**
+             * The minimum point of the box covered by the level.
+             */
+            ::glm::vec3 pointMin_ {};
+
+            /**
+             * The size of a cell.
+             */
+            ::glm::vec3 cellSize_ {};
+
+            /**
+             * The inverted size of a cell.
+             */
+            ::glm::vec3 cellSizeInverted_ {};
+
+            /**
+             * The number of cells in each axis.
+             */
+            ::std::array<::std::int32_t, NumberOfAxes> size_ {};
+
+            /**
+             * The index of the first cell of the level in {@link RegularGrid#cellOffsets_}.
+             */
+            ::std::int32_t firstCell_ {};
+        };
 
         /**
-         * The primitives.
+         * A vector with pairs of cell index and primitive index.
          */
-        ::std::vector<T> primitives_;
+        using CellsList = ::std::vector<::std::pair<::std::uint32_t, ::std::uint32_t>>;
 
         /**
-         * The size of the cells in all the axes.
+         * The desired number of cells per primitive.
          */
-        ::std::int32_t gridSize_ {};
+        static constexpr float CellsPerPrimitive {2.0F};
 
         /**
-         * The number of bits in the grid size value (minus 1).
+         * The maximum number of cells in each axis of the first level.
          */
-        ::std::uint32_t gridShift_ {};
+        static constexpr ::std::int32_t MaxGridSize {128};
 
         /**
-         * The World boundaries.
+         * The maximum number of cells in each axis of the second level.
          */
-        AABB worldBoundaries_ {};
+        static constexpr ::std::int32_t MaxSubGridSize {8};
+
+        /**
+         * The number of primitives in a cell above which it is subdivided by another grid.
+         */
+        static constexpr ::std::uint32_t MaxPrimitivesInCell {16};
+
+        /**
+         * The ratio of the biggest size of the scene below which an axis is considered flat.
+         * The flat axes only have 1 cell.
+         */
+        static constexpr float FlatAxisRatio {1.0e-3F};
+
+    private:
+        /**
+         * The identifier of this grid, used to know if the mailbox of a thread belongs to it.
+         */
+        ::std::uint64_t id_ {};
+
+        /**
+         * The offsets of the first primitive of each cell in {@link RegularGrid#primitiveIndices_}.
+         * <br>
+         * The primitives of the cell N are the ones between the offsets N and N + 1, so it has one more element than
+         * the number of cells.
+         */
+        ::std::vector<::std::uint32_t> cellOffsets_ {};
+
+        /**
+         * The indices of the primitives in all the cells, stored contiguously cell after cell.
+         */
+        ::std::vector<::std::uint32_t> primitiveIndices_ {};
+
+        /**
+         * The index of the level which subdivides each cell, or 0 if the cell is not subdivided.
+         */
+        ::std::vector<::std::int32_t> subGrids_ {};
 
         /**
-         * The inverted cell size (gridSize / worldBoundaries).
+         * The levels of the grid. The first one covers the whole scene.
          */
-        ::glm::vec3 cellSizeInverted_ {};
+        ::std::vector<GridLevel> levels_ {};
 
         /**
-         * The size of a cell (worldBoundaries / gridSize).
+         * The primitives.
          */
-        ::glm::vec3 cellSize_ {};
+        ::std::vector<T> primitives_;
 
         /**
-         * The mutexes to allow multiple threads add primitives to the grid.
+         * The World boundaries.
          */
-        ::std::vector<::std::mutex> mutexes_ {};
+        AABB worldBoundaries_ {};
 
     private:
-        void addPrimitives();
+        void addPrimitives(bool twoLevels);
 
         /**
-         * Store primitives in the grid cells.
+         * Calculates the cells where each primitive should be stored.
          */
-        void addPrimitivesThreadWork(::std::uint32_t threadId, ::std::uint32_t numberOfThreads);
+        void addPrimitivesThreadWork(::std::uint32_t threadId, ::std::uint32_t numberOfThreads, CellsList *cellsPtr);
+
+        void addSubGrids(::std::uint32_t numberOfThreads);
+
+        void addSubGridsThreadWork(::std::uint32_t threadId, ::std::uint32_t numberOfThreads,
+                                   const ::std::vector<::std::int32_t> &parentCells, CellsList *cellsPtr);
+
+        void addPrimitiveToCells(const GridLevel &level, ::std::uint32_t index, CellsList *cellsPtr) const;
+
+        void sortCells(const ::std::vector<CellsList> &cellsLists, ::std::uint32_t numberOfCells);
 
         Intersection intersect(Intersection intersection);
 
-        ::std::uint32_t bitCounter(::std::uint32_t value) const;
+        template<typename Visitor>
+        bool traverse(const GridLevel &level, const Ray &ray, float distanceStart, float distanceEnd,
+                      const float *nearestDistance, Mailbox *mailbox, const Visitor &visitPrimitive) const;
+
+        bool clip(const Ray &ray, float distance, float *distanceStart, float *distanceEnd) const;
+
+        ::std::int32_t getCellIndex(const GridLevel &level, const ::std::array<::std::int32_t, NumberOfAxes> &cell) const;
+
+        Mailbox &getMailbox() const;
+
+        static ::std::uint64_t generateId();
+
+        static GridLevel createLevel(const ::glm::vec3 &pointMin, const ::glm::vec3 &size,
+                                     const ::std::array<::std::int32_t, NumberOfAxes> &resolution,
+                                     ::std::int32_t firstCell);
 
-        ::std::int32_t getCellIndex(::std::int32_t cellX, ::std::int32_t cellY, ::std::int32_t cellZ) const;
+        static ::std::array<::std::int32_t, NumberOfAxes> getResolution(const ::glm::vec3 &size,
+                                                                        ::std::uint32_t numPrimitives,
+                                                                        ::std::int32_t maxSize);
 
     public:
         explicit RegularGrid() = default;
 
-        explicit RegularGrid(::std::vector<T> &&primitives, ::std::uint32_t gridSize);
+        explicit RegularGrid(::std::vector<T> &&primitives, ::std::uint32_t gridSize = 0, bool twoLevels = true);
 
         RegularGrid(const RegularGrid &regularGrid) = delete;
 
@@ -98,6 +217,8 @@ namespace MobileRT {
 
         Intersection shadowTrace(Intersection intersection);
 
+        bool occluded(const Ray &ray, float distance) const;
+
         const ::std::vector<T>& getPrimitives() const;
     };
 
@@ -108,29 +229,17 @@ namespace MobileRT {
      *
      * @tparam T The type of the primitives.
      * @param primitives The primitives in the scene.
-     * @param gridSize   The size of the cells in all the axes.
+     * @param gridSize   The number of cells in all the axes, or 0 to calculate it from the number of primitives and
+     *                   the size of the scene.
+     * @param twoLevels  Whether the cells with too many primitives should be subdivided by another grid.
      */
     template<typename T>
     RegularGrid<T>::RegularGrid(
-        ::std::vector<T> &&primitives, const ::std::uint32_t gridSize
+        ::std::vector<T> &&primitives, const ::std::uint32_t gridSize, const bool twoLevels
     ) :
-        grid_ {
-            ::std::vector<::std::vector<T*>> {
-                static_cast<::std::uint32_t> (gridSize * gridSize * gridSize)
-            }
-        },
+        id_ {generateId()},
         primitives_ {::std::move(primitives)},
-        gridSize_ {static_cast<::std::int32_t> (gridSize)},
-        gridShift_ {bitCounter(gridSize - 1U)},
-        worldBoundaries_ {Scene::getBounds<T> (primitives_)},
-        // precalculate 1 / size of a cell (for x, y and z)
-        cellSizeInverted_ {
-            static_cast<float> (gridSize_) / (worldBoundaries_.getPointMax() - worldBoundaries_.getPointMin())[0],
-            static_cast<float> (gridSize_) / (worldBoundaries_.getPointMax() - worldBoundaries_.getPointMin())[1],
-            static_cast<float> (gridSize_) / (worldBoundaries_.getPointMax() - worldBoundaries_.getPointMin())[2]
-        },
-        // precalculate size of a cell (for x, y, and z)
-        cellSize_ {(worldBoundaries_.getPointMax() - worldBoundaries_.getPointMin()) * (1.0F / static_cast<float> (gridSize_))} {
+        worldBoundaries_ {Scene::getBounds<T> (primitives_)} {
         ::MobileRT::checkSystemError("RegularGrid constructor start");
         LOG_INFO("Building RegularGrid for: ", typeid(T).name());
         const ::glm::vec3 worldBoundsMin {this->worldBoundaries_.getPointMin()};
@@ -148,7 +257,16 @@ namespace MobileRT {
 
         ::MobileRT::checkSystemError("RegularGrid constructor before adding primitives");
         if (!this->primitives_.empty()) {
-            addPrimitives();
+            const ::glm::vec3 size {worldBoundsMax - worldBoundsMin};
+            const ::std::int32_t fixedSize {static_cast<::std::int32_t> (gridSize)};
+            const ::std::array<::std::int32_t, NumberOfAxes> resolution {
+                gridSize > 0
+                    ? ::std::array<::std::int32_t, NumberOfAxes> {fixedSize, fixedSize, fixedSize}
+                    : getResolution(size, static_cast<::std::uint32_t> (this->primitives_.size()), MaxGridSize)
+            };
+            LOG_INFO("RegularGrid resolution = (", resolution[0], ", ", resolution[1], ", ", resolution[2], ")");
+            this->levels_.emplace_back(createLevel(worldBoundsMin, size, resolution, 0));
+            addPrimitives(twoLevels);
         }
 
         ::MobileRT::checkSystemError("RegularGrid constructor end");
@@ -161,134 +279,336 @@ namespace MobileRT {
      */
     template<typename T>
     RegularGrid<T>::~RegularGrid() {
-        this->grid_.clear();
-        ::std::vector<::std::vector<T*>> {}.swap(this->grid_);
+        this->cellOffsets_.clear();
+        this->primitiveIndices_.clear();
+        this->subGrids_.clear();
+        this->levels_.clear();
+        ::std::vector<::std::uint32_t> {}.swap(this->cellOffsets_);
+        ::std::vector<::std::uint32_t> {}.swap(this->primitiveIndices_);
+        ::std::vector<::std::int32_t> {}.swap(this->subGrids_);
+        ::std::vector<GridLevel> {}.swap(this->levels_);
     }
 
     /**
-     * Helper method which calculates the number bits set in an unsigned integer.
+     * Helper method which generates a different identifier for every grid built.
      *
      * @tparam T The type of the primitives.
-     * @param value The value to count the number of the bits set.
-     * @return The number of bits set in the value.
+     * @return The new identifier.
      */
     template<typename T>
-    ::std::uint32_t RegularGrid<T>::bitCounter(::std::uint32_t value) const {
-        ::std::uint32_t counter {};
-        while (value > 0) {
-            ++counter;
-            value >>= 1;
+    ::std::uint64_t RegularGrid<T>::generateId() {
+        static ::std::atomic<::std::uint64_t> counter {1};
+        return counter.fetch_add(1, ::std::memory_order_relaxed);
+    }
+
+    /**
+     * Helper method which calculates the number of cells in each axis of a grid.
+     * <br>
+     * The total number of cells is proportional to the number of primitives and the cells are roughly cubic, so
+     * the number of cells in each axis is proportional to the size of the grid in that axis.
+     * The axes where the grid is flat only have 1 cell.
+     *
+     * @tparam T The type of the primitives.
+     * @param size          The size of the grid.
+     * @param numPrimitives The number of primitives in the grid.
+     * @param maxSize       The maximum number of cells in each axis.
+     * @return The number of cells in each axis.
+     */
+    template<typename T>
+    ::std::array<::std::int32_t, NumberOfAxes> RegularGrid<T>::getResolution(
+        const ::glm::vec3 &size, const ::std::uint32_t numPrimitives, const ::std::int32_t maxSize
+    ) {
+        const float maxLength {::std::max(::std::max(size[0], size[1]), size[2])};
+        float volume {1.0F};
+        ::std::int32_t numAxes {};
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            if (size[axis] > maxLength * FlatAxisRatio) {
+                volume *= size[axis];
+                ++numAxes;
+            }
         }
-        return counter;
+        // The number of cells per unit of length, so the grid has the desired number of cells in total.
+        const float cellsPerLength {
+            ::std::pow(CellsPerPrimitive * static_cast<float> (numPrimitives) / volume, 1.0F / static_cast<float> (numAxes))
+        };
+
+        ::std::array<::std::int32_t, NumberOfAxes> res {};
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            const ::std::uint32_t index {static_cast<::std::uint32_t> (axis)};
+            if (size[axis] > maxLength * FlatAxisRatio) {
+                const ::std::int32_t numCells {static_cast<::std::int32_t> (::std::lround(size[axis] * cellsPerLength))};
+                res[index] = ::std::min(::std::max(numCells, 1), maxSize);
+            } else {
+                res[index] = 1;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Helper method which creates a level of the grid.
+     *
+     * @tparam T The type of the primitives.
+     * @param pointMin   The minimum point of the box covered by the level.
+     * @param size       The size of the box covered by the level.
+     * @param resolution The number of cells in each axis.
+     * @param firstCell  The index of the first cell of the level.
+     * @return The level of the grid.
+     */
+    template<typename T>
+    typename RegularGrid<T>::GridLevel RegularGrid<T>::createLevel(
+        const ::glm::vec3 &pointMin, const ::glm::vec3 &size,
+        const ::std::array<::std::int32_t, NumberOfAxes> &resolution, const ::std::int32_t firstCell
+    ) {
+        GridLevel level {};
+        level.pointMin_ = pointMin;
+        level.size_ = resolution;
+        level.firstCell_ = firstCell;
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            level.cellSize_[axis] = size[axis] / static_cast<float> (resolution[static_cast<::std::uint32_t> (axis)]);
+            level.cellSizeInverted_[axis] = level.cellSize_[axis] > 0 ? 1.0F / level.cellSize_[axis] : 1.0F;
+        }
+        return level;
     }
 
     /**
      * Helper method which adds the primitives into the grid.
+     * <br>
+     * Each thread calculates the cells of a contiguous range of primitives and then the pairs of cell and primitive
+     * are sorted by cell with a counting sort, which keeps the primitives of each cell in ascending order.
      *
      * @tparam T The type of the primitives.
+     * @param twoLevels Whether the cells with too many primitives should be subdivided by another grid.
      */
     template<typename T>
-    void RegularGrid<T>::addPrimitives() {
+    void RegularGrid<T>::addPrimitives(const bool twoLevels) {
         LOG_INFO("Will add primitives to RegularGrid (", typeid(T).name(), ")");
         ::MobileRT::checkSystemError("RegularGrid addPrimitives start");
-        this->mutexes_ = ::std::vector<::std::mutex> (this->grid_.size());
-        ::MobileRT::checkSystemError("RegularGrid created mutexes");
 
-        LOG_INFO("Adding primitives to RegularGrid (", typeid(T).name(), ") (mutexes: ", this->mutexes_.size(), " [", this->mutexes_.capacity(), ", ", this->mutexes_.max_size(), "])");
         const ::std::uint32_t numChildren {::std::thread::hardware_concurrency()};
         if (numChildren <= 0) {
             LOG_ERROR("Number of available CPU cores is ", numChildren);
             return;
         }
+        // The pairs of cell index and primitive index calculated by each thread.
+        ::std::vector<CellsList> cellsPerThread (numChildren + 1);
         ::std::vector<::std::thread> threads {};
         threads.reserve(numChildren);
-        LOG_INFO("Created mutexes and it will fill the Regular Grid using ", numChildren + 1, " threads");
+        LOG_INFO("It will fill the Regular Grid using ", numChildren + 1, " threads");
         for (::std::uint32_t i {}; i < numChildren; ++i) {
-            threads.emplace_back(&RegularGrid::addPrimitivesThreadWork, this, i, numChildren + 1);
+            threads.emplace_back(&RegularGrid::addPrimitivesThreadWork, this, i, numChildren + 1, &cellsPerThread[i]);
         }
-        addPrimitivesThreadWork(numChildren, numChildren + 1);
+        addPrimitivesThreadWork(numChildren, numChildren + 1, &cellsPerThread[numChildren]);
         for (::std::thread &thread : threads) {
             thread.join();
         }
 
-        LOG_INFO("Added primitives to RegularGrid (", typeid(T).name(), ")");
+        const GridLevel &root {this->levels_.front()};
+        const ::std::uint32_t numberOfCells {static_cast<::std::uint32_t> (root.size_[0] * root.size_[1] * root.size_[2])};
+        sortCells(cellsPerThread, numberOfCells);
+        this->subGrids_.assign(numberOfCells, 0);
+        if (twoLevels) {
+            addSubGrids(numChildren + 1);
+        }
+
+        LOG_INFO("Added primitives to RegularGrid (", typeid(T).name(), ") with '", this->primitiveIndices_.size(), "' references and '", this->levels_.size(), "' levels");
         ::MobileRT::checkSystemError("RegularGrid addPrimitives end");
     }
 
+    /**
+     * Helper method which calculates the cells where each primitive of a range should be stored.
+     *
+     * @tparam T The type of the primitives.
+     * @param threadId        The index of the thread, which determines the range of primitives.
+     * @param numberOfThreads The number of threads used.
+     * @param cellsPtr        The vector where to store the pairs of cell index and primitive index.
+     */
     template<typename T>
-    void RegularGrid<T>::addPrimitivesThreadWork(const ::std::uint32_t threadId, const ::std::uint32_t numberOfThreads) {
-        const ::glm::vec3 worldBoundsMin {this->worldBoundaries_.getPointMin()};
-        const ::glm::vec3 worldBoundsMax {this->worldBoundaries_.getPointMax()};
-
-        // calculate cell width, height and depth
-        const ::glm::vec3 size {worldBoundsMax - worldBoundsMin};
-        const float dx {size[0] / this->gridSize_};
-        const float dy {size[1] / this->gridSize_};
-        const float dz {size[2] / this->gridSize_};
-        const float dxReci {dx > 0 ? 1.0F / dx : 1.0F};
-        const float dyReci {dy > 0 ? 1.0F / dy : 1.0F};
-        const float dzReci {dz > 0 ? 1.0F / dz : 1.0F};
+    void RegularGrid<T>::addPrimitivesThreadWork(const ::std::uint32_t threadId, const ::std::uint32_t numberOfThreads,
+                                                 CellsList *const cellsPtr) {
         const ::std::uint32_t numPrimitives {static_cast<::std::uint32_t> (this->primitives_.size())};
-
-        for (::std::int32_t index {static_cast<::std::int32_t>(threadId)}; index < static_cast<::std::int32_t> (numPrimitives); index += static_cast<::std::int32_t>(numberOfThreads)) {
+        const ::std::uint32_t indexBegin {static_cast<::std::uint32_t> (static_cast<::std::uint64_t> (numPrimitives) * threadId / numberOfThreads)};
+        const ::std::uint32_t indexEnd {static_cast<::std::uint32_t> (static_cast<::std::uint64_t> (numPrimitives) * (threadId + 1) / numberOfThreads)};
+        for (::std::uint32_t index {indexBegin}; index < indexEnd; ++index) {
             LOG_DEBUG("Adding primitive ", index, " to RegularGrid (", typeid(T).name(), ")");
             ::MobileRT::checkSystemError(::std::string("RegularGrid addPrimitives (" + ::std::to_string(index) + ")").c_str());
-            T &primitive {this->primitives_[static_cast<::std::uint32_t> (index)]};
-            const AABB bound {primitive.getAABB()};
-            const ::glm::vec3 &bv1 {bound.getPointMin()};
-            const ::glm::vec3 &bv2 {bound.getPointMax()};
-
-            // find out which cells could contain the primitive (based on aabb)
-            ::std::int32_t x1 {static_cast<::std::int32_t> ((bv1[0] - worldBoundsMin[0]) * dxReci)};
-            ::std::int32_t x2 {static_cast<::std::int32_t> ((bv2[0] - worldBoundsMin[0]) * dxReci) + 1};
-            x1 = ::std::max(0, x1);
-            x2 = ::std::min(x2, this->gridSize_ - 1);
-            x2 = ::std::fabs(size[0]) < ::std::numeric_limits<float>::epsilon()? 0 : x2;
-            x1 = ::std::min(x1, x2);
-            ::std::int32_t y1 {static_cast<::std::int32_t> ((bv1[1] - worldBoundsMin[1]) * dyReci)};
-            ::std::int32_t y2 {static_cast<::std::int32_t> ((bv2[1] - worldBoundsMin[1]) * dyReci) + 1};
-            y1 = ::std::max(0, y1);
-            y2 = ::std::min(y2, this->gridSize_ - 1);
-            y2 = ::std::fabs(size[1]) < ::std::numeric_limits<float>::epsilon()? 0 : y2;
-            y1 = ::std::min(y1, y2);
-            ::std::int32_t z1 {static_cast<::std::int32_t> ((bv1[2] - worldBoundsMin[2]) * dzReci)};
-            ::std::int32_t z2 {static_cast<::std::int32_t> ((bv2[2] - worldBoundsMin[2]) * dzReci) + 1};
-            z1 = ::std::max(0, z1);
-            z2 = ::std::min(z2, this->gridSize_ - 1);
-            z2 = ::std::fabs(size[2]) < ::std::numeric_limits<float>::epsilon()? 0 : z2;
-            z1 = ::std::min(z1, z2);
-
-            LOG_DEBUG("Looping over candidate cells for primitive ", index, " to RegularGrid (", typeid(T).name(), ") on coordinates: (", x1, "-", x2, ", ", y1, "-", y2, ", ", z1, "-", z2, ")");
-            for (::std::int32_t x {x1}; x <= x2; ++x) {
-                for (::std::int32_t y {y1}; y <= y2; ++y) {
-                    for (::std::int32_t z {z1}; z <= z2; ++z) {
-                        // construct aabb for current cell
-                        const ::std::uint32_t idx {static_cast<::std::uint32_t> (
-                            x +
-                            y * this->gridSize_ +
-                            z * this->gridSize_ * this->gridSize_
-                        )};
-                        const ::glm::vec3 &pos {
-                            worldBoundsMin[0] + static_cast<float>(x) * dx,
-                            worldBoundsMin[1] + static_cast<float>(y) * dy,
-                            worldBoundsMin[2] + static_cast<float>(z) * dz
-                        };
-                        const AABB cell {pos, pos + ::glm::vec3 {dx, dy, dz}};
-                        // do an accurate aabb / primitive intersection test
-                        const bool intersectedBox {primitive.intersect(cell)};
-                        if (intersectedBox) {
-                            LOG_DEBUG("Adding primitive ", index, " (", idx, ") to RegularGrid (", typeid(T).name(), ") on coordinates: (", x, ", ", y, ", ", z, ")");
-                            const ::std::lock_guard<::std::mutex> lock {this->mutexes_[idx]};
-                            this->grid_[idx].emplace_back(&primitive);
-                            LOG_DEBUG("Added primitive ", index, " to RegularGrid (", typeid(T).name(), ") on coordinates: (", x, ", ", y, ", ", z, ")");
-                        }
+            addPrimitiveToCells(this->levels_.front(), index, cellsPtr);
+            LOG_DEBUG("Added primitive ", index, " to RegularGrid (", typeid(T).name(), ")");
+            ::MobileRT::checkSystemError(::std::string("RegularGrid addPrimitives end (" + ::std::to_string(index) + ")").c_str());
+        }
+        LOG_INFO("Thread ", threadId, " (", numberOfThreads, ") Added '", indexEnd - indexBegin, "' primitives to RegularGrid ", typeid(T).name());
+    }
+
+    /**
+     * Helper method which subdivides the cells of the first level which have too many primitives with another grid.
+     *
+     * @tparam T The type of the primitives.
+     * @param numberOfThreads The number of threads to use.
+     */
+    template<typename T>
+    void RegularGrid<T>::addSubGrids(const ::std::uint32_t numberOfThreads) {
+        const GridLevel root {this->levels_.front()};
+        const ::std::int32_t numberOfRootCells {root.size_[0] * root.size_[1] * root.size_[2]};
+
+        // The cell of the first level subdivided by each level (the first level doesn't have a parent).
+        ::std::vector<::std::int32_t> parentCells {-1};
+        ::std::int32_t numberOfCells {numberOfRootCells};
+        for (::std::int32_t cellZ {}; cellZ < root.size_[2]; ++cellZ) {
+            for (::std::int32_t cellY {}; cellY < root.size_[1]; ++cellY) {
+                for (::std::int32_t cellX {}; cellX < root.size_[0]; ++cellX) {
+                    const ::std::int32_t cell {getCellIndex(root, {cellX, cellY, cellZ})};
+                    const ::std::uint32_t numPrimitives {
+                        this->cellOffsets_[static_cast<::std::uint32_t> (cell) + 1] - this->cellOffsets_[static_cast<::std::uint32_t> (cell)]
+                    };
+                    if (numPrimitives <= MaxPrimitivesInCell) {
+                        continue;
+                    }
+                    const ::std::array<::std::int32_t, NumberOfAxes> resolution {
+                        getResolution(root.cellSize_, numPrimitives, MaxSubGridSize)
+                    };
+                    if (resolution[0] * resolution[1] * resolution[2] <= 1) {
+                        continue;
                     }
+                    const ::glm::vec3 pointMin {
+                        root.pointMin_ + ::glm::vec3 {static_cast<float> (cellX), static_cast<float> (cellY), static_cast<float> (cellZ)} * root.cellSize_
+                    };
+                    this->subGrids_[static_cast<::std::uint32_t> (cell)] = static_cast<::std::int32_t> (this->levels_.size());
+                    this->levels_.emplace_back(createLevel(pointMin, root.cellSize_, resolution, numberOfCells));
+                    parentCells.emplace_back(cell);
+                    numberOfCells += resolution[0] * resolution[1] * resolution[2];
                 }
             }
-            LOG_DEBUG("Added primitive ", index, " to RegularGrid (", typeid(T).name(), ")");
-            ::MobileRT::checkSystemError(::std::string("RegularGrid addPrimitives end (" + ::std::to_string(index) + ")").c_str());
         }
-        LOG_INFO("Thread ", threadId, " (", numberOfThreads, ") Added '", numPrimitives, "' primitives to RegularGrid ", typeid(T).name(), ": (", dx, ", ", dy, ", ", dz, ")");
+        if (this->levels_.size() == 1) {
+            return;
+        }
+
+        // The primitives of the cells which are not subdivided stay where they are.
+        ::std::vector<CellsList> cellsLists (numberOfThreads + 1);
+        CellsList &rootCells {cellsLists.back()};
+        for (::std::int32_t cell {}; cell < numberOfRootCells; ++cell) {
+            const ::std::uint32_t index {static_cast<::std::uint32_t> (cell)};
+            if (this->subGrids_[index] > 0) {
+                continue;
+            }
+            for (::std::uint32_t i {this->cellOffsets_[index]}; i < this->cellOffsets_[index + 1]; ++i) {
+                rootCells.emplace_back(index, this->primitiveIndices_[i]);
+            }
+        }
+
+        ::std::vector<::std::thread> threads {};
+        threads.reserve(numberOfThreads - 1);
+        for (::std::uint32_t i {}; i < numberOfThreads - 1; ++i) {
+            threads.emplace_back(&RegularGrid::addSubGridsThreadWork, this, i, numberOfThreads, ::std::cref(parentCells), &cellsLists[i]);
+        }
+        addSubGridsThreadWork(numberOfThreads - 1, numberOfThreads, parentCells, &cellsLists[numberOfThreads - 1]);
+        for (::std::thread &thread : threads) {
+            thread.join();
+        }
+
+        sortCells(cellsLists, static_cast<::std::uint32_t> (numberOfCells));
+        this->subGrids_.resize(static_cast<::std::uint32_t> (numberOfCells), 0);
+    }
+
+    /**
+     * Helper method which calculates the cells of the second level where each primitive should be stored.
+     * <br>
+     * Each thread handles every N-th level, where N is the number of threads.
+     *
+     * @tparam T The type of the primitives.
+     * @param threadId        The index of the thread.
+     * @param numberOfThreads The number of threads used.
+     * @param parentCells     The cell of the first level subdivided by each level.
+     * @param cellsPtr        The vector where to store the pairs of cell index and primitive index.
+     */
+    template<typename T>
+    void RegularGrid<T>::addSubGridsThreadWork(const ::std::uint32_t threadId, const ::std::uint32_t numberOfThreads,
+                                               const ::std::vector<::std::int32_t> &parentCells,
+                                               CellsList *const cellsPtr) {
+        for (::std::uint32_t level {threadId + 1}; level < this->levels_.size(); level += numberOfThreads) {
+            const ::std::uint32_t parentCell {static_cast<::std::uint32_t> (parentCells[level])};
+            for (::std::uint32_t i {this->cellOffsets_[parentCell]}; i < this->cellOffsets_[parentCell + 1]; ++i) {
+                addPrimitiveToCells(this->levels_[level], this->primitiveIndices_[i], cellsPtr);
+            }
+        }
+    }
+
+    /**
+     * Helper method which calculates the cells of a level of the grid where a primitive should be stored.
+     *
+     * @tparam T The type of the primitives.
+     * @param level    The level of the grid.
+     * @param index    The index of the primitive.
+     * @param cellsPtr The vector where to store the pairs of cell index and primitive index.
+     */
+    template<typename T>
+    void RegularGrid<T>::addPrimitiveToCells(const GridLevel &level, const ::std::uint32_t index,
+                                             CellsList *const cellsPtr) const {
+        const T &primitive {this->primitives_[index]};
+        const AABB bound {primitive.getAABB()};
+        const ::glm::vec3 &bv1 {bound.getPointMin()};
+        const ::glm::vec3 &bv2 {bound.getPointMax()};
+
+        // find out which cells could contain the primitive (based on aabb)
+        ::std::array<::std::int32_t, NumberOfAxes> cellMin {};
+        ::std::array<::std::int32_t, NumberOfAxes> cellMax {};
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            const ::std::uint32_t i {static_cast<::std::uint32_t> (axis)};
+            cellMin[i] = static_cast<::std::int32_t> ((bv1[axis] - level.pointMin_[axis]) * level.cellSizeInverted_[axis]);
+            cellMax[i] = static_cast<::std::int32_t> ((bv2[axis] - level.pointMin_[axis]) * level.cellSizeInverted_[axis]) + 1;
+            cellMin[i] = ::std::max(0, cellMin[i]);
+            cellMax[i] = ::std::min(cellMax[i], level.size_[i] - 1);
+            cellMin[i] = ::std::min(cellMin[i], cellMax[i]);
+        }
+
+        for (::std::int32_t x {cellMin[0]}; x <= cellMax[0]; ++x) {
+            for (::std::int32_t y {cellMin[1]}; y <= cellMax[1]; ++y) {
+                for (::std::int32_t z {cellMin[2]}; z <= cellMax[2]; ++z) {
+                    // construct aabb for current cell
+                    const ::glm::vec3 &pos {
+                        level.pointMin_ + ::glm::vec3 {static_cast<float> (x), static_cast<float> (y), static_cast<float> (z)} * level.cellSize_
+                    };
+                    const AABB cell {pos, pos + level.cellSize_};
+                    // do an accurate aabb / primitive intersection test
+                    if (primitive.intersect(cell)) {
+                        const ::std::uint32_t cellIndex {static_cast<::std::uint32_t> (getCellIndex(level, {x, y, z}))};
+                        cellsPtr->emplace_back(cellIndex, index);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method which stores the primitives in the cells with a counting sort of the pairs of cell index and
+     * primitive index.
+     * The primitives keep the same order as in the lists.
+     *
+     * @tparam T The type of the primitives.
+     * @param cellsLists    The lists with the pairs of cell index and primitive index.
+     * @param numberOfCells The number of cells in the grid.
+     */
+    template<typename T>
+    void RegularGrid<T>::sortCells(const ::std::vector<CellsList> &cellsLists, const ::std::uint32_t numberOfCells) {
+        // Count the primitives in each cell and convert the counters into the offsets of the cells.
+        this->cellOffsets_.assign(numberOfCells + 1, 0);
+        for (const CellsList &cells : cellsLists) {
+            for (const ::std::pair<::std::uint32_t, ::std::uint32_t> &cell : cells) {
+                ++this->cellOffsets_[cell.first + 1];
+            }
+        }
+        for (::std::uint32_t i {1}; i < this->cellOffsets_.size(); ++i) {
+            this->cellOffsets_[i] += this->cellOffsets_[i - 1];
+        }
+
+        this->primitiveIndices_.resize(this->cellOffsets_.back());
+        ::std::vector<::std::uint32_t> cellSizes (numberOfCells);
+        for (const CellsList &cells : cellsLists) {
+            for (const ::std::pair<::std::uint32_t, ::std::uint32_t> &cell : cells) {
+                this->primitiveIndices_[this->cellOffsets_[cell.first] + cellSizes[cell.first]] = cell.second;
+                ++cellSizes[cell.first];
+            }
+        }
     }
 
     /**
@@ -320,6 +640,33 @@ namespace MobileRT {
         return intersection;
     }
 
+    /**
+     * This method casts a ray into the geometry and determines if it intersects any primitive before a given distance.
+     * <br>
+     * The traversal stops at the first primitive intersected and the intersection point is never calculated.
+     *
+     * @tparam T The type of the primitives.
+     * @param ray      The ray.
+     * @param distance The maximum distance of the intersection.
+     * @return Whether the ray intersects a primitive or not.
+     */
+    template<typename T>
+    bool RegularGrid<T>::occluded(const Ray &ray, const float distance) const {
+        float distanceStart {};
+        float distanceEnd {};
+        if (this->levels_.empty() || !clip(ray, distance, &distanceStart, &distanceEnd)) {
+            return false;
+        }
+
+        Mailbox &mailbox {getMailbox()};
+        const bool res {traverse(this->levels_.front(), ray, distanceStart, distanceEnd, &distance, &mailbox,
+            [&](const T &primitive) -> bool {
+                return primitive.intersect(ray, distance);
+            }
+        )};
+        return res;
+    }
+
     /**
      * Helper method which calculates the intersection point from the origin of the ray.
      * <br>
@@ -334,212 +681,194 @@ namespace MobileRT {
      */
     template<typename T>
     Intersection RegularGrid<T>::intersect(Intersection intersection) {
-        const ::glm::vec3 &worldBoundsMin {this->worldBoundaries_.getPointMin()};
-
-        // setup 3DDDA (double check reusability of primary ray data)
-        const ::glm::vec3 &cell {(intersection.ray_.origin_ - worldBoundsMin) * this->cellSizeInverted_};
-        ::std::int32_t cellX {static_cast<::std::int32_t> (cell[0])};
-        ::std::int32_t cellY {static_cast<::std::int32_t> (cell[1])};
-        ::std::int32_t cellZ {static_cast<::std::int32_t> (cell[2])};
-
-        cellX = ::std::min(cellX, this->gridSize_ - 1);
-        cellX = ::std::max(cellX, 0);
-        cellY = ::std::min(cellY, this->gridSize_ - 1);
-        cellY = ::std::max(cellY, 0);
-        cellZ = ::std::min(cellZ, this->gridSize_ - 1);
-        cellZ = ::std::max(cellZ, 0);
-
-        ::std::int32_t stepX {}, outX {};
-        ::std::int32_t stepY {}, outY {};
-        ::std::int32_t stepZ {}, outZ {};
-        ::glm::vec3 cb {};
-        if (intersection.ray_.direction_[0] > 0) {
-            stepX = 1;
-            outX = this->gridSize_;
-            cb[0] = (worldBoundsMin[0] + (static_cast<float> (cellX) + 1.0F) * this->cellSize_[0]);
-        } else {
-            stepX = -1;
-            outX = -1;
-            cb[0] = (worldBoundsMin[0] + static_cast<float> (cellX) * this->cellSize_[0]);
-        }
-
-        if (intersection.ray_.direction_[1] > 0) {
-            stepY = 1;
-            outY = this->gridSize_;
-            cb[1] = (worldBoundsMin[1] + (static_cast<float> (cellY) + 1.0F) * this->cellSize_[1]);
-        } else {
-            stepY = -1;
-            outY = -1;
-            cb[1] = (worldBoundsMin[1] + static_cast<float> (cellY) * this->cellSize_[1]);
-        }
-
-        if (intersection.ray_.direction_[2] > 0) {
-            stepZ = 1;
-            outZ = this->gridSize_;
-            cb[2] = (worldBoundsMin[2] + (static_cast<float> (cellZ) + 1.0F) * this->cellSize_[2]);
-        } else {
-            stepZ = -1;
-            outZ = -1;
-            cb[2] = (worldBoundsMin[2] + static_cast<float> (cellZ) * this->cellSize_[2]);
+        float distanceStart {};
+        float distanceEnd {};
+        if (this->levels_.empty() || !clip(intersection.ray_, intersection.length_, &distanceStart, &distanceEnd)) {
+            return intersection;
         }
 
-        ::glm::vec3 tmax {}, tdelta {};
-        if (::std::fabs(intersection.ray_.direction_[0]) > ::std::numeric_limits<float>::epsilon()) {
-            const float rxr {1.0F / intersection.ray_.direction_[0]};
-            tmax[0] = ((cb[0] - intersection.ray_.origin_[0]) * rxr);
-            tdelta[0] = (this->cellSize_[0] * static_cast<float> (stepX) * rxr);
-        } else {
-            tmax[0] = RayLengthMax;
-        }
+        Mailbox &mailbox {getMailbox()};
+        traverse(this->levels_.front(), intersection.ray_, distanceStart, distanceEnd, &intersection.length_, &mailbox,
+            [&](const T &primitive) -> bool {
+                const float lastDist {intersection.length_};
+                intersection = primitive.intersect(intersection);
+                return intersection.ray_.shadowTrace_ && intersection.length_ < lastDist;
+            }
+        );
+        return intersection;
+    }
 
-        if (::std::fabs(intersection.ray_.direction_[1]) > ::std::numeric_limits<float>::epsilon()) {
-            const float ryr {1.0F / intersection.ray_.direction_[1]};
-            tmax[1] = ((cb[1] - intersection.ray_.origin_[1]) * ryr);
-            tdelta[1] = (this->cellSize_[1] * static_cast<float> (stepY) * ryr);
-        } else {
-            tmax[1] = RayLengthMax;
+    /**
+     * Helper method which clips a ray to the boundaries of the grid, so the traversal starts where the ray enters it.
+     *
+     * @tparam T The type of the primitives.
+     * @param ray           The ray.
+     * @param distance      The maximum distance of the ray.
+     * @param distanceStart A pointer to store the distance where the ray enters the grid.
+     * @param distanceEnd   A pointer to store the distance where the ray leaves the grid.
+     * @return Whether the ray intersects the boundaries of the grid or not.
+     */
+    template<typename T>
+    bool RegularGrid<T>::clip(const Ray &ray, const float distance, float *const distanceStart,
+                              float *const distanceEnd) const {
+        const ::glm::vec3 &worldBoundsMin {this->worldBoundaries_.getPointMin()};
+        const ::glm::vec3 &worldBoundsMax {this->worldBoundaries_.getPointMax()};
+        *distanceStart = 0.0F;
+        *distanceEnd = distance;
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            const float invDirection {1.0F / ray.direction_[axis]};
+            const float t1 {(worldBoundsMin[axis] - ray.origin_[axis]) * invDirection};
+            const float t2 {(worldBoundsMax[axis] - ray.origin_[axis]) * invDirection};
+            // The distances are the second operand, so a NaN (ray parallel to and on a slab) doesn't clip the range.
+            *distanceStart = ::std::max(*distanceStart, ::std::min(t1, t2));
+            *distanceEnd = ::std::min(*distanceEnd, ::std::max(t1, t2));
         }
+        return *distanceStart <= *distanceEnd;
+    }
 
-        if (::std::fabs(intersection.ray_.direction_[2]) > ::std::numeric_limits<float>::epsilon()) {
-            const float rzr {1.0F / intersection.ray_.direction_[2]};
-            tmax[2] = ((cb[2] - intersection.ray_.origin_[2]) * rzr);
-            tdelta[2] = (this->cellSize_[2] * static_cast<float> (stepZ) * rzr);
-        } else {
-            tmax[2] = RayLengthMax;
+    /**
+     * Helper method which walks a ray through the cells of a level of the grid with a 3D-DDA, from the nearest to
+     * the farthest, and visits the primitives inside them.
+     * <br>
+     * The cells subdivided by another level are traversed recursively.
+     * The traversal stops when the nearest intersection found is inside the current cell, since the next cells are
+     * all farther.
+     *
+     * @tparam T       The type of the primitives.
+     * @tparam Visitor The type of the function which intersects a primitive.
+     * @param level           The level of the grid.
+     * @param ray             The ray.
+     * @param distanceStart   The distance where the ray enters the level.
+     * @param distanceEnd     The distance where the ray leaves the level.
+     * @param nearestDistance A pointer to the distance of the nearest intersection found, updated by the visitor.
+     * @param mailbox         The mailbox of the current thread.
+     * @param visitPrimitive  The function which intersects a primitive and returns whether the traversal can stop.
+     * @return Whether the visitor stopped the traversal.
+     */
+    template<typename T>
+    template<typename Visitor>
+    bool RegularGrid<T>::traverse(const GridLevel &level, const Ray &ray, const float distanceStart,
+                                  const float distanceEnd, const float *const nearestDistance,
+                                  Mailbox *const mailbox, const Visitor &visitPrimitive) const {
+        const ::glm::vec3 origin {ray.origin_};
+        const ::glm::vec3 direction {ray.direction_};
+        const ::std::uint64_t rayId {mailbox->lastRayId_};
+
+        // setup 3DDDA from the point where the ray enters the level
+        const ::glm::vec3 &startCell {(origin + direction * distanceStart - level.pointMin_) * level.cellSizeInverted_};
+        ::std::array<::std::int32_t, NumberOfAxes> cell {};
+        ::std::array<::std::int32_t, NumberOfAxes> step {};
+        ::std::array<::std::int32_t, NumberOfAxes> out {};
+        ::glm::vec3 tmax {};
+        ::glm::vec3 tdelta {};
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            const ::std::uint32_t i {static_cast<::std::uint32_t> (axis)};
+            cell[i] = ::std::min(::std::max(static_cast<::std::int32_t> (startCell[axis]), 0), level.size_[i] - 1);
+            float cellBoundary {};
+            if (direction[axis] > 0) {
+                step[i] = 1;
+                out[i] = level.size_[i];
+                cellBoundary = level.pointMin_[axis] + (static_cast<float> (cell[i]) + 1.0F) * level.cellSize_[axis];
+            } else {
+                step[i] = -1;
+                out[i] = -1;
+                cellBoundary = level.pointMin_[axis] + static_cast<float> (cell[i]) * level.cellSize_[axis];
+            }
+            if (::std::fabs(direction[axis]) > ::std::numeric_limits<float>::epsilon()) {
+                const float invDirection {1.0F / direction[axis]};
+                tmax[axis] = (cellBoundary - origin[axis]) * invDirection;
+                tdelta[axis] = level.cellSize_[axis] * static_cast<float> (step[i]) * invDirection;
+            } else {
+                tmax[axis] = RayLengthMax;
+            }
         }
 
-        // start stepping
-        // trace primary ray
+        float cellStart {distanceStart};
         while (true) {
-
-            // Get the primitives inside the cell.
-            const ::std::int32_t index {getCellIndex(cellX, cellY, cellZ)};
-            const auto itPrimitives {this->grid_.begin() + index};
-            ::std::vector<T*> primitivesList {*itPrimitives};
-
-            // Check if the ray intersects any primitive in the cell.
-            for (T *const primitive : primitivesList) {
-                const float lastDist {intersection.length_};
-                intersection = primitive->intersect(intersection);
-                if (intersection.length_ < lastDist) {
-                    if (intersection.ray_.shadowTrace_) {
-                        return intersection;
-                    }
-                    goto testloop;
-                }
-            }
-
-            if (tmax[0] < tmax[1]) {
-                if (tmax[0] < tmax[2]) {
-                    cellX += stepX;
-                    if (cellX == outX) {
-                        return intersection;
-                    }
-                    tmax[0] = (tmax[0] + tdelta[0]);
-                } else {
-                    cellZ += stepZ;
-                    if (cellZ == outZ) {
-                        return intersection;
-                    }
-                    tmax[2] = (tmax[2] + tdelta[2]);
+            const ::std::uint32_t index {static_cast<::std::uint32_t> (getCellIndex(level, cell))};
+            const float cellEnd {::std::min(::std::min(tmax[0], tmax[1]), tmax[2])};
+
+            const ::std::int32_t subGrid {this->subGrids_[index]};
+            if (subGrid > 0) {
+                const GridLevel &subLevel {this->levels_[static_cast<::std::uint32_t> (subGrid)]};
+                if (traverse(subLevel, ray, cellStart, ::std::min(cellEnd, distanceEnd), nearestDistance, mailbox,
+                             visitPrimitive)) {
+                    return true;
                 }
             } else {
-                if (tmax[1] < tmax[2]) {
-                    cellY += stepY;
-                    if (cellY == outY) {
-                        return intersection;
+                // Check if the ray intersects any primitive in the cell.
+                for (::std::uint32_t i {this->cellOffsets_[index]}; i < this->cellOffsets_[index + 1]; ++i) {
+                    const ::std::uint32_t primitiveIndex {this->primitiveIndices_[i]};
+                    if (mailbox->rayIds_[primitiveIndex] == rayId) {
+                        continue;
                     }
-                    tmax[1] = (tmax[1] + tdelta[1]);
-                } else {
-                    cellZ += stepZ;
-                    if (cellZ == outZ) {
-                        return intersection;
+                    mailbox->rayIds_[primitiveIndex] = rayId;
+                    if (visitPrimitive(this->primitives_[primitiveIndex])) {
+                        return true;
                     }
-                    tmax[2] = (tmax[2] + tdelta[2]);
                 }
             }
 
-        }
-        testloop:
-        while (true) {
-
-            // Get the primitives in the cell.
-            const ::std::int32_t index {getCellIndex(cellX, cellY, cellZ)};
-            const auto itPrimitives {this->grid_.begin() + index};
-            ::std::vector<T*> primitivesList {*itPrimitives};
-
-            // Check if the ray intersects any primitive in the cell.
-            for (T *const primitive : primitivesList) {
-                intersection = primitive->intersect(intersection);
+            // The intersection found is inside this cell or the ray left the level.
+            if (*nearestDistance < cellEnd || cellEnd >= distanceEnd) {
+                return false;
             }
+
+            cellStart = cellEnd;
+            ::std::int32_t axis {2};
             if (tmax[0] < tmax[1]) {
                 if (tmax[0] < tmax[2]) {
-                    if (intersection.length_ < tmax[0]) {
-                        break;
-                    }
-                    cellX += stepX;
-                    if (cellX == outX) {
-                        break;
-                    }
-                    tmax[0] = (tmax[0] + tdelta[0]);
-                } else {
-                    if (intersection.length_ < tmax[2]) {
-                        break;
-                    }
-                    cellZ += stepZ;
-                    if (cellZ == outZ) {
-                        break;
-                    }
-                    tmax[2] = (tmax[2] + tdelta[2]);
-                }
-            } else {
-                if (tmax[1] < tmax[2]) {
-                    if (intersection.length_ < tmax[1]) {
-                        break;
-                    }
-                    cellY += stepY;
-                    if (cellY == outY) {
-                        break;
-                    }
-                    tmax[1] = (tmax[1] + tdelta[1]);
-                } else {
-                    if (intersection.length_ < tmax[2]) {
-                        break;
-                    }
-                    cellZ += stepZ;
-                    if (cellZ == outZ) {
-                        break;
-                    }
-                    tmax[2] = (tmax[2] + tdelta[2]);
+                    axis = 0;
                 }
+            } else if (tmax[1] < tmax[2]) {
+                axis = 1;
             }
+            const ::std::uint32_t i {static_cast<::std::uint32_t> (axis)};
+            cell[i] += step[i];
+            if (cell[i] == out[i]) {
+                return false;
+            }
+            tmax[axis] += tdelta[axis];
         }
-        return intersection;
     }
 
     /**
      * Helper method which calculates the cell index in the grid.
      *
-     * @param cellX The index of X.
-     * @param cellY The index of Y.
-     * @param cellZ The index of Z.
+     * @param level The level of the grid.
+     * @param cell  The coordinates of the cell in the level.
      * @return The index of the cell in the grid.
      */
     template<typename T>
     ::std::int32_t RegularGrid<T>::getCellIndex(
-            const ::std::int32_t cellX,
-            const ::std::int32_t cellY,
-            const ::std::int32_t cellZ) const {
+            const GridLevel &level, const ::std::array<::std::int32_t, NumberOfAxes> &cell) const {
         const ::std::int32_t index {
-            static_cast<::std::int32_t> (
-                 static_cast<::std::uint32_t> (cellX) +
-                 (static_cast<::std::uint32_t> (cellY) << (this->gridShift_)) +
-                 (static_cast<::std::uint32_t> (cellZ) << (this->gridShift_ * 2U))
-            )
+            level.firstCell_ + cell[0] + (cell[1] + cell[2] * level.size_[1]) * level.size_[0]
         };
         return index;
     }
 
+    /**
+     * Helper method which gets the mailbox of the current thread, ready to be used by a new ray.
+     * <br>
+     * The mailbox numbers the rays traced by the thread, so it doesn't need to be cleared between rays nor does it
+     * need a global ray identifier. It is only cleared when it was used by another grid.
+     *
+     * @tparam T The type of the primitives.
+     * @return The mailbox of the current thread.
+     */
+    template<typename T>
+    typename RegularGrid<T>::Mailbox &RegularGrid<T>::getMailbox() const {
+        static thread_local Mailbox mailbox {};
+        if (mailbox.gridId_ != this->id_) {
+            mailbox.gridId_ = this->id_;
+            mailbox.lastRayId_ = 0;
+            mailbox.rayIds_.assign(this->primitives_.size(), 0);
+        }
+        ++mailbox.lastRayId_;
+        return mailbox;
+    }
+
     /**
      * Gets the primitives.
      *
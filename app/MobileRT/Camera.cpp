@@ -3,6 +3,7 @@
 
 using ::MobileRT::AABB;
 using ::MobileRT::Camera;
+using ::MobileRT::Ray;
 
 /**
  * The constructor.
@@ -52,6 +53,20 @@ float Camera::radToDeg(const float rad) {
     return degrees;
 }
 
+/**
+ * Generates a packet of rays with the origin in the camera.
+ * <br>
+ * By default, the rays are generated one at a time with {@link Camera#generateRay}.
+ *
+ * @param samples The image plane coordinates of the rays.
+ * @param rays    The vector where the generated rays are appended.
+ */
+void Camera::generateRays(const PacketSamples &samples, ::std::vector<Ray> *const rays) const {
+    for (::std::uint32_t i {}; i < static_cast<::std::uint32_t> (samples.numRays_); ++i) {
+        rays->emplace_back(generateRay(samples.u_[i], samples.v_[i], samples.deviationU_[i], samples.deviationV_[i]));
+    }
+}
+
 /**
  * Calculates the bounding box of the camera.
  *
@@ -3,10 +3,13 @@
 
 #include "MobileRT/Accelerators/AABB.hpp"
 #include "MobileRT/Ray.hpp"
+#include "MobileRT/Utils/Constants.hpp"
 #include <algorithm>
+#include <array>
 #include <atomic>
 #include <glm/glm.hpp>
 #include <random>
+#include <vector>
 
 namespace MobileRT {
 
@@ -14,6 +17,20 @@ namespace MobileRT {
      * A class which represents a camera in the scene.
      */
     class Camera {
+    public:
+        /**
+         * The image plane coordinates of the rays of a packet, stored as a structure of arrays so the rays can be
+         * generated together.
+         * The meaning of each coordinate is the same as in {@link Camera#generateRay}.
+         */
+        struct PacketSamples {
+            ::std::array<float, RayPacketSize> u_ {};
+            ::std::array<float, RayPacketSize> v_ {};
+            ::std::array<float, RayPacketSize> deviationU_ {};
+            ::std::array<float, RayPacketSize> deviationV_ {};
+            ::std::int32_t numRays_ {};
+        };
+
     protected:
         static float degToRad(float deg);
 
@@ -67,6 +84,8 @@ namespace MobileRT {
                                 float deviationU,
                                 float deviationV) const = 0;
 
+        virtual void generateRays(const PacketSamples &samples, ::std::vector<Ray> *rays) const;
+
         virtual AABB getAABB() const;
     };
 }//namespace MobileRT
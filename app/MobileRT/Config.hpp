@@ -66,6 +66,11 @@ namespace MobileRT {
          */
         ::std::int32_t samplesLight;
 
+        /**
+         * The target relative error of each pixel for the adaptive sampling (0 disables it).
+         */
+        float targetError;
+
         /**
          * The number of times to render the scene.
          */
@@ -46,6 +46,35 @@ Intersection::Intersection(
     checkArguments();
 }
 
+/**
+ * The constructor for an intersection whose shading attributes are calculated later by the intersected shape.
+ *
+ * @param ray           The casted ray into the scene.
+ * @param dist          The distance between the intersection point and the origin of the ray.
+ * @param primitive     The pointer to the intersected primitive.
+ * @param materialIndex The index of the material of the intersected shape.
+ * @param shape         The intersected shape.
+ * @param shapeType     The type of the intersected shape.
+ * @param barycentric   The barycentric coordinates of the intersection point (only used by the triangles).
+ */
+Intersection::Intersection(
+    Ray &&ray,
+    const float dist,
+    const void *const primitive,
+    const ::std::int32_t materialIndex,
+    const void *const shape,
+    const ShapeType shapeType,
+    const ::glm::vec2 &barycentric) :
+    length_ {dist},
+    primitive_ {primitive},
+    materialIndex_ {materialIndex},
+    shape_ {shape},
+    shapeType_ {shapeType},
+    barycentric_ {barycentric},
+    ray_ {::std::move(ray)} {
+    checkArguments();
+}
+
 /**
  * Helper method which checks for invalid fields.
  */
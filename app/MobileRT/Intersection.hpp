@@ -9,8 +9,24 @@
 namespace MobileRT {
     /**
      * A class which represents an intersection of a ray with a primitive.
+     * <br>
+     * While tracing a ray, the shapes only record the distance, the material and the data needed to calculate the
+     * shading attributes (point, normal and texture coordinates), which are only calculated for the nearest
+     * intersection.
      */
     class Intersection final {
+    public:
+        /**
+         * The type of a shape, used for the intersected shape and for the shapes referenced by a
+         * {@link ::MobileRT::Primitive}.
+         */
+        enum ShapeType {
+            SHAPE_NONE = 0,
+            SHAPE_PLANE,
+            SHAPE_SPHERE,
+            SHAPE_TRIANGLE,
+        };
+
     public:
         ::glm::vec3 point_ {0.0F, 0.0F, 0.0F};
         ::glm::vec3 normal_ {0.0F, 1.0F, 0.0F};
@@ -20,6 +36,22 @@ namespace MobileRT {
         ::std::int32_t materialIndex_ {-1};
         ::glm::vec2 texCoords_ {-1.0F, -1.0F};
 
+        /**
+         * The index of the intersected light source, or -1 if the ray didn't intersect a light source.
+         */
+        ::std::int32_t lightIndex_ {-1};
+
+        /**
+         * The intersected shape whose shading attributes were not calculated yet, or nullptr if they were.
+         */
+        const void *shape_ {nullptr};
+        ShapeType shapeType_ {SHAPE_NONE};
+
+        /**
+         * The barycentric coordinates (u, v) of the intersection point in the intersected triangle.
+         */
+        ::glm::vec2 barycentric_ {};
+
         /**
          * The casted ray into the scene.
          */
@@ -42,6 +74,15 @@ namespace MobileRT {
             ::std::int32_t materialIndex,
             const ::glm::vec2 &texCoords = ::glm::vec2 {-1});
 
+        explicit Intersection(
+            Ray &&ray,
+            float dist,
+            const void *primitive,
+            ::std::int32_t materialIndex,
+            const void *shape,
+            ShapeType shapeType,
+            const ::glm::vec2 &barycentric = ::glm::vec2 {});
+
         Intersection(const Intersection &intersection) = default;
 
         Intersection(Intersection &&intersection) noexcept = default;
@@ -1,6 +1,10 @@
 #include "MobileRT/Light.hpp"
 
+using ::MobileRT::AABB;
+using ::MobileRT::BoundedLight;
+using ::MobileRT::Intersection;
 using ::MobileRT::Light;
+using ::MobileRT::LightSample;
 using ::MobileRT::Material;
 
 /**
@@ -17,3 +21,80 @@ Light::Light(Material radiance) :
  */
 Light::~Light() {
 }
+
+/**
+ * Samples a point in the light.
+ * <br>
+ * By default, the light is a single point, so the sample is its position and it has no probability density.
+ *
+ * @return The sampled point.
+ */
+LightSample Light::sample() {
+    return LightSample {getPosition(), ::glm::vec3 {}, this->radiance_.Le_, 0.0F};
+}
+
+/**
+ * Gets the probability density of sampling any point of the light with {@link Light#sample}, with respect to its
+ * area.
+ * <br>
+ * By default, the light is a single point, so it has no area.
+ *
+ * @return The probability density of sampling a point of the light.
+ */
+float Light::getAreaPdf() const {
+    return 0.0F;
+}
+
+/**
+ * Whether the light has a shape which can be intersected by the rays, so it can be put in an acceleration structure.
+ *
+ * @return Whether the light is bounded.
+ */
+bool Light::isBounded() const {
+    return false;
+}
+
+/**
+ * Calculates the bounding box of the light.
+ * The lights which are not bounded return an empty box.
+ *
+ * @return The bounding box of the light.
+ */
+AABB Light::getAABB() const {
+    return AABB {};
+}
+
+/**
+ * The constructor.
+ *
+ * @param light The bounded light to reference.
+ * @param index The index of the light in the scene.
+ */
+BoundedLight::BoundedLight(Light *const light, const ::std::int32_t index) :
+    light_ {light},
+    index_ {index} {
+}
+
+/**
+ * Determines if a ray intersects the referenced light or not and calculates the intersection point.
+ *
+ * @param intersection The previous intersection of the ray in the scene.
+ * @return The intersection point.
+ */
+Intersection BoundedLight::intersect(Intersection intersection) const {
+    const float lastDist {intersection.length_};
+    intersection = this->light_->intersect(::std::move(intersection));
+    if (intersection.length_ < lastDist) {
+        intersection.lightIndex_ = this->index_;
+    }
+    return intersection;
+}
+
+/**
+ * Calculates the bounding box of the referenced light.
+ *
+ * @return The bounding box of the light.
+ */
+AABB BoundedLight::getAABB() const {
+    return this->light_->getAABB();
+}
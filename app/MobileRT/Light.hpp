@@ -1,11 +1,31 @@
 #ifndef MOBILERT_LIGHT_HPP
 #define MOBILERT_LIGHT_HPP
 
+#include "MobileRT/Accelerators/AABB.hpp"
 #include "MobileRT/Intersection.hpp"
 #include "MobileRT/Ray.hpp"
 #include <glm/glm.hpp>
 
 namespace MobileRT {
+    /**
+     * A point sampled in a light, used to estimate the direct lighting of the points in the scene.
+     */
+    struct LightSample {
+        ::glm::vec3 position_ {};
+
+        /**
+         * The normal of the light at the sampled point, or zero if the light has no surface.
+         */
+        ::glm::vec3 normal_ {};
+        ::glm::vec3 radiance_ {};
+
+        /**
+         * The probability density of sampling the point with respect to the area of the light, or 0 if the light is a
+         * single point (so it can only be sampled and never intersected by the rays).
+         */
+        float pdf_ {};
+    };
+
     /**
      * A class which represents a light in the scene.
      * <br>
@@ -49,6 +69,55 @@ namespace MobileRT {
          * @return The intersection point.
          */
         virtual Intersection intersect(Intersection &&intersection) = 0;
+
+        /**
+         * Gets the power emitted by the light, used to choose the lights proportionally to their contribution.
+         *
+         * @return The power emitted by the light.
+         */
+        virtual float getPower() const = 0;
+
+        virtual LightSample sample();
+
+        virtual float getAreaPdf() const;
+
+        virtual bool isBounded() const;
+
+        virtual AABB getAABB() const;
+    };
+
+    /**
+     * A class which references a bounded light of the scene, so the lights can be put in an acceleration structure.
+     * The light itself is not copied, so it must outlive this reference.
+     * The intersections with the light record its index, so the shaders know which light was intersected.
+     */
+    class BoundedLight final {
+    private:
+        Light *light_ {nullptr};
+
+        /**
+         * The index of the light in the scene.
+         */
+        ::std::int32_t index_ {-1};
+
+    public:
+        explicit BoundedLight () = delete;
+
+        explicit BoundedLight(Light *light, ::std::int32_t index);
+
+        BoundedLight(const BoundedLight &boundedLight) = default;
+
+        BoundedLight(BoundedLight &&boundedLight) noexcept = default;
+
+        ~BoundedLight() = default;
+
+        BoundedLight &operator=(const BoundedLight &boundedLight) = default;
+
+        BoundedLight &operator=(BoundedLight &&boundedLight) noexcept = default;
+
+        Intersection intersect(Intersection intersection) const;
+
+        AABB getAABB() const;
     };
 }//namespace MobileRT
 
@@ -2,41 +2,103 @@
 
 #include "MobileRT/Utils/Utils.hpp"
 
+#include <algorithm>
 #include <atomic>
+#include <mutex>
+#include <vector>
 
 using ::MobileRT::Ray;
 
 namespace {
 
+    /**
+     * The counter of the casted rays of a thread.
+     * <br>
+     * Only its thread writes into it, so it doesn't need an atomic increment, and it is aligned to a cache line so
+     * the counters of different threads don't share a cache line.
+     * It is registered in {@link counters} while the thread is alive, so all the counters can be aggregated.
+     */
+    struct alignas(64) RayCounter {
+        ::std::atomic<::std::uint64_t> castedRays_ {};
+
+        explicit RayCounter();
+
+        RayCounter(const RayCounter &rayCounter) = delete;
+
+        RayCounter(RayCounter &&rayCounter) noexcept = delete;
+
+        ~RayCounter();
+
+        RayCounter &operator=(const RayCounter &rayCounter) = delete;
+
+        RayCounter &operator=(RayCounter &&rayCounter) noexcept = delete;
+    };
+
+    /**
+     * The mutex which protects the registered counters.
+     */
+    ::std::mutex countersMutex {};
+
+    /**
+     * The counters of the casted rays of all the alive threads.
+     */
+    ::std::vector<const RayCounter *> counters {};
+
+    /**
+     * The number of casted rays by the threads which already finished.
+     */
+    ::std::uint64_t finishedCastedRays {};
+
+    /**
+     * The number of casted rays when the counters were reset.
+     */
+    ::std::uint64_t castedRaysOffset {};
+
     /**
      * An atomic counter to generate Ray ids.
+     * It is only used when an id is requested, e.g. for debugging.
      */
-    ::std::atomic<::std::uint64_t> counter {};
+    ::std::atomic<::std::uint64_t> idCounter {};
 
     /**
-     * A helper method that resets the Ray id generator counter.
+     * The constructor, which registers the counter.
      */
-    void resetIdCounter() {
-        counter.store(0L, ::std::memory_order_relaxed);
+    RayCounter::RayCounter() {
+        const ::std::lock_guard<::std::mutex> lock {countersMutex};
+        counters.emplace_back(this);
     }
 
     /**
-     * A helper method that generates an id by using a counter.
-     *
-     * @return The new value of the counter.
+     * The destructor, which unregisters the counter and keeps its casted rays.
      */
-    ::std::uint64_t generateId() {
-        const ::std::uint64_t currentId {counter.fetch_add(1L, ::std::memory_order_relaxed)};
-        return currentId;
+    RayCounter::~RayCounter() {
+        const ::std::lock_guard<::std::mutex> lock {countersMutex};
+        finishedCastedRays += this->castedRays_.load(::std::memory_order_relaxed);
+        counters.erase(::std::remove(counters.begin(), counters.end(), this), counters.end());
     }
 
     /**
-     * Helper method that gets the current id generated.
+     * A helper method that increments the casted rays counter of the current thread.
+     */
+    void countCastedRay() {
+        thread_local static RayCounter rayCounter {};
+        const ::std::uint64_t castedRays {rayCounter.castedRays_.load(::std::memory_order_relaxed)};
+        rayCounter.castedRays_.store(castedRays + 1, ::std::memory_order_relaxed);
+    }
+
+    /**
+     * Helper method that sums the casted rays of all the threads.
+     * <br>
+     * The {@link countersMutex} must be locked.
      *
-     * @return The current value of the counter.
+     * @return The total number of casted rays.
      */
-    ::std::uint64_t getCurrentId() {
-        return counter.load(::std::memory_order_relaxed);
+    ::std::uint64_t sumCastedRays() {
+        ::std::uint64_t castedRays {finishedCastedRays};
+        for (const RayCounter *const rayCounter : counters) {
+            castedRays += rayCounter->castedRays_.load(::std::memory_order_relaxed);
+        }
+        return castedRays;
     }
 }//namespace
 
@@ -57,10 +119,10 @@ Ray::Ray(const ::glm::vec3 &dir,
     origin_ {origin},
     direction_ {dir},
     depth_ {depth},
-    id_ {generateId()},
     primitive_ {primitive},
     shadowTrace_ {shadowTrace} {
     checkArguments();
+    countCastedRay();
 }
 
 /**
@@ -74,19 +136,42 @@ void Ray::checkArguments() const {
 }
 
 /**
- * Helper method that gets the number of casted rays in the scene.
+ * Helper method that gets the number of casted rays in the scene since the last reset, by summing the counters of
+ * all the threads.
  *
  * @return The number of casted rays.
  */
-::std::uint64_t Ray::getNumberOfCastedRays() noexcept {
-    return getCurrentId();
+::std::uint64_t Ray::getNumberOfCastedRays() {
+    const ::std::lock_guard<::std::mutex> lock {countersMutex};
+    return sumCastedRays() - castedRaysOffset;
+}
+
+/**
+ * A helper method that resets the number of casted rays.
+ */
+void Ray::resetCastedRays() {
+    const ::std::lock_guard<::std::mutex> lock {countersMutex};
+    castedRaysOffset = sumCastedRays();
+}
+
+/**
+ * A helper method that generates a new Ray id.
+ * <br>
+ * The rays don't have an id by default, so they don't need to share an atomic counter. This should only be used
+ * when an id is really needed, e.g. for debugging.
+ *
+ * @return The new id.
+ */
+::std::uint64_t Ray::generateId() noexcept {
+    const ::std::uint64_t currentId {idCounter.fetch_add(1L, ::std::memory_order_relaxed)};
+    return currentId;
 }
 
 /**
  * A helper method that resets the Ray id generator counter.
  */
 void Ray::resetIdGenerator() noexcept {
-    resetIdCounter();
+    idCounter.store(0L, ::std::memory_order_relaxed);
 }
 
 Ray& Ray::operator=(Ray &&ray) noexcept {
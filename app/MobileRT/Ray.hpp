@@ -29,6 +29,8 @@ namespace MobileRT {
 
         /**
          * The identifier of the ray.
+         * <br>
+         * It is only set when requested with {@link Ray#generateId}, e.g. for debugging.
          */
         ::std::uint64_t id_ {0L};
 
@@ -65,7 +67,11 @@ namespace MobileRT {
 
         Ray &operator=(Ray &&ray) noexcept;
 
-        static ::std::uint64_t getNumberOfCastedRays() noexcept;
+        static ::std::uint64_t getNumberOfCastedRays();
+
+        static void resetCastedRays();
+
+        static ::std::uint64_t generateId() noexcept;
 
         static void resetIdGenerator() noexcept;
     };
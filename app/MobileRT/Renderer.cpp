@@ -1,16 +1,83 @@
 #include "MobileRT/Renderer.hpp"
 #include "MobileRT/Utils/Utils.hpp"
+#include <numeric>
+#include <random>
 #include <thread>
 #include <vector>
 
 using ::MobileRT::Renderer;
-using ::MobileRT::NumberOfTiles;
 using ::MobileRT::Shader;
 using ::MobileRT::Camera;
 using ::MobileRT::Sampler;
+using ::MobileRT::ThreadPool;
 
 namespace {
-    ::std::array<float, NumberOfTiles> randomSequence {};
+    /**
+     * The bias added to the luminance of a pixel when calculating its relative error, so the dark pixels don't need
+     * a huge number of samples to converge.
+     */
+    const float ErrorBias {1.0e-2F};
+
+    /**
+     * The seed used to shuffle the tiles, so they are always rendered in the same order.
+     */
+    const ::std::uint32_t TileOrderSeed {0x9E3779B9U};
+
+    /**
+     * Helper method which gets the current time in milliseconds.
+     *
+     * @return The current time in milliseconds.
+     */
+    ::std::int64_t getCurrentTime() {
+        const ::std::chrono::steady_clock::duration time {::std::chrono::steady_clock::now().time_since_epoch()};
+        return ::std::chrono::duration_cast<::std::chrono::milliseconds> (time).count();
+    }
+
+    /**
+     * Helper method which shuffles the indices of the tiles, so the tiles are rendered in a random order and the
+     * whole image gets rendered progressively.
+     *
+     * @param numTiles The number of tiles in the image.
+     * @return The indices of the tiles in the order that they should be rendered.
+     */
+    ::std::vector<::std::int32_t> getTileOrder(const ::std::int32_t numTiles) {
+        ::std::vector<::std::int32_t> tileOrder (static_cast<::std::uint32_t> (numTiles));
+        ::std::iota(tileOrder.begin(), tileOrder.end(), 0);
+        ::std::mt19937 generator {TileOrderSeed};
+        ::std::shuffle(tileOrder.begin(), tileOrder.end(), generator);
+        return tileOrder;
+    }
+
+    /**
+     * Helper method which calculates the offsets of the pixels inside a tile in Z-order (Morton order).
+     * <br>
+     * The Morton codes are decoded on a square with a power of 2 size that contains the tile, and the pixels outside
+     * of the tile are discarded.
+     *
+     * @param tileWidth  The width of the tile.
+     * @param tileHeight The height of the tile.
+     * @return The offsets (y * tileWidth + x) of the pixels inside a tile.
+     */
+    ::std::vector<::std::int32_t> getTilePixels(const ::std::int32_t tileWidth, const ::std::int32_t tileHeight) {
+        ::std::int32_t bits {};
+        while ((1 << bits) < ::std::max(tileWidth, tileHeight)) {
+            ++bits;
+        }
+        ::std::vector<::std::int32_t> tilePixels {};
+        tilePixels.reserve(static_cast<::std::uint32_t> (tileWidth * tileHeight));
+        for (::std::int32_t code {}; code < (1 << (2 * bits)); ++code) {
+            ::std::int32_t x {};
+            ::std::int32_t y {};
+            for (::std::int32_t bit {}; bit < bits; ++bit) {
+                x |= ((code >> (2 * bit)) & 1) << bit;
+                y |= ((code >> (2 * bit + 1)) & 1) << bit;
+            }
+            if (x < tileWidth && y < tileHeight) {
+                tilePixels.emplace_back(y * tileWidth + x);
+            }
+        }
+        return tilePixels;
+    }
 }//namespace
 
 /**
@@ -22,26 +89,32 @@ namespace {
  * @param width        The width of the image to render.
  * @param height       The height of the image to render.
  * @param samplesPixel The number of samples per pixel.
+ * @param tileWidth    The width of the tiles which divide the image.
+ * @param tileHeight   The height of the tiles which divide the image.
  */
 Renderer::Renderer(::std::unique_ptr<Shader> shader,
                    ::std::unique_ptr<Camera> camera,
                    ::std::unique_ptr<Sampler> samplerPixel,
                    const ::std::int32_t width, const ::std::int32_t height,
-                   const ::std::int32_t samplesPixel) :
+                   const ::std::int32_t samplesPixel,
+                   const ::std::int32_t tileWidth, const ::std::int32_t tileHeight) :
         camera_ {::std::move(camera)},
         shader_ {::std::move(shader)},
         samplerPixel_ {::std::move(samplerPixel)},
-        blockSizeX_ {width / static_cast<::std::int32_t> (::std::sqrt(NumberOfTiles))},
-        blockSizeY_ {height / static_cast<::std::int32_t> (::std::sqrt(NumberOfTiles))},
         sample_ {},
         width_ {width},
         height_ {height},
-        domainSize_ {(width / blockSizeX_) * (height / blockSizeY_)},
         resolution_ {width * height},
-        samplesPixel_ {samplesPixel} {
+        tileWidth_ {::std::max(1, ::std::min(tileWidth, width))},
+        tileHeight_ {::std::max(1, ::std::min(tileHeight, height))},
+        numTilesX_ {(width + tileWidth_ - 1) / tileWidth_},
+        numTiles_ {numTilesX_ * ((height + tileHeight_ - 1) / tileHeight_)},
+        samplesPixel_ {samplesPixel},
+        tileOrder_ {getTileOrder(numTiles_)},
+        tilePixels_ {getTilePixels(tileWidth_, tileHeight_)} {
     LOG_DEBUG("Renderer constructor called.");
-    fillArrayWithHaltonSeq(&randomSequence);
-    Ray::resetIdGenerator();
+    LOG_INFO("Tiles = ", this->numTiles_, " (", this->tileWidth_, "x", this->tileHeight_, ")");
+    Ray::resetCastedRays();
     LOG_DEBUG("Renderer constructor finished.");
 }
 
@@ -55,118 +128,356 @@ void Renderer::renderFrame(::std::int32_t *const bitmap, const ::std::int32_t nu
     LOG_INFO("numThreads = ", numThreads);
     LOG_INFO("Resolution = ", this->width_, "x", this->height_);
 
+    startAccumulation();
+    renderSamples(bitmap, numThreads, getMaxSamples());
+    resolve(bitmap);
+    LOG_DEBUG("bitmap: ", bitmap, this->width_ * this->height_);
+
+    LOG_DEBUG("FINISH");
+}
+
+/**
+ * Starts the progressive rendering process of the scene into a bitmap.
+ * <br>
+ * The scene is rendered in passes of one sample per pixel, and the accumulated image is resolved into the bitmap
+ * after each pass, so a preview is available right after the first pass.
+ * The rendering continues until the number of samples per pixel of the renderer is reached, the time limit expires,
+ * the noise of the image is below the threshold or the rendering is stopped.
+ * With the adaptive sampling, the pixels which are still noisy keep being sampled after the samples per pixel of the
+ * renderer, until all of them converge or the maximum number of samples (see {@link Renderer#getMaxSamples}) is
+ * reached.
+ *
+ * @param bitmap         The bitmap where the rendered scene should be put.
+ * @param numThreads     The number of threads to use during the rendering process.
+ * @param timeLimit      The maximum time in milliseconds to render the scene (0 means no limit).
+ * @param noiseThreshold The noise of the image (see {@link Renderer#getNoise}) to stop rendering (0 means no limit).
+ * @return The number of samples per pixel rendered.
+ */
+::std::int32_t Renderer::renderProgressive(::std::int32_t *const bitmap, const ::std::int32_t numThreads,
+                                           const ::std::int64_t timeLimit, const float noiseThreshold) {
+    LOG_INFO("numThreads = ", numThreads);
+    LOG_INFO("Resolution = ", this->width_, "x", this->height_);
+    LOG_INFO("timeLimit = ", timeLimit, "ms, noiseThreshold = ", noiseThreshold);
+
+    const ::std::int64_t startTime {getCurrentTime()};
+    startAccumulation();
+    while (this->firstSample_ < getMaxSamples()) {
+        renderSamples(bitmap, numThreads, 1);
+        resolve(bitmap);
+        if (this->renderedPixels_.load(::std::memory_order_relaxed) == 0) {
+            LOG_INFO("All pixels converged with ", this->firstSample_, " samples per pixel");
+            break;
+        }
+        if (timeLimit > 0 && getCurrentTime() - startTime >= timeLimit) {
+            LOG_INFO("Time limit reached with ", this->firstSample_, " samples per pixel");
+            break;
+        }
+        if (noiseThreshold > 0.0F && getNoise() <= noiseThreshold) {
+            LOG_INFO("Noise threshold reached with ", this->firstSample_, " samples per pixel");
+            break;
+        }
+    }
+
+    LOG_DEBUG("FINISH");
+    return this->firstSample_;
+}
+
+/**
+ * Helper method which resets the accumulated samples, so a new image starts being rendered.
+ */
+void Renderer::startAccumulation() {
     this->sample_ = 0;
+    this->firstSample_ = 0;
     this->samplerPixel_->resetSampling();
     this->shader_->resetSampling();
-    this->block_ = 0;
+    this->accumulation_.assign(static_cast<::std::uint32_t> (this->resolution_), ::glm::vec3 {});
+    this->accumulationSquared_.assign(static_cast<::std::uint32_t> (this->resolution_), 0.0F);
+    this->pixelSamples_.assign(static_cast<::std::uint32_t> (this->resolution_), 0);
+    this->lastResolve_ = getCurrentTime();
+}
 
+/**
+ * Helper method which renders some samples per pixel of the scene with all the threads and accumulates them.
+ * <br>
+ * Each sample is rendered in a pass of its own, and all the threads finish a pass before the next one starts. This
+ * way, each tile is only rendered by one thread at a time, so the accumulation buffers of its pixels don't need to be
+ * synchronized, and the bitmap can be resolved between passes.
+ *
+ * @param bitmap     The bitmap where the rendered scene should be put.
+ * @param numThreads The number of threads to use during the rendering process.
+ * @param numSamples The number of samples per pixel to render.
+ */
+void Renderer::renderSamples(::std::int32_t *const bitmap, const ::std::int32_t numThreads,
+                             const ::std::int32_t numSamples) {
     const ::std::int32_t numChildren {numThreads - 1};
-    ::std::vector<::std::thread> threads {};
-
-    MobileRT::checkSystemError("Reserving capacity for render threads");
-    threads.reserve(static_cast<::std::uint32_t> (numChildren));
-    MobileRT::checkSystemError("Reserved capacity for render threads");
-
-    MobileRT::checkSystemError("Creating render threads");
-    for (::std::int32_t i {}; i < numChildren; ++i) {
-        threads.emplace_back(&Renderer::renderScene, this, bitmap, i);
+    if (this->threadPool_ == nullptr || this->threadPool_->getNumWorkers() != numChildren) {
+        MobileRT::checkSystemError("Creating render threads");
+        this->threadPool_ = ::MobileRT::std::make_unique<ThreadPool>(numChildren);
+        MobileRT::checkSystemError("Created render threads");
     }
-    MobileRT::checkSystemError("Created render threads");
-    renderScene(bitmap, numChildren);
-    MobileRT::checkSystemError("Rendered scene");
-    for (::std::thread &thread : threads) {
-        thread.join();
-    }
-    MobileRT::checkSystemError("All render threads finished");
-    threads.clear();
-    MobileRT::checkSystemError("Deleted render threads");
-    LOG_DEBUG("bitmap: ", bitmap, this->width_ * this->height_);
 
-    LOG_DEBUG("FINISH");
+    ::std::int32_t sample {};
+    for (; sample < numSamples; ++sample) {
+        const ::std::uint32_t currentSample {static_cast<::std::uint32_t> (this->firstSample_ + sample)};
+        this->renderedPixels_ = 0;
+        this->block_ = 0;
+        if (this->samplesPixel_ <= 0) {
+            // The rendering was stopped, maybe while the tiles were being reset, so the pass must not start.
+            break;
+        }
+        this->threadPool_->submit([this, currentSample](const ::std::int32_t tid) {
+            renderScene(tid, currentSample);
+        });
+        renderScene(numChildren, currentSample);
+        MobileRT::checkSystemError("Rendered scene");
+        this->threadPool_->wait();
+        MobileRT::checkSystemError("All render threads finished");
+        if (this->samplesPixel_ <= 0) {
+            // The rendering was stopped during the pass, so some tiles didn't get this sample.
+            break;
+        }
+        if (this->renderedPixels_.load(::std::memory_order_relaxed) == 0) {
+            // All the pixels already converged, so no pixel got this sample.
+            break;
+        }
+        this->sample_ = static_cast<::std::int32_t> (currentSample) + 1;
+        LOG_DEBUG("Sample = ", this->sample_);
+        resolveIfDue(bitmap);
+    }
+    this->firstSample_ += sample;
 }
 
 /**
  * Stops the rendering process.
  */
 void Renderer::stopRender() {
-    this->blockSizeX_ = 0;
-    this->blockSizeY_ = 0;
-    this->block_.store(::std::numeric_limits<::std::int32_t>::max() - NumberOfTiles, ::std::memory_order_relaxed);
     this->samplesPixel_ = 0;
+    this->block_.store(::std::numeric_limits<::std::int32_t>::max() - this->numTiles_);
     this->samplerPixel_->stopSampling();
 }
 
 /**
- * Helper method which a thread renders the scene into the bitmap.
+ * Helper method which a thread renders one sample per pixel of the tiles that it gets from {@link Renderer#getTile}.
  *
- * @param bitmap The bitmap where the rendered scene should be put.
  * @param tid    The thread id.
+ * @param sample The index of the sample per pixel to render.
  */
-void Renderer::renderScene(::std::int32_t *const bitmap, const ::std::int32_t tid) {
+void Renderer::renderScene(const ::std::int32_t tid, const ::std::uint32_t sample) {
     const float invImgWidth {1.0F / this->width_};
     const float invImgHeight {1.0F / this->height_};
     const float pixelWidth {0.5F / this->width_};
     const float pixelHeight {0.5F / this->height_};
-    ::glm::vec3 pixelRgb {};
-    LOG_INFO("(tid: ", tid, ") spp: ", this->samplesPixel_, " renderScene");
+    // The primary rays of a tile are generated in packets of consecutive pixels (in Z-order) and traced together.
+    Camera::PacketSamples samples {};
+    ::std::vector<Ray> rays {};
+    ::std::vector<::std::uint32_t> rayPixels {};
+    rays.reserve(this->tilePixels_.size());
+    rayPixels.reserve(this->tilePixels_.size());
+    LOG_DEBUG("(tid: ", tid, ") spp: ", this->samplesPixel_, " renderScene");
     const ::std::string currentTidStr {::std::string("renderScene (" + ::std::to_string(tid) + ")")};
     MobileRT::checkSystemError((currentTidStr + " start").c_str());
 
-    for (::std::int32_t sample {}; sample < this->samplesPixel_; ++sample) {
-        LOG_DEBUG("(tid: ", tid, ") renderScene sample: ", sample);
-        while (true) {
-            const float tile {getTile(sample)};
-            LOG_DEBUG("(tid: ", tid, ") Will get tile: ", tile,", bx=", this->blockSizeX_, ", by=", this->blockSizeY_, ", spp=", sample, " (total: ", this->samplesPixel_, ")");
-            if (tile >= 1.0F) {
-                break;
+    while (true) {
+        const ::std::int32_t tile {getTile()};
+        if (tile < 0) {
+            break;
+        }
+        const ::std::int32_t startX {(tile % this->numTilesX_) * this->tileWidth_};
+        const ::std::int32_t startY {(tile / this->numTilesX_) * this->tileHeight_};
+        LOG_DEBUG("(tid: ", tid, ") Will render a tile. tile: '", tile, "', startX: '", startX, "', startY: '", startY, "'");
+        rays.clear();
+        rayPixels.clear();
+        for (const ::std::int32_t offset : this->tilePixels_) {
+            const ::std::int32_t x {startX + offset % this->tileWidth_};
+            const ::std::int32_t y {startY + offset / this->tileWidth_};
+            if (x >= this->width_ || y >= this->height_) {
+                // The tiles in the right and bottom edges can be partially outside of the image.
+                continue;
+            }
+            const ::std::uint32_t pixelIndex {static_cast<::std::uint32_t> (y * this->width_ + x)};
+            if (isPixelConverged(pixelIndex)) {
+                // Adaptive sampling: the samples are only spent in the pixels which are still noisy.
+                continue;
             }
-            const ::std::int32_t roundBlock {static_cast<::std::int32_t> (::roundf(tile * this->domainSize_))};
-            const ::std::int32_t pixel {roundBlock * this->blockSizeX_ % this->resolution_};
-            const ::std::int32_t startY {((pixel / this->width_) * this->blockSizeY_) % this->height_};
-            const ::std::int32_t endY {startY + this->blockSizeY_};
-            LOG_DEBUG("(tid: ", tid, ") Will render a tile. roundBlock: '", roundBlock, "', pixel: '", pixel, "', startY: '", startY, "', endY: '", endY, "'");
-            for (::std::int32_t y {startY}; y < endY; ++y) {
-                const float v {y * invImgHeight};
-                const ::std::int32_t yWidth {y * this->width_};
-                const ::std::int32_t startX {(pixel + yWidth) % this->width_};
-                const ::std::int32_t endX {startX + this->blockSizeX_};
-                for (::std::int32_t x {startX}; x < endX; ++x) {
-                    const float u {x * invImgWidth};
-                    const float r1 {this->samplerPixel_->getSample()};
-                    const float r2 {this->samplerPixel_->getSample()};
-                    const float deviationU {(r1 - 0.5F) * 2.0F * pixelWidth};
-                    const float deviationV {(r2 - 0.5F) * 2.0F * pixelHeight};
-                    Ray &&ray {this->camera_->generateRay(u, v, deviationU, deviationV)};
-                    pixelRgb = {};
-                    /*LOG_DEBUG(
-                        "(tid: ", tid, ") u: ", u, ", v: ", v,
-                        ", deviationU: ", deviationU, ", deviationV: ", deviationV,
-                        ", rayId: ", ray.id_, ", depth: ", ray.depth_, ", origin: ", ray.origin_.length(), ", direction: ", ray.direction_.length()
-                    );*/
-                    this->shader_->rayTrace(&pixelRgb, ::std::move(ray));
-                    const ::std::int32_t pixelIndex {yWidth + x};
-                    ::std::int32_t *bitmapPixel {&bitmap[pixelIndex]};
-                    const ::std::int32_t pixelColor {::MobileRT::incrementalAvg(pixelRgb, *bitmapPixel, sample + 1)};
-                    /*LOG_DEBUG(
-                        "(tid: ", tid, ") pixelIndex: ", pixelIndex,
-                        ", bitmapPixel: ", *bitmapPixel,
-                        ", pixelColor: ", pixelColor
-                    );*/
-                    *bitmapPixel = pixelColor;
-                }
+            const ::std::uint32_t ray {static_cast<::std::uint32_t> (samples.numRays_)};
+            const float r1 {this->samplerPixel_->getPixelSample(pixelIndex, sample, 0)};
+            const float r2 {this->samplerPixel_->getPixelSample(pixelIndex, sample, 1)};
+            samples.u_[ray] = x * invImgWidth;
+            samples.v_[ray] = y * invImgHeight;
+            samples.deviationU_[ray] = (r1 - 0.5F) * 2.0F * pixelWidth;
+            samples.deviationV_[ray] = (r2 - 0.5F) * 2.0F * pixelHeight;
+            rayPixels.emplace_back(pixelIndex);
+            ++samples.numRays_;
+            if (samples.numRays_ == RayPacketSize) {
+                this->camera_->generateRays(samples, &rays);
+                samples.numRays_ = 0;
             }
-            LOG_DEBUG("(tid: ", tid, ") Tile rendered");
         }
-        if (tid == 0) {
-            this->sample_ = sample + 1;
-            LOG_DEBUG("(tid: ", tid, ") Sample = ", this->sample_);
+        if (samples.numRays_ > 0) {
+            this->camera_->generateRays(samples, &rays);
+            samples.numRays_ = 0;
         }
-        LOG_DEBUG("(tid: ", tid, ") renderScene sample: ", sample, " finished");
+        const ::std::int32_t renderedPixels {static_cast<::std::int32_t> (rayPixels.size())};
+        renderBatch(rayPixels, &rays);
+        this->renderedPixels_.fetch_add(renderedPixels, ::std::memory_order_relaxed);
+        LOG_DEBUG("(tid: ", tid, ") Tile rendered");
     }
-    LOG_INFO("(tid: ", tid, ") renderScene finished");
+    LOG_DEBUG("(tid: ", tid, ") renderScene finished");
     MobileRT::checkSystemError((currentTidStr + " end").c_str());
 }
 
+/**
+ * Helper method which traces a batch of primary rays and accumulates their colors in the respective pixels.
+ *
+ * @param rayPixels The indices of the pixels of the rays.
+ * @param rays      The primary rays.
+ */
+void Renderer::renderBatch(const ::std::vector<::std::uint32_t> &rayPixels, ::std::vector<Ray> *const rays) {
+    thread_local ::std::vector<::glm::vec3> rgbs {};
+    rgbs.assign(rays->size(), ::glm::vec3 {});
+    this->shader_->rayTraceBatch(rgbs.data(), rays);
+    for (::std::uint32_t ray {}; ray < static_cast<::std::uint32_t> (rayPixels.size()); ++ray) {
+        const ::std::uint32_t pixelIndex {rayPixels[ray]};
+        const ::glm::vec3 &pixelRgb {rgbs[ray]};
+        const float luminance {::MobileRT::toLuminance(pixelRgb)};
+        this->accumulation_[pixelIndex] += pixelRgb;
+        this->accumulationSquared_[pixelIndex] += luminance * luminance;
+        ++this->pixelSamples_[pixelIndex];
+    }
+}
+
+/**
+ * Resolves the accumulated colors into the bitmap, by averaging the samples of each pixel and converting the result
+ * into the ARGB format.
+ *
+ * @param bitmap The bitmap where the rendered scene should be put.
+ */
+void Renderer::resolve(::std::int32_t *const bitmap) const {
+    for (::std::uint32_t i {}; i < static_cast<::std::uint32_t> (this->resolution_); ++i) {
+        const ::std::int32_t numSamples {this->pixelSamples_[i]};
+        if (numSamples > 0) {
+            bitmap[i] = ::MobileRT::toArgb(this->accumulation_[i] / static_cast<float> (numSamples));
+        }
+    }
+}
+
+/**
+ * Helper method which resolves the accumulated colors into the bitmap if the resolve interval already elapsed since
+ * the last resolve, so the image being rendered can be shown.
+ * It must only be called between passes, when no thread is accumulating samples, so the bitmap is only updated
+ * after the first pass finishes, even if that pass takes longer than the resolve interval.
+ *
+ * @param bitmap The bitmap where the rendered scene should be put.
+ */
+void Renderer::resolveIfDue(::std::int32_t *const bitmap) {
+    const ::std::int64_t currentTime {getCurrentTime()};
+    if (currentTime - this->lastResolve_ < ::MobileRT::ResolveInterval) {
+        return;
+    }
+    this->lastResolve_ = currentTime;
+    resolve(bitmap);
+}
+
+/**
+ * Helper method which estimates the relative error of the color of a pixel, i.e., the standard error of the mean of
+ * the luminance of its samples divided by that mean.
+ *
+ * @param pixel The index of the pixel.
+ * @return The relative error of the pixel or the maximum float value if it doesn't have enough samples.
+ */
+float Renderer::getPixelError(const ::std::uint32_t pixel) const {
+    const ::std::int32_t numSamples {this->pixelSamples_[pixel]};
+    if (numSamples < 2) {
+        return ::std::numeric_limits<float>::max();
+    }
+    const float samples {static_cast<float> (numSamples)};
+    const float mean {::MobileRT::toLuminance(this->accumulation_[pixel]) / samples};
+    const float meanSquares {this->accumulationSquared_[pixel] / samples};
+    const float variance {::std::max(0.0F, meanSquares - mean * mean) * samples / (samples - 1.0F)};
+    const float res {::std::sqrt(variance / samples) / (mean + ErrorBias)};
+    return res;
+}
+
+/**
+ * Helper method which checks whether a pixel already converged, i.e., its relative error is below the target error
+ * of the adaptive sampling.
+ * <br>
+ * A pixel needs at least {@link ::MobileRT::AdaptiveMinSamples} samples, so the estimate of its error is reliable.
+ *
+ * @param pixel The index of the pixel.
+ * @return Whether the pixel doesn't need more samples.
+ */
+bool Renderer::isPixelConverged(const ::std::uint32_t pixel) const {
+    if (this->targetError_ <= 0.0F || this->pixelSamples_[pixel] < ::MobileRT::AdaptiveMinSamples) {
+        return false;
+    }
+    const bool res {getPixelError(pixel) <= this->targetError_};
+    return res;
+}
+
+/**
+ * Helper method which gets the maximum number of samples per pixel to render.
+ * <br>
+ * Without the adaptive sampling, it is the number of samples per pixel of the renderer. With it, the pixels which
+ * are still noisy can get up to {@link ::MobileRT::AdaptiveMaxSamplesFactor} times that number of samples.
+ *
+ * @return The maximum number of samples per pixel.
+ */
+::std::int32_t Renderer::getMaxSamples() const {
+    if (this->targetError_ <= 0.0F) {
+        return this->samplesPixel_;
+    }
+    return this->samplesPixel_ * ::MobileRT::AdaptiveMaxSamplesFactor;
+}
+
+/**
+ * Sets the target relative error of each pixel for the adaptive sampling.
+ * <br>
+ * The pixels whose error is below the target error stop being sampled, while the noisy ones keep being sampled
+ * after the samples per pixel of the renderer, until they also converge or reach the maximum number of samples
+ * (see {@link Renderer#getMaxSamples}).
+ *
+ * @param targetError The target relative error of each pixel (0 disables the adaptive sampling).
+ */
+void Renderer::setTargetError(const float targetError) {
+    this->targetError_ = targetError;
+}
+
+/**
+ * Replaces the camera of the scene and restarts the accumulation of the samples, so the next frame is rendered from
+ * the new point of view.
+ * <br>
+ * The scene, the shader and its acceleration structures are kept, so only the camera needs to be created again.
+ * This must not be called while the scene is being rendered.
+ *
+ * @param camera The new camera.
+ */
+void Renderer::setCamera(::std::unique_ptr<Camera> camera) {
+    this->camera_ = ::std::move(camera);
+    startAccumulation();
+}
+
+/**
+ * Estimates the noise of the image being rendered, as the average of the relative errors of its pixels.
+ *
+ * @return The noise of the image or the maximum float value if the pixels don't have enough samples.
+ */
+float Renderer::getNoise() const {
+    if (this->pixelSamples_.empty()) {
+        return ::std::numeric_limits<float>::max();
+    }
+    double sumErrors {};
+    for (::std::uint32_t pixel {}; pixel < static_cast<::std::uint32_t> (this->pixelSamples_.size()); ++pixel) {
+        const float error {getPixelError(pixel)};
+        if (error == ::std::numeric_limits<float>::max()) {
+            return error;
+        }
+        sumErrors += static_cast<double> (error);
+    }
+    const float res {static_cast<float> (sumErrors / static_cast<double> (this->pixelSamples_.size()))};
+    return res;
+}
+
 /**
  * Gets the number of samples per pixel already rendered.
  *
@@ -177,21 +488,29 @@ void Renderer::renderScene(::std::int32_t *const bitmap, const ::std::int32_t ti
 }
 
 /**
- * Helper method which calculates a random value between 0 and 1.
+ * Helper method which gets the next tile to render in the current sample.
  * <br>
- * This method never repeats the calculated value for the same given sample.
+ * This method never repeats a tile in the same pass, so each tile is rendered by a single thread.
  *
- * @param sample The current sample of samples per pixel.
- * @return A random value between 0 and 1.
+ * @return The index of the tile to render or -1 if all the tiles of the sample were already rendered.
  */
-float Renderer::getTile(const ::std::int32_t sample) {
-    const ::std::int32_t selectedSample {this->block_.fetch_add(1, ::std::memory_order_relaxed) - NumberOfTiles * sample};
-    if (selectedSample >= NumberOfTiles) {
+::std::int32_t Renderer::getTile() {
+    const ::std::int32_t selectedTile {this->block_.fetch_add(1, ::std::memory_order_relaxed)};
+    if (selectedTile >= this->numTiles_) {
         this->block_.fetch_sub(1, ::std::memory_order_relaxed);
-        return 1.0F;
+        return -1;
     }
-    const auto itTile {randomSequence.cbegin() + selectedSample};
-    return *itTile;
+    return this->tileOrder_[static_cast<::std::uint32_t> (selectedTile)];
+}
+
+/**
+ * Gets the number of samples accumulated in a pixel.
+ *
+ * @param pixel The index of the pixel.
+ * @return The number of samples of the pixel.
+ */
+::std::int32_t Renderer::getPixelSamples(const ::std::uint32_t pixel) const {
+    return this->pixelSamples_[pixel];
 }
 
 /**
@@ -4,8 +4,10 @@
 #include "MobileRT/Camera.hpp"
 #include "MobileRT/Sampler.hpp"
 #include "MobileRT/Shader.hpp"
+#include "MobileRT/Utils/ThreadPool.hpp"
 #include <cmath>
 #include <thread>
+#include <vector>
 
 namespace MobileRT {
     /**
@@ -20,19 +22,77 @@ namespace MobileRT {
 
     private:
         ::std::unique_ptr<Sampler> samplerPixel_ {};
-        ::std::int32_t blockSizeX_ {};
-        ::std::int32_t blockSizeY_ {};
         ::std::int32_t sample_ {};
         const ::std::int32_t width_ {};
         const ::std::int32_t height_ {};
-        const ::std::int32_t domainSize_ {};
         const ::std::int32_t resolution_ {};
+        const ::std::int32_t tileWidth_ {};
+        const ::std::int32_t tileHeight_ {};
+        const ::std::int32_t numTilesX_ {};
+        const ::std::int32_t numTiles_ {};
         ::std::int32_t samplesPixel_ {};
+        ::std::int32_t firstSample_ {};
         ::std::atomic<::std::int32_t> block_ {};
 
+        /**
+         * The target relative error of each pixel for the adaptive sampling (0 if disabled).
+         */
+        float targetError_ {};
+
+        /**
+         * The number of pixels sampled in the current pass, which is zero when all of them already converged.
+         */
+        ::std::atomic<::std::int32_t> renderedPixels_ {};
+
+        /**
+         * The order in which the tiles are rendered in each sample.
+         * The tiles are shuffled so the whole image gets rendered progressively.
+         */
+        ::std::vector<::std::int32_t> tileOrder_ {};
+
+        /**
+         * The offsets (y * tileWidth + x) of the pixels inside a tile, in Z-order (Morton order), so consecutive
+         * rays traverse the same nodes of the acceleration structure.
+         */
+        ::std::vector<::std::int32_t> tilePixels_ {};
+
+        /**
+         * The worker threads which render the frames together with the thread which calls
+         * {@link Renderer#renderFrame}. They are kept between frames.
+         */
+        ::std::unique_ptr<ThreadPool> threadPool_ {};
+
+        /**
+         * The sum of the colors of all the samples of each pixel.
+         */
+        ::std::vector<::glm::vec3> accumulation_ {};
+
+        /**
+         * The sum of the squared luminances of all the samples of each pixel, used to estimate the error of the
+         * pixels.
+         */
+        ::std::vector<float> accumulationSquared_ {};
+
+        /**
+         * The number of samples accumulated in each pixel.
+         */
+        ::std::vector<::std::int32_t> pixelSamples_ {};
+
+        /**
+         * The time in milliseconds of the last resolve of the colors into the bitmap.
+         */
+        ::std::int64_t lastResolve_ {};
+
     private:
-        void renderScene(::std::int32_t *bitmap, ::std::int32_t tid);
-        float getTile(::std::int32_t sample);
+        void startAccumulation();
+        void renderSamples(::std::int32_t *bitmap, ::std::int32_t numThreads, ::std::int32_t numSamples);
+        void renderScene(::std::int32_t tid, ::std::uint32_t sample);
+        void renderBatch(const ::std::vector<::std::uint32_t> &rayPixels, ::std::vector<Ray> *rays);
+        float getPixelError(::std::uint32_t pixel) const;
+        bool isPixelConverged(::std::uint32_t pixel) const;
+        ::std::int32_t getMaxSamples() const;
+        void resolveIfDue(::std::int32_t *bitmap);
+        ::std::int32_t getTile();
 
     public:
         explicit Renderer () = delete;
@@ -41,7 +101,8 @@ namespace MobileRT {
                           ::std::unique_ptr<Camera> camera,
                           ::std::unique_ptr<Sampler> samplerPixel,
                           ::std::int32_t width, ::std::int32_t height,
-                          ::std::int32_t samplesPixel);
+                          ::std::int32_t samplesPixel,
+                          ::std::int32_t tileWidth = TileSize, ::std::int32_t tileHeight = TileSize);
 
         Renderer(const Renderer &renderer) = delete;
 
@@ -55,10 +116,23 @@ namespace MobileRT {
 
         void renderFrame(::std::int32_t *bitmap, ::std::int32_t numThreads);
 
+        ::std::int32_t renderProgressive(::std::int32_t *bitmap, ::std::int32_t numThreads,
+                                         ::std::int64_t timeLimit, float noiseThreshold);
+
         void stopRender();
 
+        void setTargetError(float targetError);
+
+        void setCamera(::std::unique_ptr<Camera> camera);
+
+        void resolve(::std::int32_t *bitmap) const;
+
         ::std::int32_t getSample() const;
 
+        ::std::int32_t getPixelSamples(::std::uint32_t pixel) const;
+
+        float getNoise() const;
+
         ::std::uint64_t getTotalCastedRays() const;
     };
 }//namespace MobileRT
@@ -1,9 +1,14 @@
 #include "MobileRT/Sampler.hpp"
+#include "MobileRT/Utils/Utils.hpp"
 
 #include <cmath>
 
 using ::MobileRT::Sampler;
 
+namespace {
+    const ::std::uint32_t tileSize {static_cast<::std::uint32_t> (::MobileRT::TileSize)};
+}//namespace
+
 /**
  * The constructor.
  *
@@ -13,8 +18,7 @@ using ::MobileRT::Sampler;
  */
 Sampler::Sampler(const ::std::uint32_t width, const ::std::uint32_t height,
                  const ::std::uint32_t samples) :
-    domainSize_ {(width / (width / static_cast<::std::uint32_t>(::std::sqrt(NumberOfTiles)))) *
-                (height / (width / static_cast<::std::uint32_t>(::std::sqrt(NumberOfTiles))))},
+    domainSize_ {((width + tileSize - 1) / tileSize) * ((height + tileSize - 1) / tileSize)},
     samples_ {samples} {
 }
 
@@ -46,3 +50,44 @@ void Sampler::stopSampling() {
 float Sampler::getSample() {
     return getSample(0);
 }
+
+/**
+ * Calculates the sample of a pixel.
+ * <br>
+ * By default, it just calculates a new sample, but the samplers can calculate it only from the indices received by
+ * parameter, so the threads don't share any state.
+ *
+ * @param pixel     The index of the pixel.
+ * @param sample    The index of the sample in the pixel.
+ * @param dimension The dimension of the sample (e.g.: 0 for the horizontal deviation and 1 for the vertical one).
+ * @return A random value between 0 and 1.
+ */
+float Sampler::getPixelSample(const ::std::uint32_t /*pixel*/, const ::std::uint32_t /*sample*/,
+                              const ::std::uint32_t /*dimension*/) {
+    return getSample();
+}
+
+/**
+ * Increments the sample counter of the current thread.
+ * <br>
+ * Each thread starts in a different position, so the threads don't use the same sequence of samples.
+ *
+ * @return The previous value of the sample counter of the current thread.
+ */
+::std::uint32_t Sampler::getThreadSample() {
+    thread_local static ::std::uint32_t sample {::MobileRT::getThreadSeed()};
+    return sample++;
+}
+
+/**
+ * Calculates a pseudo random index from the indices of a sample of a pixel.
+ *
+ * @param pixel     The index of the pixel.
+ * @param sample    The index of the sample in the pixel.
+ * @param dimension The dimension of the sample.
+ * @return A pseudo random index.
+ */
+::std::uint32_t Sampler::getPixelSampleIndex(const ::std::uint32_t pixel, const ::std::uint32_t sample,
+                                              const ::std::uint32_t dimension) {
+    return ::MobileRT::pcgHash(pixel + ::MobileRT::pcgHash(sample + ::MobileRT::pcgHash(dimension)));
+}
@@ -46,18 +46,46 @@ namespace MobileRT {
 
         float getSample();
 
+        virtual float getPixelSample(::std::uint32_t pixel, ::std::uint32_t sample, ::std::uint32_t dimension);
+
     protected:
+        static ::std::uint32_t getThreadSample();
+
+        static ::std::uint32_t getPixelSampleIndex(::std::uint32_t pixel, ::std::uint32_t sample,
+                                                   ::std::uint32_t dimension);
+
         /**
-         * An auxiliary method that increments the sample counter and gets the
+         * An auxiliary method that increments the sample counter of the current thread and gets the
          * current sample from an array received via parameters.
+         * <br>
+         * The counter is thread local, so the threads don't share any state.
          *
          * @tparam S The size of the array.
          * @param values The array to read the current sample.
          * @return The value in the array corresponding to the current sample.
          */
         template <const ::std::size_t S>
-        float getSampleFromArray(const ::std::array<float, S> &values) {
-            const ::std::uint32_t selectedSample {this->sample_.fetch_add(1, ::std::memory_order_relaxed)};
+        static float getSampleFromArray(const ::std::array<float, S> &values) {
+            const ::std::uint32_t selectedSample {getThreadSample()};
+            const auto itSample {values.cbegin() + (selectedSample & ::MobileRT::ArrayMask)};
+            return *itSample;
+        }
+
+        /**
+         * An auxiliary method that gets the sample of a pixel from an array received via parameters, without any
+         * state.
+         *
+         * @tparam S The size of the array.
+         * @param values    The array to read the sample.
+         * @param pixel     The index of the pixel.
+         * @param sample    The index of the sample in the pixel.
+         * @param dimension The dimension of the sample.
+         * @return The value in the array corresponding to the sample.
+         */
+        template <const ::std::size_t S>
+        static float getPixelSampleFromArray(const ::std::array<float, S> &values, const ::std::uint32_t pixel,
+                                             const ::std::uint32_t sample, const ::std::uint32_t dimension) {
+            const ::std::uint32_t selectedSample {getPixelSampleIndex(pixel, sample, dimension)};
             const auto itSample {values.cbegin() + (selectedSample & ::MobileRT::ArrayMask)};
             return *itSample;
         }
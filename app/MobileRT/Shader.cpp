@@ -1,5 +1,6 @@
 #include "MobileRT/Shader.hpp"
 #include "MobileRT/Utils/Utils.hpp"
+#include <algorithm>
 #include <array>
 #include <glm/glm.hpp>
 #include <glm/gtc/constants.hpp>
@@ -7,15 +8,21 @@
 #include <utility>
 
 using ::MobileRT::BVH;
+using ::MobileRT::BVH4;
 using ::MobileRT::RegularGrid;
 using ::MobileRT::Naive;
 using ::MobileRT::Intersection;
 using ::MobileRT::Ray;
 using ::MobileRT::Shader;
 using ::MobileRT::Plane;
+using ::MobileRT::Primitive;
 using ::MobileRT::Sphere;
 using ::MobileRT::Triangle;
 using ::MobileRT::Light;
+using ::MobileRT::BoundedLight;
+using ::MobileRT::DirectLightSample;
+using ::MobileRT::LightSample;
+using ::MobileRT::AliasTable;
 using ::MobileRT::Material;
 using ::MobileRT::Scene;
 
@@ -54,22 +61,26 @@ void Shader::initializeAccelerators(Scene scene) {
         }
 
         case Accelerator::ACC_REGULAR_GRID: {
-            const ::std::uint32_t gridSize {32U};
-            this->gridPlanes_ = RegularGrid<Plane> {::std::move(scene.planes_), gridSize};
-            this->gridSpheres_ = RegularGrid<Sphere> {::std::move(scene.spheres_), gridSize};
-            this->gridTriangles_ = RegularGrid<Triangle> {::std::move(scene.triangles_), gridSize};
+            this->gridPlanes_ = RegularGrid<Plane> {::std::move(scene.planes_)};
+            this->gridSpheres_ = RegularGrid<Sphere> {::std::move(scene.spheres_)};
+            this->gridTriangles_ = RegularGrid<Triangle> {::std::move(scene.triangles_)};
             break;
         }
 
         case Accelerator::ACC_BVH: {
-            this->bvhPlanes_ = BVH<Plane> {::std::move(scene.planes_)};
-            this->bvhSpheres_ = BVH<Sphere> {::std::move(scene.spheres_)};
-            this->bvhTriangles_ = BVH<Triangle> {::std::move(scene.triangles_)};
+            this->naivePlanes_ = Naive<Plane> {::std::move(scene.planes_)};
+            this->bvh_ = BVH<Primitive> {getBoundedPrimitives(::std::move(scene.spheres_), ::std::move(scene.triangles_))};
+            break;
+        }
+
+        case Accelerator::ACC_BVH4: {
+            this->naivePlanes_ = Naive<Plane> {::std::move(scene.planes_)};
+            this->bvh4_ = BVH4<Primitive> {getBoundedPrimitives(::std::move(scene.spheres_), ::std::move(scene.triangles_))};
             break;
         }
     }
     ::MobileRT::checkSystemError("initializeAccelerators end");
-    this->lights_ = ::std::move(scene.lights_);
+    initializeLights(::std::move(scene.lights_));
     ::MobileRT::checkSystemError("initializeAccelerators end 1");
     LOG_INFO("accelerator = ", this->accelerator_);
     ::MobileRT::checkSystemError("initializeAccelerators end 2");
@@ -79,6 +90,54 @@ void Shader::initializeAccelerators(Scene scene) {
     ::MobileRT::checkSystemError("initializeAccelerators end 4");
 }
 
+/**
+ * Helper method which keeps the lights of the scene, puts the bounded ones into a BVH and creates the distribution
+ * used to choose them proportionally to their power.
+ *
+ * @param lights The lights of the scene.
+ */
+void Shader::initializeLights(::std::vector<::std::unique_ptr<Light>> &&lights) {
+    this->lights_ = ::std::move(lights);
+    ::std::vector<BoundedLight> boundedLights {};
+    ::std::vector<float> powers {};
+    powers.reserve(this->lights_.size());
+    this->unboundedLights_.clear();
+    for (::std::int32_t index {}; index < static_cast<::std::int32_t> (this->lights_.size()); ++index) {
+        Light *const light {this->lights_[static_cast<::std::uint32_t> (index)].get()};
+        if (light->isBounded()) {
+            boundedLights.emplace_back(light, index);
+        } else {
+            this->unboundedLights_.emplace_back(index);
+        }
+        powers.emplace_back(light->getPower());
+    }
+    this->lightsBvh_ = BVH<BoundedLight> {::std::move(boundedLights)};
+    this->lightsDistribution_ = AliasTable {powers};
+}
+
+/**
+ * Helper method which keeps the spheres and the triangles of the scene and creates the references to them which are
+ * put into a single acceleration structure.
+ *
+ * @param spheres   The spheres of the scene.
+ * @param triangles The triangles of the scene.
+ * @return The references to the spheres and triangles of the scene.
+ */
+::std::vector<Primitive> Shader::getBoundedPrimitives(::std::vector<Sphere> &&spheres, ::std::vector<Triangle> &&triangles) {
+    this->spheres_ = ::std::move(spheres);
+    this->triangles_ = ::std::move(triangles);
+
+    ::std::vector<Primitive> primitives {};
+    primitives.reserve(this->spheres_.size() + this->triangles_.size());
+    for (const Sphere &sphere : this->spheres_) {
+        primitives.emplace_back(sphere);
+    }
+    for (const Triangle &triangle : this->triangles_) {
+        primitives.emplace_back(triangle);
+    }
+    return primitives;
+}
+
 /**
  * Determines if a casted ray intersects a light source in the scene or not.
  *
@@ -89,6 +148,64 @@ void Shader::initializeAccelerators(Scene scene) {
 bool Shader::rayTrace(::glm::vec3 *rgb, Ray &&ray) {
     Intersection intersection {::std::move(ray)};
     const float lastDist {intersection.length_};
+    intersection = traceNearest(::std::move(intersection));
+    return shadeNearest(rgb, ::std::move(intersection), lastDist);
+}
+
+/**
+ * Casts a batch of rays, like the primary rays of a tile, into the scene and calculates the color of each one of them.
+ * <br>
+ * The rays are first traced together with {@link Shader#traceNearestBatch} and then shaded one at a time, like
+ * {@link Shader#rayTrace}.
+ *
+ * @param rgbs A pointer to the array where the color of each ray should be put.
+ * @param rays The casted rays into the scene.
+ */
+void Shader::rayTraceBatch(::glm::vec3 *const rgbs, ::std::vector<Ray> *const rays) {
+    thread_local ::std::vector<Intersection> intersections {};
+    intersections.clear();
+    for (Ray &ray : *rays) {
+        intersections.emplace_back(::std::move(ray));
+    }
+    traceNearestBatch(&intersections);
+    for (::std::uint32_t ray {}; ray < static_cast<::std::uint32_t> (intersections.size()); ++ray) {
+        shadeNearest(&rgbs[ray], ::std::move(intersections[ray]), RayLengthMax);
+    }
+}
+
+/**
+ * Helper method which calculates the nearest intersection of a batch of rays with the primitives in the acceleration
+ * structure.
+ * <br>
+ * With a BVH, the consecutive rays of the batch are traversed together as packets of {@link RayPacketSize} rays, so
+ * the rays should be coherent, like the primary rays of neighbouring pixels. The other acceleration structures trace
+ * the rays one at a time.
+ *
+ * @param intersections The current intersections of the rays, which are updated with the nearest intersections.
+ */
+void Shader::traceNearestBatch(::std::vector<Intersection> *const intersections) {
+    if (this->accelerator_ != Accelerator::ACC_BVH) {
+        for (Intersection &intersection : *intersections) {
+            intersection = traceNearest(::std::move(intersection));
+        }
+        return;
+    }
+    for (Intersection &intersection : *intersections) {
+        intersection = this->naivePlanes_.trace(intersection);
+    }
+    const ::std::int32_t numRays {static_cast<::std::int32_t> (intersections->size())};
+    for (::std::int32_t first {}; first < numRays; first += RayPacketSize) {
+        this->bvh_.tracePacket(intersections->data() + first, ::std::min(RayPacketSize, numRays - first));
+    }
+}
+
+/**
+ * Helper method which calculates the nearest intersection of a ray with the primitives in the acceleration structure.
+ *
+ * @param intersection The current intersection of the ray.
+ * @return The nearest intersection of the ray with the primitives of the scene.
+ */
+Intersection Shader::traceNearest(Intersection intersection) {
     switch (this->accelerator_) {
         case Accelerator::ACC_NAIVE: {
             intersection = this->naivePlanes_.trace(intersection);
@@ -105,13 +222,44 @@ bool Shader::rayTrace(::glm::vec3 *rgb, Ray &&ray) {
         }
 
         case Accelerator::ACC_BVH: {
-            intersection = this->bvhPlanes_.trace(intersection);
-            intersection = this->bvhSpheres_.trace(intersection);
-            intersection = this->bvhTriangles_.trace(intersection);
+            intersection = this->naivePlanes_.trace(intersection);
+            intersection = this->bvh_.trace(intersection);
+            break;
+        }
+
+        case Accelerator::ACC_BVH4: {
+            intersection = this->naivePlanes_.trace(intersection);
+            intersection = this->bvh4_.trace(intersection);
             break;
         }
     }
+    return intersection;
+}
+
+/**
+ * Helper method which intersects the light sources with a ray, resolves its nearest intersection and calculates its
+ * color.
+ *
+ * @param rgb          A pointer where the color value of the pixel should be put.
+ * @param intersection The nearest intersection of the ray with the primitives of the scene.
+ * @param lastDist     The length of the ray before being traced.
+ * @return Whether the casted ray intersects a light source in the scene or not.
+ */
+bool Shader::shadeNearest(::glm::vec3 *const rgb, Intersection intersection, const float lastDist) {
+    intersection = resolveNearest(::std::move(intersection));
+    return intersection.length_ < lastDist && shade(rgb, intersection);
+}
+
+/**
+ * Helper method which intersects the light sources with a ray and resolves the shading attributes and the material of
+ * its nearest intersection.
+ *
+ * @param intersection The nearest intersection of the ray with the primitives of the scene.
+ * @return The nearest intersection of the ray with the primitives and the light sources of the scene.
+ */
+Intersection Shader::resolveNearest(Intersection intersection) {
     intersection = traceLights(intersection);
+    resolveAttributes(&intersection);
     const ::std::int32_t matIndex {intersection.materialIndex_};
     if (matIndex >= 0) {
         Material &material {this->materials_[static_cast<::std::uint32_t> (matIndex)]};
@@ -122,42 +270,57 @@ bool Shader::rayTrace(::glm::vec3 *rgb, Ray &&ray) {
             intersection.material_->Kd_ = texture.loadColor(texCoords);
         }
     }
-    return intersection.length_ < lastDist && shade(rgb, intersection);
+    return intersection;
+}
+
+/**
+ * Casts a ray into the scene and calculates its nearest intersection with the primitives and the light sources, with
+ * its shading attributes and material already resolved, so the shaders can inspect it before shading it.
+ *
+ * @param ray The casted ray.
+ * @return The nearest intersection of the ray, whose length is {@link MobileRT::RayLengthMax} if it didn't intersect
+ * anything.
+ */
+Intersection Shader::traceRay(Ray &&ray) {
+    Intersection intersection {::std::move(ray)};
+    intersection = traceNearest(::std::move(intersection));
+    return resolveNearest(::std::move(intersection));
 }
 
 /**
  * Determines if a casted ray intersects a primitive in the scene between the origin of the ray and a light source.
+ * <br>
+ * It only needs to know if there is any primitive in the way, so the accelerators stop at the first primitive
+ * intersected and the intersection point is never calculated.
+ * The triangles are checked first, since they are usually most of the primitives in the scene.
  *
  * @param distance The distance from the origin of the ray to the light source.
  * @param ray      The casted ray.
  * @return Whether the casted ray intersects a primitive in the scene or not.
  */
 bool Shader::shadowTrace(const float distance, Ray &&ray) {
-    Intersection intersection {::std::move(ray), distance};
     switch (this->accelerator_) {
         case Accelerator::ACC_NAIVE: {
-            intersection = this->naivePlanes_.shadowTrace(intersection);
-            intersection = this->naiveSpheres_.shadowTrace(intersection);
-            intersection = this->naiveTriangles_.shadowTrace(intersection);
-            break;
+            return this->naiveTriangles_.occluded(ray, distance)
+                || this->naiveSpheres_.occluded(ray, distance)
+                || this->naivePlanes_.occluded(ray, distance);
         }
 
         case Accelerator::ACC_REGULAR_GRID: {
-            intersection = this->gridPlanes_.shadowTrace(intersection);
-            intersection = this->gridSpheres_.shadowTrace(intersection);
-            intersection = this->gridTriangles_.shadowTrace(intersection);
-            break;
+            return this->gridTriangles_.occluded(ray, distance)
+                || this->gridSpheres_.occluded(ray, distance)
+                || this->gridPlanes_.occluded(ray, distance);
         }
 
         case Accelerator::ACC_BVH: {
-            intersection = this->bvhPlanes_.shadowTrace(intersection);
-            intersection = this->bvhSpheres_.shadowTrace(intersection);
-            intersection = this->bvhTriangles_.shadowTrace(intersection);
-            break;
+            return this->bvh_.occluded(ray, distance) || this->naivePlanes_.occluded(ray, distance);
+        }
+
+        case Accelerator::ACC_BVH4: {
+            return this->bvh4_.occluded(ray, distance) || this->naivePlanes_.occluded(ray, distance);
         }
     }
-    const bool res {intersection.length_ < distance};
-    return res;
+    return false;
 }
 
 /**
@@ -166,13 +329,52 @@ bool Shader::shadowTrace(const float distance, Ray &&ray) {
  * @param intersection The current intersection of the ray with previous primitives.
  * @return The intersection of the casted ray and the light sources.
  */
-Intersection Shader::traceLights(Intersection intersection) const {
-    for (const ::std::unique_ptr<Light> &light : this->lights_) {
-        intersection = light->intersect(::std::move(intersection));
+Intersection Shader::traceLights(Intersection intersection) {
+    for (const ::std::int32_t index : this->unboundedLights_) {
+        const float lastDist {intersection.length_};
+        intersection = this->lights_[static_cast<::std::uint32_t> (index)]->intersect(::std::move(intersection));
+        if (intersection.length_ < lastDist) {
+            intersection.lightIndex_ = index;
+        }
     }
+    intersection = this->lightsBvh_.trace(::std::move(intersection));
     return intersection;
 }
 
+/**
+ * Helper method which calculates the shading attributes (point, normal and texture coordinates) of the nearest
+ * intersection of a ray.
+ * <br>
+ * The shapes only record the data needed to calculate them while the ray is traced, so they are only calculated once
+ * per ray instead of once per intersected shape.
+ *
+ * @param intersection The nearest intersection of the ray.
+ */
+void Shader::resolveAttributes(Intersection *const intersection) {
+    switch (intersection->shapeType_) {
+        case Intersection::SHAPE_NONE: {
+            break;
+        }
+
+        case Intersection::SHAPE_PLANE: {
+            static_cast<const Plane *> (intersection->shape_)->resolveAttributes(intersection);
+            break;
+        }
+
+        case Intersection::SHAPE_SPHERE: {
+            static_cast<const Sphere *> (intersection->shape_)->resolveAttributes(intersection);
+            break;
+        }
+
+        case Intersection::SHAPE_TRIANGLE: {
+            static_cast<const Triangle *> (intersection->shape_)->resolveAttributes(intersection);
+            break;
+        }
+    }
+    intersection->shape_ = nullptr;
+    intersection->shapeType_ = Intersection::SHAPE_NONE;
+}
+
 /**
  * Resets the sampling process of all the lights in the scene.
  */
@@ -189,9 +391,10 @@ void Shader::resetSampling() {
  * @return A random direction in a hemisphere.
  */
 ::glm::vec3 Shader::getCosineSampleHemisphere(const ::glm::vec3 &normal) {
-    static ::std::atomic<::std::uint32_t> sampler {};
-    const ::std::uint32_t current1 {sampler.fetch_add(1, ::std::memory_order_relaxed)};
-    const ::std::uint32_t current2 {sampler.fetch_add(1, ::std::memory_order_relaxed)};
+    // Each thread has its own counter, so the threads don't share an atomic counter for every bounce.
+    thread_local static ::std::uint32_t sampler {::MobileRT::getThreadSeed()};
+    const ::std::uint32_t current1 {sampler++};
+    const ::std::uint32_t current2 {sampler++};
 
     const auto itRandomValue1 {randomSequence.begin() + (current1 & ::MobileRT::ArrayMask)};
     const auto itRandomValue2 {randomSequence.begin() + (current2 & ::MobileRT::ArrayMask)};
@@ -220,21 +423,101 @@ void Shader::resetSampling() {
 
 /**
  * Calculates the index of a random chosen light in the scene.
+ * The lights are chosen proportionally to their power, so the brightest lights get more shadow rays.
  *
  * @return The index of a random chosen light.
  */
 ::std::uint32_t Shader::getLightIndex () {
-    static ::std::atomic<::std::uint32_t> sampler {};
-    const ::std::uint32_t current {sampler.fetch_add(1, ::std::memory_order_relaxed)};
+    // Each thread has its own counter, so the threads don't share an atomic counter for every light sample.
+    thread_local static ::std::uint32_t sampler {::MobileRT::getThreadSeed()};
+    const ::std::uint32_t current {sampler++};
 
     const auto itRandomValue {randomSequence.begin() + (current & ::MobileRT::ArrayMask)};
 
-    const ::std::uint32_t sizeLights {static_cast<::std::uint32_t> (this->lights_.size())};
     const float randomNumber {*itRandomValue};
-    const ::std::uint32_t chosenLight {static_cast<::std::uint32_t> (::std::floor(randomNumber * sizeLights * 0.99999F))};
+    const ::std::uint32_t chosenLight {this->lightsDistribution_.sample(randomNumber)};
     return chosenLight;
 }
 
+/**
+ * Gets the probability of a light being chosen by {@link Shader#getLightIndex}.
+ *
+ * @param lightIndex The index of the light.
+ * @return The probability of choosing the light.
+ */
+float Shader::getLightPdf(const ::std::uint32_t lightIndex) const {
+    return this->lightsDistribution_.getPdf(lightIndex);
+}
+
+/**
+ * Samples the direct lighting arriving at an intersection from a random light (next event estimation).
+ * <br>
+ * A light is chosen by {@link Shader#getLightIndex} and a point is sampled in it. The radiance of an area light is
+ * converted to the irradiance at the intersection with the cosine at both ends, the inverse squared distance and the
+ * probability densities of choosing the light and the point. A point light has no area, so it can't be converted like
+ * this: it keeps delivering the same light regardless of its distance, and its radiance is the one reflected by a
+ * white diffuse material facing it.
+ * <br>
+ * The occlusion between the intersection and the light is not tested, so it is up to the shader to trace a shadow
+ * ray with the returned direction and distance.
+ *
+ * @param intersection The intersection to be lit.
+ * @param sample       A pointer to store the sampled direct lighting.
+ * @return Whether the sampled light is in front of the intersection or not.
+ */
+bool Shader::sampleDirectLight(const Intersection &intersection, DirectLightSample *const sample) {
+    const ::std::uint32_t chosenLight {getLightIndex()};
+    Light &light {*this->lights_[chosenLight]};
+    const LightSample lightSample {light.sample()};
+    //calculates vector starting in intersection to the light
+    ::glm::vec3 vectorToLight {lightSample.position_ - intersection.point_};
+    //distance from intersection to the light (and normalize it)
+    const float distanceToLight {::glm::length(vectorToLight)};
+    vectorToLight = ::glm::normalize(vectorToLight);
+    const float cosNormalLight {::glm::dot(intersection.normal_, vectorToLight)};
+    if (cosNormalLight <= 0.0F) {
+        return false;
+    }
+    sample->direction_ = vectorToLight;
+    sample->distance_ = distanceToLight;
+
+    const float selectionPdf {getLightPdf(chosenLight)};
+    if (lightSample.pdf_ <= 0.0F) {
+        sample->irradiance_ = lightSample.radiance_ * cosNormalLight * ::glm::pi<float> () / selectionPdf;
+        sample->pdf_ = 0.0F;
+        return true;
+    }
+    const float cosLight {::std::abs(::glm::dot(lightSample.normal_, vectorToLight))};
+    if (cosLight <= 0.0F) {
+        return false;
+    }
+    //PDF (solid angle) = PDF (area) * distance^2 / cos (light normal, -direction)
+    sample->pdf_ = selectionPdf * lightSample.pdf_ * distanceToLight * distanceToLight / cosLight;
+    sample->irradiance_ = lightSample.radiance_ * cosNormalLight / sample->pdf_;
+    return true;
+}
+
+/**
+ * Gets the probability density, with respect to the solid angle, of {@link Shader#sampleDirectLight} sampling the
+ * direction of a ray which intersected a light.
+ * <br>
+ * It is used to weight the light intersected by a ray sampled by a material against sampling that light directly.
+ *
+ * @param intersection The intersection of the ray with the light.
+ * @return The probability density of sampling the direction of the ray, or 0 if the light can't be sampled.
+ */
+float Shader::getDirectLightPdf(const Intersection &intersection) const {
+    const ::std::int32_t lightIndex {intersection.lightIndex_};
+    if (lightIndex < 0 || this->samplesLight_ <= 0) {
+        return 0.0F;
+    }
+    const ::std::uint32_t index {static_cast<::std::uint32_t> (lightIndex)};
+    const float cosLight {::std::abs(::glm::dot(intersection.normal_, intersection.ray_.direction_))};
+    const float distance {intersection.length_};
+    return getLightPdf(index) * this->lights_[index]->getAreaPdf() * distance * distance /
+        ::std::max(cosLight, ::MobileRT::Epsilon);
+}
+
 /**
  * Gets the planes in the scene.
  *
@@ -250,8 +533,9 @@ const ::std::vector<Plane>& Shader::getPlanes() const {
             return this->gridPlanes_.getPrimitives();
         }
 
-        case Accelerator::ACC_BVH: {
-            return this->bvhPlanes_.getPrimitives();
+        case Accelerator::ACC_BVH:
+        case Accelerator::ACC_BVH4: {
+            return this->naivePlanes_.getPrimitives();
         }
     }
     return this->naivePlanes_.getPrimitives();
@@ -272,8 +556,9 @@ const ::std::vector<Sphere>& Shader::getSpheres() const {
             return this->gridSpheres_.getPrimitives();
         }
 
-        case Accelerator::ACC_BVH: {
-            return this->bvhSpheres_.getPrimitives();
+        case Accelerator::ACC_BVH:
+        case Accelerator::ACC_BVH4: {
+            return this->spheres_;
         }
     }
     return this->naiveSpheres_.getPrimitives();
@@ -294,8 +579,9 @@ const ::std::vector<Triangle>& Shader::getTriangles() const {
             return this->gridTriangles_.getPrimitives();
         }
 
-        case Accelerator::ACC_BVH: {
-            return this->bvhTriangles_.getPrimitives();
+        case Accelerator::ACC_BVH:
+        case Accelerator::ACC_BVH4: {
+            return this->triangles_;
         }
     }
     return this->naiveTriangles_.getPrimitives();
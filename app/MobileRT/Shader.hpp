@@ -2,6 +2,7 @@
 #define MOBILERT_SHADER_HPP
 
 #include "MobileRT/Accelerators/BVH.hpp"
+#include "MobileRT/Accelerators/BVH4.hpp"
 #include "MobileRT/Accelerators/Naive.hpp"
 #include "MobileRT/Accelerators/RegularGrid.hpp"
 #include "MobileRT/Camera.hpp"
@@ -9,8 +10,37 @@
 #include "MobileRT/Ray.hpp"
 #include "MobileRT/Sampler.hpp"
 #include "MobileRT/Scene.hpp"
+#include "MobileRT/Shapes/Primitive.hpp"
+#include "MobileRT/Utils/AliasTable.hpp"
 
 namespace MobileRT {
+    /**
+     * The direct lighting arriving at a point from a point sampled in a light, as used by the next event estimation.
+     */
+    struct DirectLightSample {
+        /**
+         * The normalized direction from the point to the light.
+         */
+        ::glm::vec3 direction_ {};
+
+        /**
+         * The distance from the point to the light, which limits the shadow ray.
+         */
+        float distance_ {};
+
+        /**
+         * The light arriving at the point (radiance times the cosine at the point) divided by the probability density
+         * of the sample. A diffuse material reflects it multiplied by its BRDF (kD / Pi).
+         */
+        ::glm::vec3 irradiance_ {};
+
+        /**
+         * The probability density of the direction with respect to the solid angle (including the choice of the
+         * light), or 0 if the light is a single point.
+         */
+        float pdf_ {};
+    };
+
     /**
      * A class which contains the scene geometry into an acceleration structure and takes care of casting rays into the
      * scene.
@@ -21,6 +51,7 @@ namespace MobileRT {
             ACC_NAIVE = 1,
             ACC_REGULAR_GRID,
             ACC_BVH,
+            ACC_BVH4,
         };
 
     private:
@@ -32,12 +63,29 @@ namespace MobileRT {
         RegularGrid<Sphere> gridSpheres_ {};
         RegularGrid<Triangle> gridTriangles_ {};
 
-        BVH<Plane> bvhPlanes_ {};
-        BVH<Sphere> bvhSpheres_ {};
-        BVH<Triangle> bvhTriangles_ {};
+        /**
+         * The spheres and triangles referenced by the BVHs.
+         * The planes are unbounded, so they are kept in the naive accelerator and are intersected first.
+         */
+        ::std::vector<Sphere> spheres_ {};
+        ::std::vector<Triangle> triangles_ {};
+        BVH<Primitive> bvh_ {};
+        BVH4<Primitive> bvh4_ {};
 
         ::std::vector<Material> materials_ {};
 
+        /**
+         * The lights with a shape (e.g. area lights) are put in a BVH, so a ray doesn't have to intersect all of them.
+         * The other lights are intersected one at a time, so only their indices are kept.
+         */
+        BVH<BoundedLight> lightsBvh_ {};
+        ::std::vector<::std::int32_t> unboundedLights_ {};
+
+        /**
+         * The distribution used to choose the lights proportionally to their power.
+         */
+        AliasTable lightsDistribution_ {};
+
     private:
         const Accelerator accelerator_ {};
 
@@ -46,7 +94,17 @@ namespace MobileRT {
         ::std::vector<::std::unique_ptr<Light>> lights_ {};
 
     private:
-        Intersection traceLights(Intersection intersection) const;
+        Intersection traceLights(Intersection intersection);
+
+        void initializeLights(::std::vector<::std::unique_ptr<Light>> &&lights);
+
+        Intersection traceNearest(Intersection intersection);
+
+        bool shadeNearest(::glm::vec3 *rgb, Intersection intersection, float lastDist);
+
+        static void resolveAttributes(Intersection *intersection);
+
+        ::std::vector<Primitive> getBoundedPrimitives(::std::vector<Sphere> &&spheres, ::std::vector<Triangle> &&triangles);
 
     protected:
         /**
@@ -63,8 +121,20 @@ namespace MobileRT {
 
         static ::glm::vec3 getCosineSampleHemisphere(const ::glm::vec3 &normal);
 
+        void traceNearestBatch(::std::vector<Intersection> *intersections);
+
+        Intersection resolveNearest(Intersection intersection);
+
+        Intersection traceRay(Ray &&ray);
+
         ::std::uint32_t getLightIndex ();
 
+        float getLightPdf(::std::uint32_t lightIndex) const;
+
+        bool sampleDirectLight(const Intersection &intersection, DirectLightSample *sample);
+
+        float getDirectLightPdf(const Intersection &intersection) const;
+
     public:
         void initializeAccelerators(Scene scene);
 
@@ -85,6 +155,8 @@ namespace MobileRT {
 
         bool rayTrace(::glm::vec3 *rgb, Ray &&ray);
 
+        virtual void rayTraceBatch(::glm::vec3 *rgbs, ::std::vector<Ray> *rays);
+
         bool shadowTrace(float distance, Ray &&ray);
 
         virtual void resetSampling();
@@ -5,6 +5,7 @@
 using ::MobileRT::AABB;
 using ::MobileRT::Plane;
 using ::MobileRT::Intersection;
+using ::MobileRT::Ray;
 
 /**
  * The constructor.
@@ -32,27 +33,40 @@ void Plane::checkArguments() const {
 }
 
 /**
- * Determines if a ray intersects this plane or not and calculates the intersection point.
+ * Helper method which calculates the distance from the origin of a ray to the point where it intersects this plane.
  *
- * @param intersection The previous intersection of the ray in the scene.
- * @return The intersection point.
+ * @param ray The ray.
+ * @return The distance to the intersection point or {@link MobileRT::RayLengthMax} if the ray doesn't intersect the
+ * plane.
  */
-Intersection Plane::intersect(Intersection intersection) const {
-    if (intersection.ray_.primitive_ == this) {
-        return intersection;
+float Plane::intersectDistance(const Ray &ray) const {
+    if (ray.primitive_ == this) {
+        return RayLengthMax;
     }
 
     // is ray parallel or contained in the Plane ??
     // planes have two sides!!!
-    const float normalizedProjection {::glm::dot(this->normal_, intersection.ray_.direction_)};
+    const float normalizedProjection {::glm::dot(this->normal_, ray.direction_)};
     if (::std::abs(normalizedProjection) < Epsilon) {
-        return intersection;
+        return RayLengthMax;
     }
 
     //https://en.wikipedia.org/wiki/Line%E2%80%93plane_intersection
-    const ::glm::vec3 vecToPlane {this->point_ - intersection.ray_.origin_};
+    const ::glm::vec3 vecToPlane {this->point_ - ray.origin_};
     const float scalarProjectionVecToPlaneOnNormal {::glm::dot(this->normal_, vecToPlane)};
     const float distanceToIntersection {scalarProjectionVecToPlaneOnNormal / normalizedProjection};
+    return distanceToIntersection;
+}
+
+/**
+ * Determines if a ray intersects this plane or not and calculates the distance to the intersection point.
+ * The shading attributes are only calculated later by {@link Plane#resolveAttributes}.
+ *
+ * @param intersection The previous intersection of the ray in the scene.
+ * @return The intersection point.
+ */
+Intersection Plane::intersect(Intersection intersection) const {
+    const float distanceToIntersection {intersectDistance(intersection.ray_)};
 
     // is it in front of the eye?
     // is it farther than the ray length ??
@@ -61,18 +75,39 @@ Intersection Plane::intersect(Intersection intersection) const {
     }
 
     // if so, then we have an intersection
-    const ::glm::vec3 intersectionPoint {intersection.ray_.origin_ + intersection.ray_.direction_ * distanceToIntersection};
     const Intersection res {::std::move(intersection.ray_),
-                            intersectionPoint,
                             distanceToIntersection,
-                            this->normal_,
                             this,
-                            this->materialIndex_
+                            this->materialIndex_,
+                            this,
+                            Intersection::SHAPE_PLANE
     };
 
     return res;
 }
 
+/**
+ * Determines if a ray intersects this plane before a given distance, without calculating the intersection point.
+ *
+ * @param ray      The ray.
+ * @param distance The maximum distance of the intersection.
+ * @return Whether the ray intersects the plane or not.
+ */
+bool Plane::intersect(const Ray &ray, const float distance) const {
+    const float distanceToIntersection {intersectDistance(ray)};
+    return distanceToIntersection >= Epsilon && distanceToIntersection < distance;
+}
+
+/**
+ * Calculates the shading attributes of an intersection with this plane.
+ *
+ * @param intersection The nearest intersection of the ray in the scene.
+ */
+void Plane::resolveAttributes(Intersection *const intersection) const {
+    intersection->point_ = intersection->ray_.origin_ + intersection->ray_.direction_ * intersection->length_;
+    intersection->normal_ = this->normal_;
+}
+
 /**
  * The helper method which calculates the right vector.
  *
@@ -21,6 +21,8 @@ namespace MobileRT {
 
         void checkArguments() const;
 
+        float intersectDistance(const Ray &ray) const;
+
     public:
         explicit Plane () = delete;
 
@@ -38,6 +40,10 @@ namespace MobileRT {
 
         Intersection intersect(Intersection intersection) const;
 
+        bool intersect(const Ray &ray, float distance) const;
+
+        void resolveAttributes(Intersection *intersection) const;
+
         AABB getAABB() const;
 
         float distance(const ::glm::vec3 &point) const;
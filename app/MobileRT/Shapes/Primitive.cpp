@@ -0,0 +1,160 @@
+#include "MobileRT/Shapes/Primitive.hpp"
+
+using ::MobileRT::AABB;
+using ::MobileRT::Intersection;
+using ::MobileRT::Plane;
+using ::MobileRT::Primitive;
+using ::MobileRT::Ray;
+using ::MobileRT::Sphere;
+using ::MobileRT::Triangle;
+
+/**
+ * The constructor for a plane.
+ *
+ * @param plane The plane to reference.
+ */
+Primitive::Primitive(const Plane &plane) :
+        shape_ {&plane},
+        type_ {Intersection::SHAPE_PLANE} {
+}
+
+/**
+ * The constructor for a sphere.
+ *
+ * @param sphere The sphere to reference.
+ */
+Primitive::Primitive(const Sphere &sphere) :
+        shape_ {&sphere},
+        type_ {Intersection::SHAPE_SPHERE} {
+}
+
+/**
+ * The constructor for a triangle.
+ *
+ * @param triangle The triangle to reference.
+ */
+Primitive::Primitive(const Triangle &triangle) :
+        shape_ {&triangle},
+        type_ {Intersection::SHAPE_TRIANGLE} {
+}
+
+/**
+ * Determines if a ray intersects the referenced shape or not and calculates the intersection point.
+ *
+ * @param intersection The previous intersection of the ray in the scene.
+ * @return The intersection point.
+ */
+Intersection Primitive::intersect(Intersection intersection) const {
+    switch (this->type_) {
+        case Intersection::SHAPE_NONE: {
+            break;
+        }
+
+        case Intersection::SHAPE_PLANE: {
+            return static_cast<const Plane *> (this->shape_)->intersect(::std::move(intersection));
+        }
+
+        case Intersection::SHAPE_SPHERE: {
+            return static_cast<const Sphere *> (this->shape_)->intersect(::std::move(intersection));
+        }
+
+        case Intersection::SHAPE_TRIANGLE: {
+            return static_cast<const Triangle *> (this->shape_)->intersect(::std::move(intersection));
+        }
+    }
+    return intersection;
+}
+
+/**
+ * Determines if a ray intersects the referenced shape before a given distance, without calculating the intersection
+ * point.
+ *
+ * @param ray      The ray.
+ * @param distance The maximum distance of the intersection.
+ * @return Whether the ray intersects the shape or not.
+ */
+bool Primitive::intersect(const Ray &ray, const float distance) const {
+    switch (this->type_) {
+        case Intersection::SHAPE_PLANE: {
+            return static_cast<const Plane *> (this->shape_)->intersect(ray, distance);
+        }
+
+        case Intersection::SHAPE_SPHERE: {
+            return static_cast<const Sphere *> (this->shape_)->intersect(ray, distance);
+        }
+
+        case Intersection::SHAPE_NONE:
+        case Intersection::SHAPE_TRIANGLE: {
+            break;
+        }
+    }
+    return static_cast<const Triangle *> (this->shape_)->intersect(ray, distance);
+}
+
+/**
+ * Calculates the bounding box of the referenced shape.
+ *
+ * @return The bounding box of the shape.
+ */
+AABB Primitive::getAABB() const {
+    switch (this->type_) {
+        case Intersection::SHAPE_PLANE: {
+            return static_cast<const Plane *> (this->shape_)->getAABB();
+        }
+
+        case Intersection::SHAPE_SPHERE: {
+            return static_cast<const Sphere *> (this->shape_)->getAABB();
+        }
+
+        case Intersection::SHAPE_NONE:
+        case Intersection::SHAPE_TRIANGLE: {
+            break;
+        }
+    }
+    return static_cast<const Triangle *> (this->shape_)->getAABB();
+}
+
+/**
+ * Determines if a box intersects the referenced shape or not.
+ *
+ * @param box The box to test the intersection.
+ * @return Whether the box intersects the shape or not.
+ */
+bool Primitive::intersect(const AABB &box) const {
+    switch (this->type_) {
+        case Intersection::SHAPE_PLANE: {
+            return static_cast<const Plane *> (this->shape_)->intersect(box);
+        }
+
+        case Intersection::SHAPE_SPHERE: {
+            return static_cast<const Sphere *> (this->shape_)->intersect(box);
+        }
+
+        case Intersection::SHAPE_NONE:
+        case Intersection::SHAPE_TRIANGLE: {
+            break;
+        }
+    }
+    return static_cast<const Triangle *> (this->shape_)->intersect(box);
+}
+
+/**
+ * Gets the type of the referenced shape.
+ *
+ * @return The type of the shape.
+ */
+Intersection::ShapeType Primitive::getType() const {
+    return this->type_;
+}
+
+/**
+ * Gets the referenced triangle.
+ *
+ * @return The triangle or nullptr if the referenced shape is not a triangle.
+ */
+const Triangle *Primitive::getTriangle() const {
+    if (this->type_ != Intersection::SHAPE_TRIANGLE) {
+        return nullptr;
+    }
+    return static_cast<const Triangle *> (this->shape_);
+}
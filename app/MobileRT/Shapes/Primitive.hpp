@@ -0,0 +1,55 @@
+#ifndef MOBILERT_SHAPES_PRIMITIVE_HPP
+#define MOBILERT_SHAPES_PRIMITIVE_HPP
+
+#include "MobileRT/Accelerators/AABB.hpp"
+#include "MobileRT/Intersection.hpp"
+#include "MobileRT/Shapes/Plane.hpp"
+#include "MobileRT/Shapes/Sphere.hpp"
+#include "MobileRT/Shapes/Triangle.hpp"
+
+namespace MobileRT {
+    /**
+     * A class which references a shape of any type in the scene.
+     * <br>
+     * It allows to put the different types of shapes in the same acceleration structure, so a ray only has to traverse
+     * one structure. The shape itself is not copied, so it must outlive this reference.
+     */
+    class Primitive final {
+    private:
+        const void *shape_ {nullptr};
+        Intersection::ShapeType type_ {Intersection::SHAPE_NONE};
+
+    public:
+        explicit Primitive () = delete;
+
+        explicit Primitive(const Plane &plane);
+
+        explicit Primitive(const Sphere &sphere);
+
+        explicit Primitive(const Triangle &triangle);
+
+        Primitive(const Primitive &primitive) = default;
+
+        Primitive(Primitive &&primitive) noexcept = default;
+
+        ~Primitive() = default;
+
+        Primitive &operator=(const Primitive &primitive) = default;
+
+        Primitive &operator=(Primitive &&primitive) noexcept = default;
+
+        Intersection intersect(Intersection intersection) const;
+
+        bool intersect(const Ray &ray, float distance) const;
+
+        AABB getAABB() const;
+
+        bool intersect(const AABB &box) const;
+
+        Intersection::ShapeType getType() const;
+
+        const Triangle *getTriangle() const;
+    };
+}//namespace MobileRT
+
+#endif //MOBILERT_SHAPES_PRIMITIVE_HPP
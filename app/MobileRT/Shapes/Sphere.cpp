@@ -7,6 +7,7 @@
 using ::MobileRT::AABB;
 using ::MobileRT::Sphere;
 using ::MobileRT::Intersection;
+using ::MobileRT::Ray;
 
 /**
  * The constructor.
@@ -33,28 +34,30 @@ void Sphere::checkArguments() const {
 }
 
 /**
- * Determines if a ray intersects this sphere or not and calculates the intersection point.
+ * Helper method which calculates the distance from the origin of a ray to the nearest point where it intersects this
+ * sphere.
  * The algorithm is based on
  * <a href="https://stackoverflow.com/questions/1986378/how-to-set-up-quadratic-equation-for-a-ray-sphere-intersection">
  * this source
  * </a>.
  *
- * @param intersection The previous intersection of the ray in the scene.
- * @return The intersection point.
+ * @param ray The ray.
+ * @return The distance to the intersection point or {@link MobileRT::RayLengthMax} if the ray doesn't intersect the
+ * sphere.
  */
-Intersection Sphere::intersect(Intersection intersection) const {
-    const ::glm::vec3 &originToCenter {this->center_ - intersection.ray_.origin_};
-    const float projectionOnDirection {::glm::dot(originToCenter, intersection.ray_.direction_)};
+float Sphere::intersectDistance(const Ray &ray) const {
+    const ::glm::vec3 &originToCenter {this->center_ - ray.origin_};
+    const float projectionOnDirection {::glm::dot(originToCenter, ray.direction_)};
 
     const float originToCenterMagnitude {::glm::length(originToCenter)};
     //a = 1.0 - normalized vectors
-    const float a {::glm::dot(intersection.ray_.direction_, intersection.ray_.direction_)};
+    const float a {::glm::dot(ray.direction_, ray.direction_)};
     const float b {2.0F * -projectionOnDirection};
     const float c {originToCenterMagnitude * originToCenterMagnitude - this->sqRadius_};
     const float discriminant {b * b - 4.0F * a * c};
     //don't intersect (ignores tangent point of the sphere)
     if (discriminant < 0.0F) {
-        return intersection;
+        return RayLengthMax;
     }
 
     //if discriminant > 0 - ray intersects the sphere in 2 points
@@ -64,25 +67,57 @@ Intersection Sphere::intersect(Intersection intersection) const {
     const float distanceToIntersection2 {-b - rootDiscriminant};
     //distance between intersection and camera = smaller root = closer intersection
     const float distanceToIntersection {::std::min(distanceToIntersection1, distanceToIntersection2) / (2.0F * a)};
+    return distanceToIntersection;
+}
+
+/**
+ * Determines if a ray intersects this sphere or not and calculates the distance to the intersection point.
+ * The shading attributes are only calculated later by {@link Sphere#resolveAttributes}.
+ *
+ * @param intersection The previous intersection of the ray in the scene.
+ * @return The intersection point.
+ */
+Intersection Sphere::intersect(Intersection intersection) const {
+    const float distanceToIntersection {intersectDistance(intersection.ray_)};
 
     if (distanceToIntersection < EpsilonLarge || distanceToIntersection >= intersection.length_) {
         return intersection;
     }
 
     // if so, then we have an intersection
-    const ::glm::vec3 &intersectionPoint {intersection.ray_.origin_ + intersection.ray_.direction_ * distanceToIntersection};
-    const ::glm::vec3 &intersectionNormal {::glm::normalize(intersectionPoint - this->center_)};
     const Intersection res {
         ::std::move(intersection.ray_),
-        intersectionPoint,
         distanceToIntersection,
-        intersectionNormal,
         nullptr,
-        this->materialIndex_
+        this->materialIndex_,
+        this,
+        Intersection::SHAPE_SPHERE
     };
     return res;
 }
 
+/**
+ * Determines if a ray intersects this sphere before a given distance, without calculating the intersection point.
+ *
+ * @param ray      The ray.
+ * @param distance The maximum distance of the intersection.
+ * @return Whether the ray intersects the sphere or not.
+ */
+bool Sphere::intersect(const Ray &ray, const float distance) const {
+    const float distanceToIntersection {intersectDistance(ray)};
+    return distanceToIntersection >= EpsilonLarge && distanceToIntersection < distance;
+}
+
+/**
+ * Calculates the shading attributes of an intersection with this sphere.
+ *
+ * @param intersection The nearest intersection of the ray in the scene.
+ */
+void Sphere::resolveAttributes(Intersection *const intersection) const {
+    intersection->point_ = intersection->ray_.origin_ + intersection->ray_.direction_ * intersection->length_;
+    intersection->normal_ = ::glm::normalize(intersection->point_ - this->center_);
+}
+
 /**
  * Calculates the bounding box of the sphere.
  *
@@ -19,6 +19,8 @@ namespace MobileRT {
     private:
         void checkArguments() const;
 
+        float intersectDistance(const Ray &ray) const;
+
     public:
         explicit Sphere () = delete;
 
@@ -36,6 +38,10 @@ namespace MobileRT {
 
         Intersection intersect(Intersection intersection) const;
 
+        bool intersect(const Ray &ray, float distance) const;
+
+        void resolveAttributes(Intersection *intersection) const;
+
         AABB getAABB() const;
 
         bool intersect(const AABB &box) const;
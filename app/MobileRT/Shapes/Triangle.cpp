@@ -8,6 +8,7 @@
 using ::MobileRT::AABB;
 using ::MobileRT::Triangle;
 using ::MobileRT::Intersection;
+using ::MobileRT::Ray;
 
 /**
  * The constructor.
@@ -58,59 +59,101 @@ void Triangle::checkArguments() const {
 }
 
 /**
- * Determines if a ray intersects this triangle or not and calculates the intersection point.
+ * Helper method which calculates the distance from the origin of a ray to the point where it intersects this
+ * triangle.
  *
- * @param intersection The previous intersection of the ray in the scene.
- * @return The intersection point.
+ * @param ray         The ray.
+ * @param barycentric A pointer to store the barycentric coordinates of the intersection point.
+ * @return The distance to the intersection point or {@link MobileRT::RayLengthMax} if the ray doesn't intersect the
+ * triangle.
  */
-Intersection Triangle::intersect(Intersection intersection) const {
-    if (intersection.ray_.primitive_ == this) {
-        return intersection;
+float Triangle::intersectDistance(const Ray &ray, ::glm::vec2 *const barycentric) const {
+    if (ray.primitive_ == this) {
+        return RayLengthMax;
     }
 
-    const ::glm::vec3 &perpendicularVector {::glm::cross(intersection.ray_.direction_, this->AC_)};
+    const ::glm::vec3 &perpendicularVector {::glm::cross(ray.direction_, this->AC_)};
     const float normalizedProjection {::glm::dot(this->AB_, perpendicularVector)};
     if (::std::abs(normalizedProjection) < Epsilon) {
-        return intersection;
+        return RayLengthMax;
     }
 
     //u v = barycentric coordinates (uv-space are inside a unit triangle)
     const float normalizedProjectionInv {1.0F / normalizedProjection};
-    const ::glm::vec3 &vectorToCamera {intersection.ray_.origin_ - this->pointA_};
+    const ::glm::vec3 &vectorToCamera {ray.origin_ - this->pointA_};
     const float u {normalizedProjectionInv * ::glm::dot(vectorToCamera, perpendicularVector)};
     if (u < 0.0F || u > 1.0F) {
-        return intersection;
+        return RayLengthMax;
     }
 
     const ::glm::vec3 &upPerpendicularVector {::glm::cross(vectorToCamera, this->AB_)};
-    const float v {normalizedProjectionInv * ::glm::dot (intersection.ray_.direction_, upPerpendicularVector)};
+    const float v {normalizedProjectionInv * ::glm::dot (ray.direction_, upPerpendicularVector)};
     if (v < 0.0F || (u + v) > 1.0F) {
-        return intersection;
+        return RayLengthMax;
     }
 
     // at this stage we can compute t to find out where
     // the intersection point is on the line
     const float distanceToIntersection {normalizedProjectionInv * ::glm::dot(AC_, upPerpendicularVector)};
+    *barycentric = ::glm::vec2 {u, v};
+    return distanceToIntersection;
+}
+
+/**
+ * Determines if a ray intersects this triangle or not and calculates the distance to the intersection point.
+ * The shading attributes are only calculated later by {@link Triangle#resolveAttributes}.
+ *
+ * @param intersection The previous intersection of the ray in the scene.
+ * @return The intersection point.
+ */
+Intersection Triangle::intersect(Intersection intersection) const {
+    ::glm::vec2 barycentric {};
+    const float distanceToIntersection {intersectDistance(intersection.ray_, &barycentric)};
 
     if (distanceToIntersection < Epsilon || distanceToIntersection >= intersection.length_) {
         return intersection;
     }
 
-    const float w {1.0F - u - v};
-    const ::glm::vec3 &intersectionNormal {::glm::normalize(this->normalA_ * w + this->normalB_ * u + this->normalC_ * v)};
-    const ::glm::vec2 &texCoords {this->texCoordA_ * w + this->texCoordB_ * u + this->texCoordC_ * v};
-    const ::glm::vec3 &intersectionPoint {intersection.ray_.origin_ + intersection.ray_.direction_ * distanceToIntersection};
     const Intersection res {::std::move(intersection.ray_),
-                            intersectionPoint, distanceToIntersection,
-                            intersectionNormal,
+                            distanceToIntersection,
                             this,
                             this->materialIndex_,
-                            texCoords
+                            this,
+                            Intersection::SHAPE_TRIANGLE,
+                            barycentric
     };
 
     return res;
 }
 
+/**
+ * Determines if a ray intersects this triangle before a given distance, without calculating the intersection point.
+ *
+ * @param ray      The ray.
+ * @param distance The maximum distance of the intersection.
+ * @return Whether the ray intersects the triangle or not.
+ */
+bool Triangle::intersect(const Ray &ray, const float distance) const {
+    ::glm::vec2 barycentric {};
+    const float distanceToIntersection {intersectDistance(ray, &barycentric)};
+    return distanceToIntersection >= Epsilon && distanceToIntersection < distance;
+}
+
+/**
+ * Calculates the shading attributes of an intersection with this triangle, interpolating the normals and the
+ * texture coordinates of the vertices with the barycentric coordinates of the intersection point.
+ *
+ * @param intersection The nearest intersection of the ray in the scene.
+ */
+void Triangle::resolveAttributes(Intersection *const intersection) const {
+    const float u {intersection->barycentric_[0]};
+    const float v {intersection->barycentric_[1]};
+    const float w {1.0F - u - v};
+    intersection->point_ = intersection->ray_.origin_ + intersection->ray_.direction_ * intersection->length_;
+    intersection->normal_ = ::glm::normalize(this->normalA_ * w + this->normalB_ * u + this->normalC_ * v);
+    intersection->texCoords_ = this->texCoordA_ * w + this->texCoordB_ * u + this->texCoordC_ * v;
+}
+
 /**
  * Calculates the bounding box of the triangle.
  *
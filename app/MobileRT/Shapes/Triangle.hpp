@@ -33,6 +33,8 @@ namespace MobileRT {
 
         static bool isNearFarInvalid(float near, float far);
 
+        float intersectDistance(const Ray &ray, ::glm::vec2 *barycentric) const;
+
     public:
         explicit Triangle() = delete;
 
@@ -48,6 +50,10 @@ namespace MobileRT {
 
         Intersection intersect(Intersection intersection) const;
 
+        bool intersect(const Ray &ray, float distance) const;
+
+        void resolveAttributes(Intersection *intersection) const;
+
         AABB getAABB() const;
 
         bool intersect(const AABB &box) const;
@@ -0,0 +1,209 @@
+#include "MobileRT/Shapes/TrianglePacket.hpp"
+#include "MobileRT/Utils/Simd.hpp"
+
+using ::MobileRT::Float4;
+using ::MobileRT::Intersection;
+using ::MobileRT::Ray;
+using ::MobileRT::Triangle;
+using ::MobileRT::TrianglePacket;
+
+namespace {
+    /**
+     * Helper method which calculates the cross product of 4 pairs of vectors at once.
+     * It does the same operations as {@link ::glm::cross}, so the results are the same as intersecting the triangles
+     * one by one.
+     *
+     * @param x The first vectors.
+     * @param y The second vectors.
+     * @return The cross products.
+     */
+    ::std::array<Float4, ::MobileRT::NumberOfAxes> cross(const ::std::array<Float4, ::MobileRT::NumberOfAxes> &x,
+                                                          const ::std::array<Float4, ::MobileRT::NumberOfAxes> &y) {
+        return ::std::array<Float4, ::MobileRT::NumberOfAxes> {
+            x[1] * y[2] - y[1] * x[2],
+            x[2] * y[0] - y[2] * x[0],
+            x[0] * y[1] - y[0] * x[1]
+        };
+    }
+
+    /**
+     * Helper method which calculates the dot product of 4 pairs of vectors at once.
+     *
+     * @param x The first vectors.
+     * @param y The second vectors.
+     * @return The dot products.
+     */
+    Float4 dot(const ::std::array<Float4, ::MobileRT::NumberOfAxes> &x,
+               const ::std::array<Float4, ::MobileRT::NumberOfAxes> &y) {
+        return x[0] * y[0] + x[1] * y[1] + x[2] * y[2];
+    }
+
+    /**
+     * Helper method which loads the 4 vectors stored in SoA form.
+     *
+     * @param values The components X, Y and Z of the vectors.
+     * @return The vectors.
+     */
+    ::std::array<Float4, ::MobileRT::NumberOfAxes> load(
+        const ::std::array<::std::array<float, TrianglePacket::Width>, ::MobileRT::NumberOfAxes> &values) {
+        return ::std::array<Float4, ::MobileRT::NumberOfAxes> {
+            Float4::load(values[0].data()), Float4::load(values[1].data()), Float4::load(values[2].data())
+        };
+    }
+}//namespace
+
+/**
+ * The constructor.
+ * <br>
+ * The lanes without a triangle have degenerated edges, so they are never intersected.
+ *
+ * @param triangles The triangles of the packet, or nullptr in the unused lanes.
+ */
+TrianglePacket::TrianglePacket(const ::std::array<const Triangle *, Width> &triangles) :
+        triangles_ {triangles} {
+    for (::std::uint32_t lane {}; lane < static_cast<::std::uint32_t> (Width); ++lane) {
+        const Triangle *const triangle {this->triangles_[lane]};
+        if (triangle == nullptr) {
+            continue;
+        }
+        const ::glm::vec3 &pointA {triangle->getA()};
+        const ::glm::vec3 &AB {triangle->getAB()};
+        const ::glm::vec3 &AC {triangle->getAC()};
+        for (::std::int32_t axis {}; axis < NumberOfAxes; ++axis) {
+            const ::std::uint32_t index {static_cast<::std::uint32_t> (axis)};
+            this->pointA_[index][lane] = pointA[axis];
+            this->AB_[index][lane] = AB[axis];
+            this->AC_[index][lane] = AC[axis];
+        }
+    }
+}
+
+/**
+ * Helper method which determines which triangles of the packet are intersected by a ray with the Möller–Trumbore
+ * algorithm, testing all the triangles at once.
+ * <br>
+ * The triangle from where the ray was casted is not removed from the mask, so the callers must ignore it.
+ *
+ * @param ray       The ray.
+ * @param distance  The maximum distance of the intersections.
+ * @param distances A pointer to store the distances to the intersection points, or nullptr if they are not needed.
+ * @param valuesU   A pointer to store the barycentric coordinates U, or nullptr if they are not needed.
+ * @param valuesV   A pointer to store the barycentric coordinates V, or nullptr if they are not needed.
+ * @return The mask of the lanes whose triangle is intersected.
+ */
+::std::int32_t TrianglePacket::intersectMask(const Ray &ray, const float distance,
+                                             ::std::array<float, Width> *const distances,
+                                             ::std::array<float, Width> *const valuesU,
+                                             ::std::array<float, Width> *const valuesV) const {
+    const ::std::array<Float4, NumberOfAxes> direction {
+        Float4::broadcast(ray.direction_[0]), Float4::broadcast(ray.direction_[1]), Float4::broadcast(ray.direction_[2])
+    };
+    const ::std::array<Float4, NumberOfAxes> AB {load(this->AB_)};
+    const ::std::array<Float4, NumberOfAxes> AC {load(this->AC_)};
+    const ::std::array<Float4, NumberOfAxes> pointA {load(this->pointA_)};
+    const Float4 zero {Float4::broadcast(0.0F)};
+    const Float4 one {Float4::broadcast(1.0F)};
+    const Float4 epsilon {Float4::broadcast(Epsilon)};
+
+    const ::std::array<Float4, NumberOfAxes> perpendicularVector {cross(direction, AC)};
+    const Float4 normalizedProjection {dot(AB, perpendicularVector)};
+    const Float4 normalizedProjectionInv {one / normalizedProjection};
+    const ::std::array<Float4, NumberOfAxes> vectorToCamera {
+        Float4::broadcast(ray.origin_[0]) - pointA[0],
+        Float4::broadcast(ray.origin_[1]) - pointA[1],
+        Float4::broadcast(ray.origin_[2]) - pointA[2]
+    };
+    //u v = barycentric coordinates (uv-space are inside a unit triangle)
+    const Float4 u {normalizedProjectionInv * dot(vectorToCamera, perpendicularVector)};
+    const ::std::array<Float4, NumberOfAxes> upPerpendicularVector {cross(vectorToCamera, AB)};
+    const Float4 v {normalizedProjectionInv * dot(direction, upPerpendicularVector)};
+    const Float4 distanceToIntersection {normalizedProjectionInv * dot(AC, upPerpendicularVector)};
+
+    // The comparisons with NaN are false, so the degenerated triangles are never intersected.
+    const Float4 parallel {lessThan(normalizedProjection, epsilon) & lessThan(zero - epsilon, normalizedProjection)};
+    const Float4 inside {
+        lessEqual(zero, u) & lessEqual(u, one) & lessEqual(zero, v) & lessEqual(u + v, one) &
+        lessEqual(epsilon, distanceToIntersection) & lessThan(distanceToIntersection, Float4::broadcast(distance))
+    };
+    const ::std::int32_t hitMask {inside.getMask() & ~parallel.getMask()};
+    if (hitMask != 0) {
+        if (distances != nullptr) {
+            distanceToIntersection.store(distances->data());
+        }
+        if (valuesU != nullptr) {
+            u.store(valuesU->data());
+        }
+        if (valuesV != nullptr) {
+            v.store(valuesV->data());
+        }
+    }
+    return hitMask;
+}
+
+/**
+ * Determines which triangle of the packet is the nearest one intersected by a ray with the Möller–Trumbore
+ * algorithm, testing all the triangles at once.
+ * <br>
+ * The triangle from where the ray was casted is ignored.
+ *
+ * @param intersection The previous intersection of the ray in the scene.
+ * @return The intersection with the nearest triangle of the packet, or the previous one if no triangle is nearer.
+ */
+Intersection TrianglePacket::intersect(Intersection intersection) const {
+    const Ray &ray {intersection.ray_};
+    alignas(16) ::std::array<float, Width> distances {};
+    alignas(16) ::std::array<float, Width> valuesU {};
+    alignas(16) ::std::array<float, Width> valuesV {};
+    ::std::int32_t hitMask {intersectMask(ray, intersection.length_, &distances, &valuesU, &valuesV)};
+    if (hitMask == 0) {
+        return intersection;
+    }
+
+    float distance {intersection.length_};
+    ::std::int32_t nearestLane {-1};
+    while (hitMask != 0) {
+        const ::std::uint32_t lane {::MobileRT::getFirstLane(hitMask)};
+        hitMask &= hitMask - 1;
+        if (this->triangles_[lane] != ray.primitive_ && distances[lane] < distance) {
+            distance = distances[lane];
+            nearestLane = static_cast<::std::int32_t> (lane);
+        }
+    }
+    if (nearestLane < 0) {
+        return intersection;
+    }
+
+    const ::std::uint32_t lane {static_cast<::std::uint32_t> (nearestLane)};
+    const Triangle *const triangle {this->triangles_[lane]};
+    const Intersection res {::std::move(intersection.ray_),
+                            distance,
+                            triangle,
+                            triangle->getMaterialIndex(),
+                            triangle,
+                            Intersection::SHAPE_TRIANGLE,
+                            ::glm::vec2 {valuesU[lane], valuesV[lane]}
+    };
+    return res;
+}
+
+/**
+ * Determines if a ray intersects any triangle of the packet before a given distance, without calculating the
+ * intersection point.
+ * <br>
+ * The triangle from where the ray was casted is ignored.
+ *
+ * @param ray      The ray.
+ * @param distance The maximum distance of the intersection.
+ * @return Whether the ray intersects a triangle of the packet or not.
+ */
+bool TrianglePacket::intersect(const Ray &ray, const float distance) const {
+    ::std::int32_t hitMask {intersectMask(ray, distance, nullptr, nullptr, nullptr)};
+    while (hitMask != 0) {
+        const ::std::uint32_t lane {::MobileRT::getFirstLane(hitMask)};
+        hitMask &= hitMask - 1;
+        if (this->triangles_[lane] != ray.primitive_) {
+            return true;
+        }
+    }
+    return false;
+}
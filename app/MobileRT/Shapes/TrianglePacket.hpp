@@ -0,0 +1,58 @@
+#ifndef MOBILERT_SHAPES_TRIANGLEPACKET_HPP
+#define MOBILERT_SHAPES_TRIANGLEPACKET_HPP
+
+#include "MobileRT/Intersection.hpp"
+#include "MobileRT/Ray.hpp"
+#include "MobileRT/Shapes/Triangle.hpp"
+#include "MobileRT/Utils/Constants.hpp"
+#include <array>
+
+namespace MobileRT {
+    /**
+     * A class which represents a packet of up to 4 triangles stored in SoA form.
+     * <br>
+     * It only has the data needed to intersect the triangles (the vertex A and the edges AB and AC), so a ray is tested
+     * against all of them at once with SIMD instructions.
+     * The intersection only references the original triangle which was intersected, so its shading attributes (normals
+     * and texture coordinates) are fetched only if it is the nearest one.
+     * The original triangles are not copied, so they must outlive the packet.
+     */
+    class alignas(16) TrianglePacket final {
+    public:
+        /**
+         * The number of triangles in a packet.
+         */
+        static constexpr ::std::int32_t Width {4};
+
+    private:
+        ::std::array<::std::array<float, Width>, NumberOfAxes> pointA_ {};
+        ::std::array<::std::array<float, Width>, NumberOfAxes> AB_ {};
+        ::std::array<::std::array<float, Width>, NumberOfAxes> AC_ {};
+        ::std::array<const Triangle *, Width> triangles_ {};
+
+    private:
+        ::std::int32_t intersectMask(const Ray &ray, float distance, ::std::array<float, Width> *distances,
+                                     ::std::array<float, Width> *valuesU, ::std::array<float, Width> *valuesV) const;
+
+    public:
+        explicit TrianglePacket () = delete;
+
+        explicit TrianglePacket(const ::std::array<const Triangle *, Width> &triangles);
+
+        TrianglePacket(const TrianglePacket &packet) = default;
+
+        TrianglePacket(TrianglePacket &&packet) noexcept = default;
+
+        ~TrianglePacket() = default;
+
+        TrianglePacket &operator=(const TrianglePacket &packet) = default;
+
+        TrianglePacket &operator=(TrianglePacket &&packet) noexcept = default;
+
+        Intersection intersect(Intersection intersection) const;
+
+        bool intersect(const Ray &ray, float distance) const;
+    };
+}//namespace MobileRT
+
+#endif //MOBILERT_SHAPES_TRIANGLEPACKET_HPP
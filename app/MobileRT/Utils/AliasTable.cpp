@@ -0,0 +1,99 @@
+#include "MobileRT/Utils/AliasTable.hpp"
+#include <algorithm>
+#include <cmath>
+#include <numeric>
+
+using ::MobileRT::AliasTable;
+
+/**
+ * The constructor.
+ * <br>
+ * If all the weights are zero (or negative), the indices are sampled uniformly.
+ *
+ * @param weights The non-negative weights of the indices.
+ */
+AliasTable::AliasTable(const ::std::vector<float> &weights) :
+    probabilities_ (weights.size(), 1.0F),
+    aliases_ (weights.size()),
+    pdfs_ (weights.size()) {
+    const ::std::uint32_t size {static_cast<::std::uint32_t> (weights.size())};
+    ::std::iota(this->aliases_.begin(), this->aliases_.end(), 0U);
+    const float totalWeight {::std::accumulate(weights.cbegin(), weights.cend(), 0.0F,
+        [](const float sum, const float weight) { return sum + ::std::max(weight, 0.0F); }
+    )};
+    if (size == 0 || totalWeight <= 0.0F) {
+        ::std::fill(this->pdfs_.begin(), this->pdfs_.end(), size == 0 ? 0.0F : 1.0F / size);
+        return;
+    }
+
+    // Split the entries by whether their scaled weight is below or above the average.
+    ::std::vector<float> scaledWeights (size);
+    ::std::vector<::std::uint32_t> small {};
+    ::std::vector<::std::uint32_t> large {};
+    for (::std::uint32_t i {}; i < size; ++i) {
+        this->pdfs_[i] = ::std::max(weights[i], 0.0F) / totalWeight;
+        scaledWeights[i] = this->pdfs_[i] * size;
+        if (scaledWeights[i] < 1.0F) {
+            small.emplace_back(i);
+        } else {
+            large.emplace_back(i);
+        }
+    }
+
+    // Fill each small entry with the excess of a large one.
+    while (!small.empty() && !large.empty()) {
+        const ::std::uint32_t smallIndex {small.back()};
+        small.pop_back();
+        const ::std::uint32_t largeIndex {large.back()};
+        this->probabilities_[smallIndex] = scaledWeights[smallIndex];
+        this->aliases_[smallIndex] = largeIndex;
+        scaledWeights[largeIndex] = (scaledWeights[largeIndex] + scaledWeights[smallIndex]) - 1.0F;
+        if (scaledWeights[largeIndex] < 1.0F) {
+            large.pop_back();
+            small.emplace_back(largeIndex);
+        }
+    }
+    // The remaining entries are only left due to rounding errors, so they are always chosen.
+    for (const ::std::uint32_t index : small) {
+        this->probabilities_[index] = 1.0F;
+    }
+    for (const ::std::uint32_t index : large) {
+        this->probabilities_[index] = 1.0F;
+    }
+}
+
+/**
+ * Samples an index of the distribution.
+ * <br>
+ * The integer part of the scaled random number chooses an entry of the table and the fractional part chooses between
+ * the entry and its alias.
+ *
+ * @param randomNumber A random number in the interval [0, 1[.
+ * @return The sampled index.
+ */
+::std::uint32_t AliasTable::sample(const float randomNumber) const {
+    const ::std::uint32_t size {getSize()};
+    const float scaled {randomNumber * size * 0.99999F};
+    const ::std::uint32_t index {static_cast<::std::uint32_t> (::std::floor(scaled))};
+    const float fraction {scaled - static_cast<float> (index)};
+    return fraction < this->probabilities_[index] ? index : this->aliases_[index];
+}
+
+/**
+ * Gets the probability of sampling an index.
+ *
+ * @param index The index.
+ * @return The probability of sampling the index.
+ */
+float AliasTable::getPdf(const ::std::uint32_t index) const {
+    return this->pdfs_[index];
+}
+
+/**
+ * Gets the number of indices of the distribution.
+ *
+ * @return The number of indices.
+ */
+::std::uint32_t AliasTable::getSize() const {
+    return static_cast<::std::uint32_t> (this->pdfs_.size());
+}
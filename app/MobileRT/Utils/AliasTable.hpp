@@ -0,0 +1,44 @@
+#ifndef MOBILERT_UTILS_ALIASTABLE_HPP
+#define MOBILERT_UTILS_ALIASTABLE_HPP
+
+#include <cstdint>
+#include <vector>
+
+namespace MobileRT {
+    /**
+     * A class which samples indices of a discrete distribution proportionally to their weights in constant time, with
+     * the alias method (Vose).
+     * <br>
+     * Each entry of the table keeps the probability of choosing itself and the index of the entry chosen otherwise
+     * (its alias), so a sample only needs one random number.
+     */
+    class AliasTable final {
+    private:
+        ::std::vector<float> probabilities_ {};
+        ::std::vector<::std::uint32_t> aliases_ {};
+        ::std::vector<float> pdfs_ {};
+
+    public:
+        explicit AliasTable () = default;
+
+        explicit AliasTable(const ::std::vector<float> &weights);
+
+        AliasTable(const AliasTable &aliasTable) = default;
+
+        AliasTable(AliasTable &&aliasTable) noexcept = default;
+
+        ~AliasTable() = default;
+
+        AliasTable &operator=(const AliasTable &aliasTable) = default;
+
+        AliasTable &operator=(AliasTable &&aliasTable) noexcept = default;
+
+        ::std::uint32_t sample(float randomNumber) const;
+
+        float getPdf(::std::uint32_t index) const;
+
+        ::std::uint32_t getSize() const;
+    };
+}//namespace MobileRT
+
+#endif //MOBILERT_UTILS_ALIASTABLE_HPP
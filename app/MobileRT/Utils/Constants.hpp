@@ -45,9 +45,41 @@ namespace MobileRT {
     const ::std::int32_t RayDepthMax {6};
 
     /**
-     * The number of tiles (blocks) that divide an image plane.
+     * The default width and height in pixels of the tiles (blocks) that divide an image plane.
+     * The tiles in the right and bottom edges of the image can be smaller, when the resolution is not a multiple of
+     * this value.
      */
-    const ::std::int32_t NumberOfTiles {256};
+    const ::std::int32_t TileSize {16};
+
+    /**
+     * The interval in milliseconds between each resolve of the accumulated colors into the bitmap while a frame is
+     * being rendered.
+     * It matches the default interval which the Android UI uses to update the image.
+     */
+    constexpr ::std::int64_t ResolveInterval {250};
+
+    /**
+     * The minimum number of samples of a pixel before the adaptive sampling can consider it converged, so the
+     * estimate of its error is reliable.
+     */
+    constexpr ::std::int32_t AdaptiveMinSamples {8};
+
+    /**
+     * The maximum number of samples of a pixel with the adaptive sampling, as a multiple of the samples per pixel of
+     * the renderer, so the pixels which never converge don't keep the renderer busy forever.
+     */
+    constexpr ::std::int32_t AdaptiveMaxSamplesFactor {4};
+
+    /**
+     * The number of coherent primary rays traced together as a packet through the BVH.
+     */
+    constexpr ::std::int32_t RayPacketSize {4};
+
+    /**
+     * The minimum number of rays of a packet which must still intersect a node of the BVH to keep traversing its
+     * subtree as a packet. With less rays, the packet diverged and the remaining rays are traced individually.
+     */
+    constexpr ::std::int32_t RayPacketMinActive {2};
 
     /**
      * The number of axes in the scene.
@@ -61,6 +93,11 @@ namespace MobileRT {
      */
     constexpr ::std::int32_t StackSize {512};
 
+    /**
+     * The default number of bins used by the binned SAH builder of the BVH.
+     */
+    constexpr ::std::int32_t NumberOfBins {16};
+
     /**
      * A mask that is used to get an index in an array more efficiently.
      * For example: index = counter++ & ArrayMask
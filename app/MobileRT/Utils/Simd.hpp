@@ -0,0 +1,334 @@
+#ifndef MOBILERT_UTILS_SIMD_HPP
+#define MOBILERT_UTILS_SIMD_HPP
+
+#include <array>
+#include <cstdint>
+#include <cstring>
+
+#if defined(_MSC_VER)
+    #include <intrin.h>
+#endif
+
+#if defined(__SSE__) || defined(_M_X64) || (defined(_M_IX86_FP) && _M_IX86_FP >= 1)
+    #define MOBILERT_SIMD_SSE
+    #include <xmmintrin.h>
+#elif defined(__ARM_NEON) || defined(__ARM_NEON__)
+    #define MOBILERT_SIMD_NEON
+    #include <arm_neon.h>
+#endif
+
+namespace MobileRT {
+
+    /**
+     * A small wrapper of a vector of 4 floats which uses the SIMD instructions available in the target CPU.
+     * <br>
+     * It uses SSE in x86 CPUs, NEON in ARM CPUs and falls back to plain scalar code otherwise.
+     * The comparisons return a mask where every lane has all the bits set if the condition is true, which can then be
+     * combined with the bitwise operators or converted into an integer with {@link Float4::getMask}.
+     */
+    struct Float4 final {
+#if defined(MOBILERT_SIMD_SSE)
+        __m128 value_;
+#elif defined(MOBILERT_SIMD_NEON)
+        float32x4_t value_;
+#else
+        ::std::array<float, 4> value_;
+#endif
+
+        /**
+         * Loads 4 floats from memory aligned to 16 bytes.
+         *
+         * @param values The pointer to the floats.
+         * @return The loaded floats.
+         */
+        static Float4 load(const float *const values) {
+#if defined(MOBILERT_SIMD_SSE)
+            return Float4 {_mm_load_ps(values)};
+#elif defined(MOBILERT_SIMD_NEON)
+            return Float4 {vld1q_f32(values)};
+#else
+            return Float4 {{values[0], values[1], values[2], values[3]}};
+#endif
+        }
+
+        /**
+         * Creates a vector with the same value in all the lanes.
+         *
+         * @param value The value.
+         * @return The vector.
+         */
+        static Float4 broadcast(const float value) {
+#if defined(MOBILERT_SIMD_SSE)
+            return Float4 {_mm_set1_ps(value)};
+#elif defined(MOBILERT_SIMD_NEON)
+            return Float4 {vdupq_n_f32(value)};
+#else
+            return Float4 {{value, value, value, value}};
+#endif
+        }
+
+        /**
+         * Stores the 4 floats into memory aligned to 16 bytes.
+         *
+         * @param values The pointer where to store the floats.
+         */
+        void store(float *const values) const {
+#if defined(MOBILERT_SIMD_SSE)
+            _mm_store_ps(values, this->value_);
+#elif defined(MOBILERT_SIMD_NEON)
+            vst1q_f32(values, this->value_);
+#else
+            for (::std::uint32_t i {}; i < 4; ++i) {
+                values[i] = this->value_[i];
+            }
+#endif
+        }
+
+        /**
+         * Converts a mask returned by a comparison into an integer where the bit N is set if the lane N is true.
+         *
+         * @return The bits of the mask.
+         */
+        ::std::int32_t getMask() const {
+#if defined(MOBILERT_SIMD_SSE)
+            return _mm_movemask_ps(this->value_);
+#elif defined(MOBILERT_SIMD_NEON)
+            const uint32x4_t bits {vshrq_n_u32(vreinterpretq_u32_f32(this->value_), 31)};
+            return static_cast<::std::int32_t> (
+                vgetq_lane_u32(bits, 0) | (vgetq_lane_u32(bits, 1) << 1U) |
+                (vgetq_lane_u32(bits, 2) << 2U) | (vgetq_lane_u32(bits, 3) << 3U)
+            );
+#else
+            ::std::int32_t mask {};
+            for (::std::uint32_t i {}; i < 4; ++i) {
+                ::std::uint32_t bits {};
+                static_assert(sizeof(bits) == sizeof(float), "A float should have 32 bits.");
+                ::std::memcpy(&bits, &this->value_[i], sizeof(bits));
+                mask |= static_cast<::std::int32_t> ((bits >> 31U) << i);
+            }
+            return mask;
+#endif
+        }
+    };
+
+#if !defined(MOBILERT_SIMD_SSE) && !defined(MOBILERT_SIMD_NEON)
+    namespace detail {
+        /**
+         * Helper method which applies an operation to all the lanes of the scalar fallback.
+         *
+         * @tparam Operation The type of the operation.
+         * @param a         The first operand.
+         * @param b         The second operand.
+         * @param operation The operation.
+         * @return The result of the operation in all the lanes.
+         */
+        template<typename Operation>
+        inline Float4 applyLanes(const Float4 &a, const Float4 &b, const Operation operation) {
+            Float4 res {};
+            for (::std::uint32_t i {}; i < 4; ++i) {
+                res.value_[i] = operation(a.value_[i], b.value_[i]);
+            }
+            return res;
+        }
+
+        /**
+         * Helper method which converts a condition into a lane of a mask.
+         *
+         * @param condition The condition.
+         * @return A float with all the bits set if the condition is true, or with all the bits cleared otherwise.
+         */
+        inline float toMaskLane(const bool condition) {
+            const ::std::uint32_t bits {condition ? 0xFFFFFFFFU : 0U};
+            float res {};
+            ::std::memcpy(&res, &bits, sizeof(res));
+            return res;
+        }
+
+        /**
+         * Helper method which applies a bitwise operation to a lane.
+         *
+         * @tparam Operation The type of the operation.
+         * @param a         The first operand.
+         * @param b         The second operand.
+         * @param operation The bitwise operation.
+         * @return The result of the operation.
+         */
+        template<typename Operation>
+        inline float applyBits(const float a, const float b, const Operation operation) {
+            ::std::uint32_t bitsA {};
+            ::std::uint32_t bitsB {};
+            ::std::memcpy(&bitsA, &a, sizeof(bitsA));
+            ::std::memcpy(&bitsB, &b, sizeof(bitsB));
+            const ::std::uint32_t bits {operation(bitsA, bitsB)};
+            float res {};
+            ::std::memcpy(&res, &bits, sizeof(res));
+            return res;
+        }
+    }//namespace detail
+#endif
+
+    /**
+     * Adds each lane.
+     */
+    inline Float4 operator+(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_add_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vaddq_f32(a.value_, b.value_)};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) { return x + y; });
+#endif
+    }
+
+    /**
+     * Subtracts each lane.
+     */
+    inline Float4 operator-(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_sub_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vsubq_f32(a.value_, b.value_)};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) { return x - y; });
+#endif
+    }
+
+    /**
+     * Multiplies each lane.
+     */
+    inline Float4 operator*(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_mul_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vmulq_f32(a.value_, b.value_)};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) { return x * y; });
+#endif
+    }
+
+    /**
+     * Divides each lane.
+     */
+    inline Float4 operator/(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_div_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON) && defined(__aarch64__)
+        return Float4 {vdivq_f32(a.value_, b.value_)};
+#else
+        alignas(16) ::std::array<float, 4> valuesA {};
+        alignas(16) ::std::array<float, 4> valuesB {};
+        a.store(valuesA.data());
+        b.store(valuesB.data());
+        for (::std::uint32_t i {}; i < 4; ++i) {
+            valuesA[i] /= valuesB[i];
+        }
+        return Float4::load(valuesA.data());
+#endif
+    }
+
+    /**
+     * Calculates the bitwise and of each lane, which is useful to combine masks.
+     */
+    inline Float4 operator&(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_and_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vreinterpretq_f32_u32(vandq_u32(vreinterpretq_u32_f32(a.value_), vreinterpretq_u32_f32(b.value_)))};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) {
+            return detail::applyBits(x, y, [](const ::std::uint32_t bitsX, const ::std::uint32_t bitsY) { return bitsX & bitsY; });
+        });
+#endif
+    }
+
+    /**
+     * Calculates the bitwise or of each lane, which is useful to combine masks.
+     */
+    inline Float4 operator|(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_or_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vreinterpretq_f32_u32(vorrq_u32(vreinterpretq_u32_f32(a.value_), vreinterpretq_u32_f32(b.value_)))};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) {
+            return detail::applyBits(x, y, [](const ::std::uint32_t bitsX, const ::std::uint32_t bitsY) { return bitsX | bitsY; });
+        });
+#endif
+    }
+
+    /**
+     * Calculates the minimum of each lane.
+     * If any of the values is NaN, then the second one is returned.
+     */
+    inline Float4 min(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_min_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vbslq_f32(vcltq_f32(a.value_, b.value_), a.value_, b.value_)};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) { return x < y ? x : y; });
+#endif
+    }
+
+    /**
+     * Calculates the maximum of each lane.
+     * If any of the values is NaN, then the second one is returned.
+     */
+    inline Float4 max(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_max_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vbslq_f32(vcgtq_f32(a.value_, b.value_), a.value_, b.value_)};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) { return x > y ? x : y; });
+#endif
+    }
+
+    /**
+     * Compares each lane and returns a mask with the lanes where the first value is less or equal than the second.
+     */
+    inline Float4 lessEqual(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_cmple_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vreinterpretq_f32_u32(vcleq_f32(a.value_, b.value_))};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) { return detail::toMaskLane(x <= y); });
+#endif
+    }
+
+    /**
+     * Compares each lane and returns a mask with the lanes where the first value is less than the second.
+     */
+    inline Float4 lessThan(const Float4 &a, const Float4 &b) {
+#if defined(MOBILERT_SIMD_SSE)
+        return Float4 {_mm_cmplt_ps(a.value_, b.value_)};
+#elif defined(MOBILERT_SIMD_NEON)
+        return Float4 {vreinterpretq_f32_u32(vcltq_f32(a.value_, b.value_))};
+#else
+        return detail::applyLanes(a, b, [](const float x, const float y) { return detail::toMaskLane(x < y); });
+#endif
+    }
+
+    /**
+     * Gets the index of the lowest lane set in a mask returned by {@link Float4::getMask}.
+     * <br>
+     * It counts the trailing zeros with the intrinsic of the compiler, since MSVC doesn't have the one from GCC and
+     * Clang.
+     *
+     * @param mask The mask of the lanes, which must have at least one lane set.
+     * @return The index of the lowest lane set.
+     */
+    inline ::std::uint32_t getFirstLane(const ::std::int32_t mask) {
+#if defined(_MSC_VER)
+        unsigned long lane {};
+        _BitScanForward(&lane, static_cast<unsigned long> (mask));
+        return static_cast<::std::uint32_t> (lane);
+#else
+        return static_cast<::std::uint32_t> (__builtin_ctz(static_cast<unsigned int> (mask)));
+#endif
+    }
+
+}//namespace MobileRT
+
+#endif //MOBILERT_UTILS_SIMD_HPP
@@ -0,0 +1,139 @@
+#include "MobileRT/Utils/ThreadPool.hpp"
+#include "MobileRT/Utils/Utils.hpp"
+
+#if defined(__linux__)
+    #include <sched.h>
+#endif
+
+using ::MobileRT::ThreadPool;
+
+/**
+ * The constructor.
+ *
+ * @param numWorkers The number of worker threads to create.
+ */
+ThreadPool::ThreadPool(const ::std::int32_t numWorkers) {
+    LOG_INFO("Creating thread pool with ", numWorkers, " workers");
+    MobileRT::checkSystemError("Creating thread pool");
+    this->workers_.reserve(static_cast<::std::uint32_t> (::std::max(numWorkers, 0)));
+    for (::std::int32_t i {}; i < numWorkers; ++i) {
+        this->workers_.emplace_back(&ThreadPool::workerLoop, this, i);
+    }
+    MobileRT::checkSystemError("Created thread pool");
+}
+
+/**
+ * The destructor.
+ * <br>
+ * It waits for the current task to finish and then stops all the workers.
+ */
+ThreadPool::~ThreadPool() {
+    {
+        const ::std::lock_guard<::std::mutex> lock {this->mutex_};
+        this->stop_ = true;
+    }
+    this->taskSubmitted_.notify_all();
+    for (::std::thread &worker : this->workers_) {
+        worker.join();
+    }
+    this->workers_.clear();
+    MobileRT::checkSystemError("Destroyed thread pool");
+}
+
+/**
+ * Submits a task to be executed once by every worker.
+ * <br>
+ * The task receives the index of the worker which is executing it.
+ * The previous task must have finished before a new one is submitted, so {@link ThreadPool#wait} should be called
+ * between them.
+ *
+ * @param task The task to execute.
+ */
+void ThreadPool::submit(::std::function<void(::std::int32_t)> task) {
+    {
+        const ::std::lock_guard<::std::mutex> lock {this->mutex_};
+        ASSERT(this->pendingWorkers_ == 0, "The previous task must have finished.");
+        this->task_ = ::std::move(task);
+        this->pendingWorkers_ = static_cast<::std::int32_t> (this->workers_.size());
+        ++this->generation_;
+    }
+    this->taskSubmitted_.notify_all();
+}
+
+/**
+ * Waits until all the workers finished the submitted task.
+ */
+void ThreadPool::wait() {
+    ::std::unique_lock<::std::mutex> lock {this->mutex_};
+    this->taskFinished_.wait(lock, [&] { return this->pendingWorkers_ == 0; });
+    this->task_ = nullptr;
+}
+
+/**
+ * Gets the number of worker threads.
+ *
+ * @return The number of workers.
+ */
+::std::int32_t ThreadPool::getNumWorkers() const {
+    return static_cast<::std::int32_t> (this->workers_.size());
+}
+
+/**
+ * Helper method with the loop executed by each worker, which waits for a task, executes it and signals when it
+ * finished.
+ *
+ * @param workerId The index of the worker.
+ */
+void ThreadPool::workerLoop(const ::std::int32_t workerId) {
+    pinCurrentThread(workerId);
+    ::std::uint64_t lastGeneration {};
+    while (true) {
+        ::std::function<void(::std::int32_t)> *task {};
+        {
+            ::std::unique_lock<::std::mutex> lock {this->mutex_};
+            this->taskSubmitted_.wait(lock, [&] { return this->stop_ || this->generation_ != lastGeneration; });
+            if (this->stop_) {
+                return;
+            }
+            lastGeneration = this->generation_;
+            task = &this->task_;
+        }
+
+        (*task)(workerId);
+
+        bool lastWorker {};
+        {
+            const ::std::lock_guard<::std::mutex> lock {this->mutex_};
+            --this->pendingWorkers_;
+            lastWorker = this->pendingWorkers_ == 0;
+        }
+        if (lastWorker) {
+            this->taskFinished_.notify_all();
+        }
+    }
+}
+
+/**
+ * Helper method which pins the current thread to a CPU core, so the operating system doesn't migrate it between
+ * cores.
+ * It does nothing in the platforms which don't support it.
+ *
+ * @param workerId The index of the worker, which determines the CPU core.
+ */
+void ThreadPool::pinCurrentThread(const ::std::int32_t workerId) {
+#if defined(__linux__)
+    const ::std::uint32_t numCores {::std::thread::hardware_concurrency()};
+    if (numCores <= 1) {
+        return;
+    }
+    cpu_set_t cpuSet {};
+    CPU_ZERO(&cpuSet);
+    CPU_SET(static_cast<::std::uint32_t> (workerId) % numCores, &cpuSet);
+    if (sched_setaffinity(0, sizeof(cpuSet), &cpuSet) != 0) {
+        LOG_WARN("Couldn't pin the worker ", workerId, " to a CPU core");
+        errno = 0;
+    }
+#else
+    static_cast<void> (workerId);
+#endif
+}
@@ -0,0 +1,58 @@
+#ifndef MOBILERT_UTILS_THREADPOOL_HPP
+#define MOBILERT_UTILS_THREADPOOL_HPP
+
+#include <condition_variable>
+#include <cstdint>
+#include <functional>
+#include <mutex>
+#include <thread>
+#include <vector>
+
+namespace MobileRT {
+    /**
+     * A class which represents a pool of long-lived worker threads.
+     * <br>
+     * The workers are created once and each one is pinned to a CPU core (when the platform supports it), so they keep
+     * their caches warm between frames. A task is submitted to all the workers at once with
+     * {@link ThreadPool#submit} and {@link ThreadPool#wait} blocks until all of them finished it.
+     */
+    class ThreadPool final {
+    private:
+        ::std::vector<::std::thread> workers_ {};
+        ::std::function<void(::std::int32_t)> task_ {};
+        ::std::mutex mutex_ {};
+        ::std::condition_variable taskSubmitted_ {};
+        ::std::condition_variable taskFinished_ {};
+        ::std::uint64_t generation_ {};
+        ::std::int32_t pendingWorkers_ {};
+        bool stop_ {};
+
+    private:
+        void workerLoop(::std::int32_t workerId);
+
+        static void pinCurrentThread(::std::int32_t workerId);
+
+    public:
+        explicit ThreadPool () = delete;
+
+        explicit ThreadPool(::std::int32_t numWorkers);
+
+        ThreadPool(const ThreadPool &threadPool) = delete;
+
+        ThreadPool(ThreadPool &&threadPool) noexcept = delete;
+
+        ~ThreadPool();
+
+        ThreadPool &operator=(const ThreadPool &threadPool) = delete;
+
+        ThreadPool &operator=(ThreadPool &&threadPool) noexcept = delete;
+
+        void submit(::std::function<void(::std::int32_t)> task);
+
+        void wait();
+
+        ::std::int32_t getNumWorkers() const;
+    };
+}//namespace MobileRT
+
+#endif //MOBILERT_UTILS_THREADPOOL_HPP
@@ -4,6 +4,7 @@
 #include <clocale>
 #include <functional>
 #include <string>
+#include <thread>
 
 // Not available in Windows nor MacOS.
 #if !defined(_WIN32) && !defined(__APPLE__)
@@ -61,6 +62,35 @@ namespace MobileRT {
         return nextValue;
     }
 
+    /**
+     * Calculates a hash of a value with the permutation of the PCG random number generator.
+     * <br>
+     * This allows to calculate random numbers without state, by hashing the indices of the desired number
+     * (e.g.: the pixel, the sample and the dimension).
+     * @see <a href="https://jcgt.org/published/0009/03/02/">Hash Functions for GPU Rendering</a>
+     *
+     * @param value The value to hash.
+     * @return The hash of the value.
+     */
+    ::std::uint32_t pcgHash(const ::std::uint32_t value) {
+        const ::std::uint32_t state {value * 747796405U + 2891336453U};
+        const ::std::uint32_t word {((state >> ((state >> 28U) + 4U)) ^ state) * 277803737U};
+        return (word >> 22U) ^ word;
+    }
+
+    /**
+     * Calculates a seed for the current thread.
+     * <br>
+     * This is useful to initialize thread local counters, so each thread uses a different sequence of random
+     * numbers without sharing an atomic counter with the other threads.
+     *
+     * @return A seed for the current thread.
+     */
+    ::std::uint32_t getThreadSeed() {
+        const ::std::uint64_t threadId {::std::hash<::std::thread::id> {} (::std::this_thread::get_id())};
+        return pcgHash(static_cast<::std::uint32_t> (threadId ^ (threadId >> 32U)));
+    }
+
     /**
      * Calculates the new average as an integer with the new sample and the number of samples
      * already done.
@@ -98,6 +128,35 @@ namespace MobileRT {
         return res;
     }
 
+    /**
+     * Converts a color into an integer in the ARGB format of the bitmaps, clamping each channel to the [0, 1] range.
+     *
+     * @param color The color.
+     * @return The color as an integer (with alpha 0xFF).
+     */
+    ::std::int32_t toArgb(const ::glm::vec3 &color) {
+        const ::glm::vec3 clamped {::glm::clamp(color, 0.0F, 1.0F)};
+        const ::std::uint32_t red {static_cast<::std::uint32_t> (clamped[0] * 255U)};
+        const ::std::uint32_t green {static_cast<::std::uint32_t> (clamped[1] * 255U)};
+        const ::std::uint32_t blue {static_cast<::std::uint32_t> (clamped[2] * 255U)};
+
+        const ::std::int32_t res {static_cast<::std::int32_t> (0xFF000000 | blue << 16U | green << 8U | red)};
+
+        return res;
+    }
+
+    /**
+     * Calculates the luminance of a color, i.e., the brightness perceived by the human eye.
+     * @see <a href="https://en.wikipedia.org/wiki/Relative_luminance">Wikipedia: Relative luminance</a>
+     *
+     * @param color The color.
+     * @return The luminance of the color.
+     */
+    float toLuminance(const ::glm::vec3 &color) {
+        const float res {::glm::dot(color, ::glm::vec3 {0.2126F, 0.7152F, 0.0722F})};
+        return res;
+    }
+
     /**
      * Converts a sequence of chars to a vec2.
      *
@@ -105,10 +105,18 @@ namespace MobileRT {
 
     float haltonSequence(::std::uint32_t index, ::std::uint32_t base);
 
+    ::std::uint32_t pcgHash(::std::uint32_t value);
+
+    ::std::uint32_t getThreadSeed();
+
     ::std::int32_t incrementalAvg(const ::glm::vec3 &sample,
                                   ::std::int32_t avg,
                                   ::std::int32_t numSample);
 
+    ::std::int32_t toArgb(const ::glm::vec3 &color);
+
+    float toLuminance(const ::glm::vec3 &color);
+
     template<::std::int32_t S, typename T>
     inline ::std::array<T, S> toArray(const char *values);
 
@@ -19,6 +19,7 @@
 #include "Components/Shaders/DiffuseMaterial.hpp"
 #include "Components/Shaders/NoShadows.hpp"
 #include "Components/Shaders/PathTracer.hpp"
+#include "Components/Shaders/WavefrontPathTracer.hpp"
 #include "Components/Shaders/Whitted.hpp"
 #include "MobileRT/Renderer.hpp"
 #include "MobileRT/Scene.hpp"
@@ -550,6 +551,10 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
         const jint samplesLight {env->CallIntMethod(samplesConfig, samplesLightMethodId)};
         LOG_DEBUG("samplesLight: ", samplesLight);
 
+        const jmethodID targetErrorMethodId {env->GetMethodID(samplesConfigClass, "getTargetError", "()F")};
+        const jfloat targetError {env->CallFloatMethod(samplesConfig, targetErrorMethodId)};
+        LOG_DEBUG("targetError: ", targetError);
+
         jboolean isCopy {JNI_FALSE};
         const jmethodID objMethodId {env->GetMethodID(configClass, "getObjFilePath", "()Ljava/lang/String;")};
         const jstring localObjFilePath {reinterpret_cast<jstring> (env->CallObjectMethod(localConfig, objMethodId))};
@@ -695,6 +700,20 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
                         break;
                     }
 
+                    case 5: {
+                        ::std::unique_ptr<MobileRT::Sampler> samplerRussianRoulette{
+                            ::MobileRT::std::make_unique<Components::StaticPCG>()
+                        };
+
+                        shader = ::MobileRT::std::make_unique<Components::WavefrontPathTracer>(
+                            ::std::move(scene),
+                            ::std::move(samplerRussianRoulette),
+                            samplesLight,
+                            ::MobileRT::Shader::Accelerator(acceleratorIndex)
+                        );
+                        break;
+                    }
+
                     default: {
                         shader = ::MobileRT::std::make_unique<Components::NoShadows>(
                             ::std::move(scene),
@@ -723,10 +742,12 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
                 LOG_INFO("width = ", width);
                 LOG_INFO("height = ", height);
                 LOG_INFO("samplesPixel = ", samplesPixel);
+                LOG_INFO("targetError = ", targetError);
                 renderer_ = ::MobileRT::std::make_unique<::MobileRT::Renderer>(
                     ::std::move(shader), ::std::move(camera), ::std::move(samplerPixel),
                     width, height, samplesPixel
                 );
+                renderer_->setTargetError(targetError);
                 MobileRT::checkSystemError("Renderer was built.");
                 timeRenderer_ = ::std::chrono::duration_cast<::std::chrono::milliseconds>(chronoEnd - chronoStart).count();
                 LOG_INFO("TIME CONSTRUCTION RENDERER = ", timeRenderer_, "ms");
@@ -750,6 +771,74 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
     }
 }
 
+/**
+ * Helper method which reads a vec3 from a Java array of floats.
+ *
+ * @param env   The JNI environment.
+ * @param array The Java array with (at least) 3 floats.
+ * @return The vec3 with the values in the array.
+ */
+static ::glm::vec3 toVec3(JNIEnv *const env, const jfloatArray array) {
+    ::std::array<jfloat, 3> values {};
+    env->GetFloatArrayRegion(array, 0, static_cast<jsize> (values.size()), values.data());
+    const ::glm::vec3 res {values[0], values[1], values[2]};
+    return res;
+}
+
+extern "C"
+jboolean Java_puscas_mobilertapp_MainRenderer_rtUpdateCamera(
+    JNIEnv *env,
+    jobject /*thiz*/,
+    jfloatArray position,
+    jfloatArray lookAt,
+    jfloatArray up,
+    jfloat fovH,
+    jfloat fovV
+) {
+    errno = 0;
+    LOG_DEBUG("rtUpdateCamera start");
+
+    try {
+        const ::glm::vec3 cameraPosition {toVec3(env, position)};
+        const ::glm::vec3 cameraLookAt {toVec3(env, lookAt)};
+        const ::glm::vec3 cameraUp {toVec3(env, up)};
+
+        const ::std::lock_guard<::std::mutex> lock {mutex_};
+        if (renderer_ == nullptr || state_ == State::BUSY) {
+            LOG_WARN("Can't update the camera while the scene is not loaded or is being rendered.");
+            env->ExceptionClear();
+            return JNI_FALSE;
+        }
+        // Keep the type of the camera, so only its point of view and field of view change.
+        ::MobileRT::Camera *const camera {renderer_->camera_.get()};
+        ::std::unique_ptr<::MobileRT::Camera> newCamera {};
+        if (dynamic_cast<::Components::Perspective *> (camera) != nullptr) {
+            newCamera = ::MobileRT::std::make_unique<::Components::Perspective>(
+                cameraPosition, cameraLookAt, cameraUp, fovH, fovV
+            );
+        } else if (dynamic_cast<::Components::Orthographic *> (camera) != nullptr) {
+            newCamera = ::MobileRT::std::make_unique<::Components::Orthographic>(
+                cameraPosition, cameraLookAt, cameraUp, fovH, fovV
+            );
+        } else {
+            LOG_ERROR("Unknown camera type.");
+            env->ExceptionClear();
+            return JNI_FALSE;
+        }
+        renderer_->setCamera(::std::move(newCamera));
+        env->ExceptionClear();
+        MobileRT::checkSystemError("rtUpdateCamera finish");
+        return JNI_TRUE;
+    } catch (const ::std::bad_alloc &badAlloc) {
+        handleException(env, badAlloc, "puscas/mobilertapp/exceptions/LowMemoryException");
+    } catch (const ::std::exception &exception) {
+        handleException(env, exception, "java/lang/RuntimeException");
+    } catch (...) {
+        handleException(env, ::std::exception {}, "java/lang/RuntimeException");
+    }
+    return JNI_FALSE;
+}
+
 extern "C"
 void Java_puscas_mobilertapp_MainRenderer_rtFinishRender(
     JNIEnv *env,
@@ -824,22 +913,20 @@ void Java_puscas_mobilertapp_MainRenderer_rtRenderIntoBitmap(
 
                 LOG_INFO("WILL START TO RENDER");
 
-                ::std::int32_t rep {1};
                 MobileRT::checkSystemError("starting render timer");
                 const ::std::chrono::time_point<::std::chrono::system_clock> chronoStartRendering {::std::chrono::system_clock::now()};
-                while (state_ == State::BUSY && rep > 0) {
+                if (state_ == State::BUSY) {
                     LOG_DEBUG("STARTING RENDERING");
                     LOG_DEBUG("nThreads = ", nThreads);
-                    {
-                        if (renderer_ != nullptr) {
-                            MobileRT::checkSystemError("starting renderFrame");
-                            renderer_->renderFrame(dstPixels, nThreads);
-                            MobileRT::checkSystemError("renderFrame done");
-                        }
+                    if (renderer_ != nullptr) {
+                        // Render progressively, so the image is updated after each sample per pixel and the user
+                        // gets a preview without waiting for all the samples.
+                        MobileRT::checkSystemError("starting renderProgressive");
+                        renderer_->renderProgressive(dstPixels, nThreads, 0, 0.0F);
+                        MobileRT::checkSystemError("renderProgressive done");
                     }
                     LOG_DEBUG("FINISHED RENDERING");
                     updateFps();
-                    rep--;
                 }
                 const ::std::chrono::time_point<::std::chrono::system_clock> chronoEndRendering {::std::chrono::system_clock::now()};
                 ::std::chrono::duration<double> timeRendering {chronoEndRendering - chronoStartRendering};
@@ -984,11 +1071,8 @@ extern "C"
 ) {
     errno = 0;
 
-    const ::std::int32_t res{
-        ::MobileRT::roundDownToMultipleOf(
-            size, static_cast<::std::int32_t> (::std::sqrt(::MobileRT::NumberOfTiles))
-        )
-    };
+    // The Renderer supports any resolution, so it only needs to have at least one pixel.
+    const ::std::int32_t res {::std::max(size, 1)};
     env->ExceptionClear();
 
     MobileRT::checkSystemError("rtResize finish");
@@ -142,4 +142,15 @@ jint Java_puscas_mobilertapp_MainRenderer_rtInitialize(
         jobject localConfig
 );
 
+extern "C"
+jboolean Java_puscas_mobilertapp_MainRenderer_rtUpdateCamera(
+        JNIEnv *env,
+        jobject thiz,
+        jfloatArray position,
+        jfloatArray lookAt,
+        jfloatArray up,
+        jfloat fovH,
+        jfloat fovV
+);
+
 #endif //APP_JNI_LAYER_HPP
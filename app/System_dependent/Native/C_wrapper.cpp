@@ -15,6 +15,7 @@
 #include "Components/Shaders/DiffuseMaterial.hpp"
 #include "Components/Shaders/NoShadows.hpp"
 #include "Components/Shaders/PathTracer.hpp"
+#include "Components/Shaders/WavefrontPathTracer.hpp"
 #include "Components/Shaders/Whitted.hpp"
 #include "MobileRT/Config.hpp"
 #include "MobileRT/Renderer.hpp"
@@ -176,6 +177,18 @@ static void work_thread(::MobileRT::Config &config) {
                     break;
                 }
 
+                case 5: {
+                    ::std::unique_ptr<MobileRT::Sampler> samplerRussianRoulette {
+                        ::MobileRT::std::make_unique<::Components::StaticHaltonSeq> ()
+                    };
+
+                    shader_ = ::MobileRT::std::make_unique<::Components::WavefrontPathTracer> (
+                        ::std::move(scene), ::std::move(samplerRussianRoulette), config.samplesLight,
+                        ::MobileRT::Shader::Accelerator(config.accelerator)
+                    );
+                    break;
+                }
+
                 default: {
                     shader_ = ::MobileRT::std::make_unique<::Components::NoShadows> (
                         ::std::move(scene), config.samplesLight, ::MobileRT::Shader::Accelerator(config.accelerator)
@@ -199,6 +212,7 @@ static void work_thread(::MobileRT::Config &config) {
                     ::std::move(shader_), ::std::move(camera), ::std::move(samplerPixel),
                     config.width, config.height, config.samplesPixel
             );
+            renderer_->setTargetError(config.targetError);
             ::MobileRT::checkSystemError("Created renderer");
 
             // Print debug information
@@ -207,6 +221,7 @@ static void work_thread(::MobileRT::Config &config) {
             LOG_INFO("scene = ", config.sceneIndex);
             LOG_INFO("samplesPixel = ", config.samplesPixel);
             LOG_INFO("samplesLight = ", config.samplesLight);
+            LOG_INFO("targetError = ", config.targetError);
             LOG_INFO("width = ", config.width);
             LOG_INFO("height = ", config.height);
             LOG_INFO("repeats = ", config.repeats);
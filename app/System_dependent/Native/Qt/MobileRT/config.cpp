@@ -24,12 +24,14 @@ Config::Config(const Config::Builder &builder) :
     ui->shaderButton->addAction(new QAction("Path Tracing", this));
     ui->shaderButton->addAction(new QAction("DepthMap", this));
     ui->shaderButton->addAction(new QAction("Diffuse", this));
+    ui->shaderButton->addAction(new QAction("Wavefront Path Tracing", this));
     ui->shaderButton->setDefaultAction(ui->shaderButton->actions().at(m_shader));
 
     ui->acceleratorButton->addAction(new QAction("None", this));
     ui->acceleratorButton->addAction(new QAction("Naive", this));
     ui->acceleratorButton->addAction(new QAction("Regular Grid", this));
     ui->acceleratorButton->addAction(new QAction("BVH", this));
+    ui->acceleratorButton->addAction(new QAction("BVH4", this));
     ui->acceleratorButton->setDefaultAction(ui->acceleratorButton->actions().at(m_accelerator));
 
     ui->sceneButton->addAction(new QAction("Cornell", this));
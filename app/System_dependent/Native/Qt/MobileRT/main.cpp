@@ -27,15 +27,8 @@ int main(int argc, char **const argv) {
     const ::std::int32_t samplesPixel {static_cast<::std::int32_t> (strtol(argv[4], nullptr, 0))};
     const ::std::int32_t samplesLight {static_cast<::std::int32_t> (strtol(argv[5], nullptr, 0))};
 
-    const ::std::int32_t width {::MobileRT::roundDownToMultipleOf(
-        static_cast<::std::int32_t> (strtol(argv[6], nullptr, 0)),
-        static_cast<::std::int32_t> (::std::sqrt(::MobileRT::NumberOfTiles))
-    )};
-
-    const ::std::int32_t height {::MobileRT::roundDownToMultipleOf(
-        static_cast<::std::int32_t> (strtol(argv[7], nullptr, 0)),
-        static_cast<::std::int32_t> (::std::sqrt(::MobileRT::NumberOfTiles))
-    )};
+    const ::std::int32_t width {static_cast<::std::int32_t> (strtol(argv[6], nullptr, 0))};
+    const ::std::int32_t height {static_cast<::std::int32_t> (strtol(argv[7], nullptr, 0))};
 
     const ::std::int32_t accelerator {static_cast<::std::int32_t> (strtol(argv[8], nullptr, 0))};
 
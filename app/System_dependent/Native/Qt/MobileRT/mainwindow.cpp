@@ -48,13 +48,8 @@ void MainWindow::restart() {
     m_timer->stop();
     disconnect(m_timer, SIGNAL(timeout()));
 
-    m_config.width = ::MobileRT::roundDownToMultipleOf(this->width() - 2,
-                                              static_cast<::std::int32_t> (::std::sqrt(
-                                                      ::MobileRT::NumberOfTiles)));
-
-    m_config.height = ::MobileRT::roundDownToMultipleOf(this->height() - 70,
-                                              static_cast<::std::int32_t> (::std::sqrt(
-                                                      ::MobileRT::NumberOfTiles)));
+    m_config.width = ::std::max(this->width() - 2, 1);
+    m_config.height = ::std::max(this->height() - 70, 1);
 
     const ::std::uint32_t size {static_cast<::std::uint32_t> (m_config.width) * static_cast<::std::uint32_t> (m_config.height)};
     LOG_DEBUG("width = ", m_config.width);
@@ -0,0 +1,74 @@
+#include "MobileRT/Utils/AliasTable.hpp"
+#include <gtest/gtest.h>
+
+using ::MobileRT::AliasTable;
+
+class TestAliasTable : public testing::Test {
+protected:
+    void SetUp () final {
+        errno = 0;
+    }
+
+    void TearDown () final {
+    }
+
+    ~TestAliasTable () override;
+
+    /**
+     * Helper method which samples a table with evenly distributed random numbers and counts how many times each
+     * index was sampled.
+     *
+     * @param table      The table to sample.
+     * @param numSamples The number of samples.
+     * @param counts     The number of times each index was sampled.
+     */
+    static void countSamples(const AliasTable &table, const ::std::int32_t numSamples,
+                             ::std::vector<::std::int32_t> *const counts) {
+        counts->assign(table.getSize(), 0);
+        for (::std::int32_t i {}; i < numSamples; ++i) {
+            const float randomNumber {(static_cast<float> (i) + 0.5F) / static_cast<float> (numSamples)};
+            const ::std::uint32_t index {table.sample(randomNumber)};
+            ASSERT_LT(index, table.getSize());
+            ++(*counts)[index];
+        }
+    }
+};
+
+TestAliasTable::~TestAliasTable () {
+}
+
+/**
+ * Tests that the indices are sampled proportionally to their weights.
+ */
+TEST_F(TestAliasTable, TestSampleProportionally) {
+    const ::std::vector<float> weights {1.0F, 0.0F, 3.0F, 4.0F};
+    const AliasTable table {weights};
+    ASSERT_FLOAT_EQ(table.getPdf(0), 0.125F);
+    ASSERT_FLOAT_EQ(table.getPdf(1), 0.0F);
+    ASSERT_FLOAT_EQ(table.getPdf(2), 0.375F);
+    ASSERT_FLOAT_EQ(table.getPdf(3), 0.5F);
+
+    const ::std::int32_t numSamples {80000};
+    ::std::vector<::std::int32_t> counts {};
+    countSamples(table, numSamples, &counts);
+    ASSERT_EQ(counts[1], 0);
+    for (::std::uint32_t i {}; i < table.getSize(); ++i) {
+        ASSERT_NEAR(static_cast<float> (counts[i]) / numSamples, table.getPdf(i), 1.0e-3F);
+    }
+}
+
+/**
+ * Tests that the indices are sampled uniformly when all the weights are equal or zero.
+ */
+TEST_F(TestAliasTable, TestSampleUniformly) {
+    for (const float weight : {0.0F, 2.0F}) {
+        const AliasTable table {::std::vector<float> (5, weight)};
+        const ::std::int32_t numSamples {5000};
+        ::std::vector<::std::int32_t> counts {};
+        countSamples(table, numSamples, &counts);
+        for (::std::uint32_t i {}; i < table.getSize(); ++i) {
+            ASSERT_FLOAT_EQ(table.getPdf(i), 0.2F);
+            ASSERT_EQ(counts[i], 1000);
+        }
+    }
+}
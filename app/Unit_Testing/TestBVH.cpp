@@ -0,0 +1,266 @@
+#include "MobileRT/Accelerators/BVH.hpp"
+#include "MobileRT/Accelerators/BVH4.hpp"
+#include "MobileRT/Accelerators/Naive.hpp"
+#include "MobileRT/Intersection.hpp"
+#include "MobileRT/Ray.hpp"
+#include "MobileRT/Shapes/Primitive.hpp"
+#include "MobileRT/Shapes/Sphere.hpp"
+#include "MobileRT/Shapes/Triangle.hpp"
+#include <gtest/gtest.h>
+#include <random>
+
+using ::MobileRT::BVH;
+using ::MobileRT::BVH4;
+using ::MobileRT::Intersection;
+using ::MobileRT::Naive;
+using ::MobileRT::Primitive;
+using ::MobileRT::Ray;
+using ::MobileRT::Sphere;
+using ::MobileRT::Triangle;
+
+class TestBVH : public testing::Test {
+protected:
+    void SetUp () final {
+        errno = 0;
+    }
+
+    void TearDown () final {
+    }
+
+    ~TestBVH () override;
+};
+
+TestBVH::~TestBVH () {
+}
+
+namespace {
+    /**
+     * Helper method that creates a soup of random triangles.
+     *
+     * @param numTriangles The number of triangles to create.
+     * @return The triangles.
+     */
+    ::std::vector<Triangle> createTriangles(const ::std::int32_t numTriangles) {
+        ::std::mt19937 generator {42U};
+        ::std::uniform_real_distribution<float> uniformDist {0.0F, 1.0F};
+        ::std::vector<Triangle> triangles {};
+        for (::std::int32_t i {}; i < numTriangles; ++i) {
+            const ::glm::vec3 pointA {uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F};
+            const ::glm::vec3 pointB {pointA + ::glm::vec3 {1.0F, 0.0F, uniformDist(generator)}};
+            const ::glm::vec3 pointC {pointA + ::glm::vec3 {0.0F, 1.0F, uniformDist(generator)}};
+            triangles.emplace_back(Triangle::Builder(pointA, pointB, pointC).withMaterialIndex(i).build());
+        }
+        return triangles;
+    }
+
+    /**
+     * Helper method that checks that an accelerator finds the same intersections and occlusions as the naive
+     * accelerator.
+     *
+     * @tparam Accelerator The type of the accelerator.
+     * @param accelerator  The accelerator with the triangles created by {@link createTriangles}.
+     * @param numTriangles The number of triangles in the accelerator.
+     */
+    template<typename Accelerator>
+    void assertSameIntersectionsAsNaive(Accelerator *const accelerator, const ::std::int32_t numTriangles) {
+        Naive<Triangle> naive {createTriangles(numTriangles)};
+        ASSERT_EQ(accelerator->getPrimitives().size(), static_cast<::std::size_t> (numTriangles));
+
+        ::std::mt19937 generator {7U};
+        ::std::uniform_real_distribution<float> uniformDist {0.0F, 1.0F};
+        for (::std::int32_t i {}; i < 500; ++i) {
+            const ::glm::vec3 origin {uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F, -1.0F};
+            const ::glm::vec3 direction {::glm::normalize(::glm::vec3 {uniformDist(generator) - 0.5F, uniformDist(generator) - 0.5F, 1.0F})};
+
+            Intersection intersectionAccelerator {Ray {direction, origin, 1, false}};
+            intersectionAccelerator = accelerator->trace(::std::move(intersectionAccelerator));
+            Intersection intersectionNaive {Ray {direction, origin, 1, false}};
+            intersectionNaive = naive.trace(::std::move(intersectionNaive));
+
+            ASSERT_EQ(intersectionAccelerator.length_, intersectionNaive.length_);
+            ASSERT_EQ(intersectionAccelerator.materialIndex_, intersectionNaive.materialIndex_);
+
+            Intersection shadowIntersection {Ray {direction, origin, 1, true}};
+            shadowIntersection = accelerator->shadowTrace(::std::move(shadowIntersection));
+            ASSERT_EQ(shadowIntersection.length_ < ::MobileRT::RayLengthMax, intersectionNaive.length_ < ::MobileRT::RayLengthMax);
+
+            // No primitive can occlude the ray before its nearest intersection.
+            const Ray shadowRay {direction, origin, 1, true};
+            ASSERT_EQ(accelerator->occluded(shadowRay, ::MobileRT::RayLengthMax), intersectionNaive.length_ < ::MobileRT::RayLengthMax);
+            ASSERT_EQ(naive.occluded(shadowRay, ::MobileRT::RayLengthMax), intersectionNaive.length_ < ::MobileRT::RayLengthMax);
+            ASSERT_FALSE(accelerator->occluded(shadowRay, intersectionNaive.length_));
+        }
+    }
+}//namespace
+
+/**
+ * Tests that the BVH built with the SAH evaluated for every split finds the nearest intersections.
+ */
+TEST_F(TestBVH, TestSweepSahBuilder) {
+    const ::std::int32_t numTriangles {1000};
+    BVH<Triangle> bvh {createTriangles(numTriangles), ::MobileRT::BUILD_SWEEP_SAH};
+    assertSameIntersectionsAsNaive(&bvh, numTriangles);
+}
+
+/**
+ * Tests that the BVH built with the binned SAH finds the nearest intersections.
+ */
+TEST_F(TestBVH, TestBinnedSahBuilder) {
+    const ::std::int32_t numTriangles {1000};
+    BVH<Triangle> bvh {createTriangles(numTriangles), ::MobileRT::BUILD_BINNED_SAH};
+    assertSameIntersectionsAsNaive(&bvh, numTriangles);
+}
+
+/**
+ * Tests that the BVH built with the binned SAH finds the nearest intersections of a flat mesh, where all the centroids
+ * have the same coordinate in one of the axes.
+ */
+TEST_F(TestBVH, TestBinnedSahBuilderFlatMesh) {
+    ::std::vector<Triangle> triangles {};
+    for (::std::int32_t y {}; y < 20; ++y) {
+        for (::std::int32_t x {}; x < 20; ++x) {
+            const ::glm::vec3 pointA {static_cast<float> (x), static_cast<float> (y), 5.0F};
+            triangles.emplace_back(Triangle::Builder(
+                pointA, pointA + ::glm::vec3 {1.0F, 0.0F, 0.0F}, pointA + ::glm::vec3 {0.0F, 1.0F, 0.0F}
+            ).withMaterialIndex(y * 20 + x).build());
+        }
+    }
+    Naive<Triangle> naive {::std::vector<Triangle> {triangles}};
+    BVH<Triangle> bvh {::std::move(triangles), ::MobileRT::BUILD_BINNED_SAH};
+
+    for (::std::int32_t i {}; i < 400; ++i) {
+        const ::glm::vec3 origin {static_cast<float> (i % 20) + 0.25F, static_cast<float> (i / 20) + 0.25F, 0.0F};
+        const ::glm::vec3 direction {0.0F, 0.0F, 1.0F};
+        Intersection intersectionBvh {Ray {direction, origin, 1, false}};
+        intersectionBvh = bvh.trace(::std::move(intersectionBvh));
+        Intersection intersectionNaive {Ray {direction, origin, 1, false}};
+        intersectionNaive = naive.trace(::std::move(intersectionNaive));
+
+        ASSERT_EQ(intersectionBvh.length_, intersectionNaive.length_);
+        ASSERT_EQ(intersectionBvh.materialIndex_, i);
+    }
+}
+
+/**
+ * Tests that an empty BVH doesn't intersect any ray.
+ */
+TEST_F(TestBVH, TestEmpty) {
+    BVH<Triangle> bvh {::std::vector<Triangle> {}};
+    Intersection intersection {Ray {::glm::vec3 {0.0F, 0.0F, 1.0F}, ::glm::vec3 {0.0F, 0.0F, 0.0F}, 1, false}};
+    intersection = bvh.trace(::std::move(intersection));
+
+    ASSERT_EQ(intersection.length_, ::MobileRT::RayLengthMax);
+}
+
+/**
+ * Tests that the 4-wide BVH finds the nearest intersections.
+ */
+TEST_F(TestBVH, TestBVH4) {
+    const ::std::int32_t numTriangles {1000};
+    BVH4<Triangle> bvh {createTriangles(numTriangles)};
+    assertSameIntersectionsAsNaive(&bvh, numTriangles);
+}
+
+/**
+ * Tests that a 4-wide BVH with a single leaf finds the nearest intersections.
+ */
+TEST_F(TestBVH, TestBVH4SingleLeaf) {
+    const ::std::int32_t numTriangles {3};
+    BVH4<Triangle> bvh {createTriangles(numTriangles)};
+    assertSameIntersectionsAsNaive(&bvh, numTriangles);
+}
+
+/**
+ * Tests that an empty 4-wide BVH doesn't intersect any ray.
+ */
+TEST_F(TestBVH, TestBVH4Empty) {
+    BVH4<Triangle> bvh {::std::vector<Triangle> {}};
+    Intersection intersection {Ray {::glm::vec3 {0.0F, 0.0F, 1.0F}, ::glm::vec3 {0.0F, 0.0F, 0.0F}, 1, false}};
+    intersection = bvh.trace(::std::move(intersection));
+
+    ASSERT_EQ(intersection.length_, ::MobileRT::RayLengthMax);
+}
+
+/**
+ * Tests that a BVH with both spheres and triangles finds the same nearest intersections as testing each type of
+ * shape separately.
+ */
+TEST_F(TestBVH, TestMixedPrimitives) {
+    const ::std::int32_t numTriangles {500};
+    const ::std::vector<Triangle> triangles {createTriangles(numTriangles)};
+    ::std::vector<Sphere> spheres {};
+    ::std::mt19937 generator {3U};
+    ::std::uniform_real_distribution<float> uniformDist {0.0F, 1.0F};
+    for (::std::int32_t i {}; i < 100; ++i) {
+        const ::glm::vec3 center {uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F};
+        spheres.emplace_back(center, uniformDist(generator) * 0.5F + 0.1F, numTriangles + i);
+    }
+
+    ::std::vector<Primitive> primitives {};
+    for (const Sphere &sphere : spheres) {
+        primitives.emplace_back(sphere);
+    }
+    for (const Triangle &triangle : triangles) {
+        primitives.emplace_back(triangle);
+    }
+    BVH<Primitive> bvh {::std::move(primitives)};
+    Naive<Sphere> naiveSpheres {::std::vector<Sphere> {spheres}};
+    Naive<Triangle> naiveTriangles {::std::vector<Triangle> {triangles}};
+
+    for (::std::int32_t i {}; i < 500; ++i) {
+        const ::glm::vec3 origin {uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F, -1.0F};
+        const ::glm::vec3 direction {::glm::normalize(::glm::vec3 {uniformDist(generator) - 0.5F, uniformDist(generator) - 0.5F, 1.0F})};
+
+        Intersection intersectionBvh {Ray {direction, origin, 1, false}};
+        intersectionBvh = bvh.trace(::std::move(intersectionBvh));
+        Intersection intersectionNaive {Ray {direction, origin, 1, false}};
+        intersectionNaive = naiveSpheres.trace(::std::move(intersectionNaive));
+        intersectionNaive = naiveTriangles.trace(::std::move(intersectionNaive));
+
+        ASSERT_EQ(intersectionBvh.length_, intersectionNaive.length_);
+        ASSERT_EQ(intersectionBvh.materialIndex_, intersectionNaive.materialIndex_);
+    }
+}
+
+/**
+ * Tests that tracing packets of rays through the BVH finds the same nearest intersections as tracing each ray alone,
+ * both for coherent packets and for packets which diverge.
+ */
+TEST_F(TestBVH, TestTracePacket) {
+    const ::std::int32_t numTriangles {1000};
+    BVH<Triangle> bvh {createTriangles(numTriangles)};
+
+    ::std::mt19937 generator {11U};
+    ::std::uniform_real_distribution<float> uniformDist {0.0F, 1.0F};
+    ::std::vector<Intersection> intersections {};
+    for (::std::int32_t i {}; i < 500; ++i) {
+        // Every other packet is coherent, with the rays sharing the origin and having similar directions.
+        const bool coherent {i % 2 == 0};
+        const ::std::int32_t numRays {1 + i % ::MobileRT::RayPacketSize};
+        const ::glm::vec3 packetOrigin {uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F, -1.0F};
+        const ::glm::vec3 packetDirection {uniformDist(generator) - 0.5F, uniformDist(generator) - 0.5F, 1.0F};
+        ::std::vector<Ray> rays {};
+        intersections.clear();
+        for (::std::int32_t ray {}; ray < numRays; ++ray) {
+            const ::glm::vec3 origin {
+                coherent ? packetOrigin
+                         : ::glm::vec3 {uniformDist(generator) * 10.0F, uniformDist(generator) * 10.0F, -1.0F}
+            };
+            const ::glm::vec3 direction {::glm::normalize(
+                coherent ? packetDirection + ::glm::vec3 {uniformDist(generator) * 0.01F, uniformDist(generator) * 0.01F, 0.0F}
+                         : ::glm::vec3 {uniformDist(generator) - 0.5F, uniformDist(generator) - 0.5F, 1.0F}
+            )};
+            rays.emplace_back(direction, origin, 1, false);
+            intersections.emplace_back(Ray {direction, origin, 1, false});
+        }
+        bvh.tracePacket(intersections.data(), numRays);
+
+        for (::std::int32_t ray {}; ray < numRays; ++ray) {
+            Intersection expected {::std::move(rays[static_cast<::std::uint32_t> (ray)])};
+            expected = bvh.trace(::std::move(expected));
+            const Intersection &intersection {intersections[static_cast<::std::uint32_t> (ray)]};
+            ASSERT_EQ(intersection.length_, expected.length_);
+            ASSERT_EQ(intersection.materialIndex_, expected.materialIndex_);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 #include "MobileRT/Ray.hpp"
 #include "MobileRT/Utils/Constants.hpp"
 #include <gtest/gtest.h>
+#include <thread>
+#include <vector>
 
 using ::MobileRT::Ray;
 
@@ -51,14 +53,52 @@ TEST_F(TestRay, TestConstructor) {
 
 /**
  * Tests the Ray id generator.
+ * The rays don't have an id unless it is requested.
  */
 TEST_F(TestRay, TestId) {
     const ::glm::vec3 direction {::glm::vec3 {10.0F, 0.0F, 10.0F}};
     const ::glm::vec3 origin {::glm::vec3 {0.0F, 0.0F, 10.0F}};
     const ::std::int32_t depth {19};
     const void* primitive {nullptr};
-    const Ray ray1 {direction, origin, depth, false, primitive};
-    const Ray ray2 {direction, origin, depth, false, primitive};
+    Ray ray1 {direction, origin, depth, false, primitive};
+    Ray ray2 {direction, origin, depth, false, primitive};
+    ASSERT_EQ(ray1.id_, 0U);
+    ASSERT_EQ(ray2.id_, 0U);
 
+    ray1.id_ = Ray::generateId();
+    ray2.id_ = Ray::generateId();
     ASSERT_EQ(ray2.id_, ray1.id_ + 1);
 }
+
+/**
+ * Tests that the casted rays of all the threads are counted, even after the threads finish.
+ */
+TEST_F(TestRay, TestNumberOfCastedRays) {
+    const ::glm::vec3 direction {::glm::vec3 {10.0F, 0.0F, 10.0F}};
+    const ::glm::vec3 origin {::glm::vec3 {0.0F, 0.0F, 10.0F}};
+    const ::std::int32_t numThreads {4};
+    const ::std::int32_t raysPerThread {1000};
+
+    Ray::resetCastedRays();
+    ASSERT_EQ(Ray::getNumberOfCastedRays(), 0U);
+
+    ::std::vector<::std::thread> threads {};
+    for (::std::int32_t thread {}; thread < numThreads; ++thread) {
+        threads.emplace_back([&]() {
+            for (::std::int32_t ray {}; ray < raysPerThread; ++ray) {
+                const Ray rayCasted {direction, origin, 0, false};
+                static_cast<void> (rayCasted);
+            }
+        });
+    }
+    for (::std::thread &thread : threads) {
+        thread.join();
+    }
+    const Ray rayCasted {direction, origin, 0, false};
+    static_cast<void> (rayCasted);
+
+    ASSERT_EQ(Ray::getNumberOfCastedRays(), static_cast<::std::uint64_t> (numThreads * raysPerThread + 1));
+
+    Ray::resetCastedRays();
+    ASSERT_EQ(Ray::getNumberOfCastedRays(), 0U);
+}
@@ -0,0 +1,125 @@
+#include "MobileRT/Accelerators/Naive.hpp"
+#include "MobileRT/Accelerators/RegularGrid.hpp"
+#include "MobileRT/Intersection.hpp"
+#include "MobileRT/Ray.hpp"
+#include "MobileRT/Shapes/Triangle.hpp"
+#include <gtest/gtest.h>
+#include <random>
+
+using ::MobileRT::Intersection;
+using ::MobileRT::Naive;
+using ::MobileRT::Ray;
+using ::MobileRT::RegularGrid;
+using ::MobileRT::Triangle;
+
+class TestRegularGrid : public testing::Test {
+protected:
+    void SetUp () final {
+        errno = 0;
+    }
+
+    void TearDown () final {
+    }
+
+    ~TestRegularGrid () override;
+};
+
+TestRegularGrid::~TestRegularGrid () {
+}
+
+namespace {
+    /**
+     * Helper method that creates a soup of random triangles where half of them are clustered in a small region.
+     *
+     * @param numTriangles The number of triangles to create.
+     * @return The triangles.
+     */
+    ::std::vector<Triangle> createTriangles(const ::std::int32_t numTriangles) {
+        ::std::mt19937 generator {42U};
+        ::std::uniform_real_distribution<float> uniformDist {0.0F, 1.0F};
+        ::std::vector<Triangle> triangles {};
+        for (::std::int32_t i {}; i < numTriangles; ++i) {
+            const float scale {i % 2 == 0 ? 10.0F : 0.5F};
+            const ::glm::vec3 pointA {uniformDist(generator) * scale, uniformDist(generator) * scale, uniformDist(generator) * scale};
+            const ::glm::vec3 pointB {pointA + ::glm::vec3 {scale * 0.1F, 0.0F, uniformDist(generator)}};
+            const ::glm::vec3 pointC {pointA + ::glm::vec3 {0.0F, scale * 0.1F, uniformDist(generator)}};
+            triangles.emplace_back(Triangle::Builder(pointA, pointB, pointC).withMaterialIndex(i).build());
+        }
+        return triangles;
+    }
+
+    /**
+     * Helper method that checks that a grid finds the same intersections and occlusions as the naive accelerator.
+     *
+     * @param grid         The grid with the triangles created by {@link createTriangles}.
+     * @param numTriangles The number of triangles in the grid.
+     */
+    void assertSameIntersectionsAsNaive(RegularGrid<Triangle> *const grid, const ::std::int32_t numTriangles) {
+        Naive<Triangle> naive {createTriangles(numTriangles)};
+        ASSERT_EQ(grid->getPrimitives().size(), static_cast<::std::size_t> (numTriangles));
+
+        ::std::mt19937 generator {7U};
+        ::std::uniform_real_distribution<float> uniformDist {0.0F, 1.0F};
+        for (::std::int32_t i {}; i < 500; ++i) {
+            // Half of the rays go through the cluster of triangles.
+            const float scale {i % 2 == 0 ? 10.0F : 0.5F};
+            const ::glm::vec3 origin {uniformDist(generator) * scale, uniformDist(generator) * scale, -1.0F};
+            const ::glm::vec3 direction {::glm::normalize(::glm::vec3 {uniformDist(generator) - 0.5F, uniformDist(generator) - 0.5F, 1.0F})};
+
+            Intersection intersectionGrid {Ray {direction, origin, 1, false}};
+            intersectionGrid = grid->trace(::std::move(intersectionGrid));
+            Intersection intersectionNaive {Ray {direction, origin, 1, false}};
+            intersectionNaive = naive.trace(::std::move(intersectionNaive));
+
+            ASSERT_EQ(intersectionGrid.length_, intersectionNaive.length_);
+            ASSERT_EQ(intersectionGrid.materialIndex_, intersectionNaive.materialIndex_);
+
+            Intersection shadowIntersection {Ray {direction, origin, 1, true}};
+            shadowIntersection = grid->shadowTrace(::std::move(shadowIntersection));
+            ASSERT_EQ(shadowIntersection.length_ < ::MobileRT::RayLengthMax, intersectionNaive.length_ < ::MobileRT::RayLengthMax);
+
+            // No primitive can occlude the ray before its nearest intersection.
+            const Ray shadowRay {direction, origin, 1, true};
+            ASSERT_EQ(grid->occluded(shadowRay, ::MobileRT::RayLengthMax), intersectionNaive.length_ < ::MobileRT::RayLengthMax);
+            ASSERT_FALSE(grid->occluded(shadowRay, intersectionNaive.length_));
+        }
+    }
+}//namespace
+
+/**
+ * Tests that the grid with the resolution calculated from the scene finds the nearest intersections.
+ */
+TEST_F(TestRegularGrid, TestAutomaticResolution) {
+    const ::std::int32_t numTriangles {1000};
+    RegularGrid<Triangle> grid {createTriangles(numTriangles), 0, false};
+    assertSameIntersectionsAsNaive(&grid, numTriangles);
+}
+
+/**
+ * Tests that the grid with a number of cells which is not a power of 2 finds the nearest intersections.
+ */
+TEST_F(TestRegularGrid, TestFixedResolution) {
+    const ::std::int32_t numTriangles {1000};
+    RegularGrid<Triangle> grid {createTriangles(numTriangles), 5, false};
+    assertSameIntersectionsAsNaive(&grid, numTriangles);
+}
+
+/**
+ * Tests that the grid which subdivides the dense cells finds the nearest intersections.
+ */
+TEST_F(TestRegularGrid, TestTwoLevels) {
+    const ::std::int32_t numTriangles {1000};
+    RegularGrid<Triangle> grid {createTriangles(numTriangles)};
+    assertSameIntersectionsAsNaive(&grid, numTriangles);
+}
+
+/**
+ * Tests that an empty grid doesn't intersect any ray.
+ */
+TEST_F(TestRegularGrid, TestEmpty) {
+    RegularGrid<Triangle> grid {::std::vector<Triangle> {}};
+    Intersection intersection {Ray {::glm::vec3 {0.0F, 0.0F, 1.0F}, ::glm::vec3 {0.0F, 0.0F, 0.0F}, 1, false}};
+    intersection = grid.trace(::std::move(intersection));
+
+    ASSERT_EQ(intersection.length_, ::MobileRT::RayLengthMax);
+}
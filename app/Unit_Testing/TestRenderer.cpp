@@ -0,0 +1,229 @@
+#include "Components/Cameras/Orthographic.hpp"
+#include "Components/Samplers/Constant.hpp"
+#include "Components/Samplers/PCG.hpp"
+#include "Components/Shaders/DepthMap.hpp"
+#include "MobileRT/Renderer.hpp"
+#include "Scenes/Scenes.hpp"
+#include <gtest/gtest.h>
+
+using ::MobileRT::Renderer;
+
+class TestRenderer : public testing::Test {
+protected:
+    void SetUp () final {
+        errno = 0;
+    }
+
+    void TearDown () final {
+    }
+
+    ~TestRenderer () override;
+
+    /**
+     * Helper method which creates a renderer of the spheres scene with the depth map shader.
+     *
+     * @param width        The width of the image.
+     * @param height       The height of the image.
+     * @param samplesPixel The number of samples per pixel.
+     * @param tileWidth    The width of the tiles.
+     * @param tileHeight   The height of the tiles.
+     * @return The renderer.
+     */
+    static ::std::unique_ptr<Renderer> createRenderer(const ::std::int32_t width, const ::std::int32_t height,
+                                                      const ::std::int32_t samplesPixel,
+                                                      const ::std::int32_t tileWidth, const ::std::int32_t tileHeight) {
+        ::MobileRT::Scene scene {spheres_Scene(::MobileRT::Scene {})};
+        ::std::unique_ptr<::MobileRT::Camera> camera {spheres_Cam(static_cast<float> (width) / height)};
+        ::std::unique_ptr<::MobileRT::Shader> shader {::MobileRT::std::make_unique<::Components::DepthMap>(
+            ::std::move(scene), ::glm::vec3 {1.0F, 1.0F, 1.0F}, ::MobileRT::Shader::Accelerator::ACC_NAIVE
+        )};
+        ::std::unique_ptr<::MobileRT::Sampler> sampler {::MobileRT::std::make_unique<::Components::Constant>(0.5F)};
+        return ::MobileRT::std::make_unique<Renderer>(
+            ::std::move(shader), ::std::move(camera), ::std::move(sampler),
+            width, height, samplesPixel, tileWidth, tileHeight
+        );
+    }
+
+    /**
+     * Helper method which renders the spheres scene with the depth map shader into a bitmap.
+     *
+     * @param width      The width of the image.
+     * @param height     The height of the image.
+     * @param tileWidth  The width of the tiles.
+     * @param tileHeight The height of the tiles.
+     * @return The rendered bitmap.
+     */
+    static ::std::vector<::std::int32_t> render(const ::std::int32_t width, const ::std::int32_t height,
+                                                const ::std::int32_t tileWidth, const ::std::int32_t tileHeight) {
+        const ::std::unique_ptr<Renderer> renderer {createRenderer(width, height, 1, tileWidth, tileHeight)};
+        ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+        renderer->renderFrame(bitmap.data(), 3);
+        return bitmap;
+    }
+};
+
+TestRenderer::~TestRenderer () {
+}
+
+/**
+ * Tests that every pixel is rendered when the resolution is not a multiple of the tile size, so the tiles in the
+ * edges of the image are partial.
+ */
+TEST_F(TestRenderer, TestRenderPartialTiles) {
+    const ::std::vector<::std::int32_t> bitmap {render(50, 37, ::MobileRT::TileSize, ::MobileRT::TileSize)};
+    for (const ::std::int32_t pixel : bitmap) {
+        ASSERT_NE(static_cast<::std::uint32_t> (pixel) & 0xFF000000U, 0U);
+    }
+}
+
+/**
+ * Tests that the rendered image doesn't depend on the size of the tiles.
+ */
+TEST_F(TestRenderer, TestRenderTileSizes) {
+    const ::std::vector<::std::int32_t> expected {render(50, 37, ::MobileRT::TileSize, ::MobileRT::TileSize)};
+    ASSERT_EQ(render(50, 37, 7, 3), expected);
+    ASSERT_EQ(render(50, 37, 1, 1), expected);
+    ASSERT_EQ(render(50, 37, 64, 64), expected);
+}
+
+/**
+ * Tests that the progressive rendering renders all the samples per pixel and gets the same image as rendering a
+ * whole frame.
+ */
+TEST_F(TestRenderer, TestRenderProgressive) {
+    const ::std::int32_t width {50};
+    const ::std::int32_t height {37};
+    const ::std::unique_ptr<Renderer> renderer {createRenderer(width, height, 4, 8, 8)};
+    ::std::vector<::std::int32_t> expected (static_cast<::std::uint32_t> (width * height));
+    renderer->renderFrame(expected.data(), 3);
+    ASSERT_EQ(renderer->getSample(), 4);
+
+    ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+    ASSERT_EQ(renderer->renderProgressive(bitmap.data(), 3, 0, 0.0F), 4);
+    ASSERT_EQ(renderer->getSample(), 4);
+    ASSERT_EQ(bitmap, expected);
+}
+
+/**
+ * Tests that every sample of every pixel is accumulated when there are more threads than tiles, so several threads
+ * could render the same tile.
+ */
+TEST_F(TestRenderer, TestRenderPixelSamplesMultiThread) {
+    const ::std::int32_t width {8};
+    const ::std::int32_t height {8};
+    const ::std::int32_t samplesPixel {64};
+    const ::std::unique_ptr<Renderer> renderer {createRenderer(width, height, samplesPixel, 8, 8)};
+    ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+    renderer->renderFrame(bitmap.data(), 8);
+    ASSERT_EQ(renderer->getSample(), samplesPixel);
+    for (::std::uint32_t pixel {}; pixel < static_cast<::std::uint32_t> (width * height); ++pixel) {
+        ASSERT_EQ(renderer->getPixelSamples(pixel), samplesPixel);
+    }
+}
+
+/**
+ * Tests that every sample of every pixel is accumulated with partial tiles in the edges of the image and fewer tiles
+ * than threads.
+ */
+TEST_F(TestRenderer, TestRenderPixelSamplesPartialTiles) {
+    const ::std::int32_t width {13};
+    const ::std::int32_t height {7};
+    const ::std::int32_t samplesPixel {32};
+    const ::std::unique_ptr<Renderer> renderer {createRenderer(width, height, samplesPixel, 5, 5)};
+    ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+    renderer->renderFrame(bitmap.data(), 8);
+    for (::std::uint32_t pixel {}; pixel < static_cast<::std::uint32_t> (width * height); ++pixel) {
+        ASSERT_EQ(renderer->getPixelSamples(pixel), samplesPixel);
+    }
+}
+
+/**
+ * Tests that the progressive rendering stops when the image has no noise, which happens after the second sample
+ * per pixel of an image without any randomness.
+ */
+TEST_F(TestRenderer, TestRenderProgressiveNoiseThreshold) {
+    const ::std::int32_t width {50};
+    const ::std::int32_t height {37};
+    const ::std::unique_ptr<Renderer> renderer {createRenderer(width, height, 100, 8, 8)};
+    ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+    ASSERT_EQ(renderer->renderProgressive(bitmap.data(), 3, 0, 1.0e-3F), 2);
+    ASSERT_FLOAT_EQ(renderer->getNoise(), 0.0F);
+}
+
+/**
+ * Tests that the adaptive sampling stops sampling the pixels which converged, so the progressive rendering stops
+ * when a sample per pixel doesn't render any pixel.
+ */
+TEST_F(TestRenderer, TestAdaptiveSampling) {
+    const ::std::int32_t width {50};
+    const ::std::int32_t height {37};
+    const ::std::unique_ptr<Renderer> renderer {createRenderer(width, height, 100, 8, 8)};
+    renderer->setTargetError(1.0e-3F);
+    ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+    ASSERT_EQ(renderer->renderProgressive(bitmap.data(), 3, 0, 0.0F), ::MobileRT::AdaptiveMinSamples);
+
+    const ::std::vector<::std::int32_t> expected {render(width, height, 8, 8)};
+    ASSERT_EQ(bitmap, expected);
+}
+
+/**
+ * Tests that the adaptive sampling keeps sampling the noisy pixels after the samples per pixel of the renderer, so
+ * the pixels in the edges of the spheres, whose jittered rays hit different depths, get more samples than the
+ * pixels which already converged.
+ */
+TEST_F(TestRenderer, TestAdaptiveSamplingNoisyPixels) {
+    const ::std::int32_t width {32};
+    const ::std::int32_t height {24};
+    const ::std::int32_t samplesPixel {16};
+    ::MobileRT::Scene scene {spheres_Scene(::MobileRT::Scene {})};
+    ::std::unique_ptr<::MobileRT::Shader> shader {::MobileRT::std::make_unique<::Components::DepthMap>(
+        ::std::move(scene), ::glm::vec3 {1.0F, 1.0F, 1.0F}, ::MobileRT::Shader::Accelerator::ACC_NAIVE
+    )};
+    const ::std::unique_ptr<Renderer> renderer {::MobileRT::std::make_unique<Renderer>(
+        ::std::move(shader), spheres_Cam(static_cast<float> (width) / height),
+        ::MobileRT::std::make_unique<::Components::PCG>(), width, height, samplesPixel, 8, 8
+    )};
+    renderer->setTargetError(1.0e-2F);
+    ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+    renderer->renderFrame(bitmap.data(), 3);
+
+    ::std::int32_t minSamples {::std::numeric_limits<::std::int32_t>::max()};
+    ::std::int32_t maxSamples {};
+    for (::std::uint32_t pixel {}; pixel < static_cast<::std::uint32_t> (width * height); ++pixel) {
+        minSamples = ::std::min(minSamples, renderer->getPixelSamples(pixel));
+        maxSamples = ::std::max(maxSamples, renderer->getPixelSamples(pixel));
+    }
+    ASSERT_EQ(minSamples, ::MobileRT::AdaptiveMinSamples);
+    ASSERT_GT(maxSamples, samplesPixel);
+    ASSERT_LE(maxSamples, samplesPixel * ::MobileRT::AdaptiveMaxSamplesFactor);
+    ASSERT_EQ(renderer->getSample(), maxSamples);
+}
+
+/**
+ * Tests that updating the camera of a renderer renders the same image as a new renderer with that camera.
+ */
+TEST_F(TestRenderer, TestSetCamera) {
+    const ::std::int32_t width {50};
+    const ::std::int32_t height {37};
+    const ::std::unique_ptr<Renderer> renderer {createRenderer(width, height, 1, 8, 8)};
+    ::std::vector<::std::int32_t> previous (static_cast<::std::uint32_t> (width * height));
+    renderer->renderFrame(previous.data(), 3);
+
+    renderer->setCamera(::MobileRT::std::make_unique<::Components::Orthographic>(
+        ::glm::vec3 {0.0F, 1.0F, -10.0F}, ::glm::vec3 {0.0F, 1.0F, 7.0F}, ::glm::vec3 {0.0F, 1.0F, 0.0F},
+        5.0F * width / height, 5.0F
+    ));
+    ASSERT_EQ(renderer->getSample(), 0);
+    ::std::vector<::std::int32_t> bitmap (static_cast<::std::uint32_t> (width * height));
+    renderer->renderFrame(bitmap.data(), 3);
+    ASSERT_NE(bitmap, previous);
+
+    const ::std::unique_ptr<Renderer> expectedRenderer {createRenderer(width, height, 1, 8, 8)};
+    expectedRenderer->setCamera(::MobileRT::std::make_unique<::Components::Orthographic>(
+        ::glm::vec3 {0.0F, 1.0F, -10.0F}, ::glm::vec3 {0.0F, 1.0F, 7.0F}, ::glm::vec3 {0.0F, 1.0F, 0.0F},
+        5.0F * width / height, 5.0F
+    ));
+    ::std::vector<::std::int32_t> expected (static_cast<::std::uint32_t> (width * height));
+    expectedRenderer->renderFrame(expected.data(), 3);
+    ASSERT_EQ(bitmap, expected);
+}
@@ -0,0 +1,54 @@
+#include "MobileRT/Utils/ThreadPool.hpp"
+#include <atomic>
+#include <gtest/gtest.h>
+
+using ::MobileRT::ThreadPool;
+
+class TestThreadPool : public testing::Test {
+protected:
+    void SetUp () final {
+        errno = 0;
+    }
+
+    void TearDown () final {
+    }
+
+    ~TestThreadPool () override;
+};
+
+TestThreadPool::~TestThreadPool () {
+}
+
+/**
+ * Tests that every worker executes each submitted task exactly once, with its own index.
+ */
+TEST_F(TestThreadPool, TestSubmitTasks) {
+    const ::std::int32_t numWorkers {3};
+    ThreadPool threadPool {numWorkers};
+    ASSERT_EQ(threadPool.getNumWorkers(), numWorkers);
+
+    for (::std::int32_t frame {}; frame < 100; ++frame) {
+        ::std::array<::std::atomic<::std::int32_t>, numWorkers> executions {};
+        threadPool.submit([&](const ::std::int32_t workerId) {
+            executions[static_cast<::std::uint32_t> (workerId)].fetch_add(1);
+        });
+        threadPool.wait();
+        for (const ::std::atomic<::std::int32_t> &execution : executions) {
+            ASSERT_EQ(execution.load(), 1);
+        }
+    }
+}
+
+/**
+ * Tests that a pool without workers doesn't block while waiting for a task.
+ */
+TEST_F(TestThreadPool, TestWithoutWorkers) {
+    ThreadPool threadPool {0};
+    bool executed {false};
+    threadPool.submit([&](const ::std::int32_t /*workerId*/) {
+        executed = true;
+    });
+    threadPool.wait();
+
+    ASSERT_FALSE(executed);
+}
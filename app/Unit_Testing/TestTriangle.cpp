@@ -85,6 +85,7 @@ inline void assertRayTriangle (const ::glm::vec3 &orig,
                                const bool expectedInt,
                                const void *const primitive = nullptr) {
     Ray ray {dir, orig, 1, true, primitive};
+    ASSERT_EQ(expectedInt, triangle.intersect(ray, ::MobileRT::RayLengthMax));
     Intersection intersection {::std::move(ray)};
     const float lastDist {intersection.length_};
     intersection = triangle.intersect(intersection);
@@ -0,0 +1,86 @@
+#include "MobileRT/Intersection.hpp"
+#include "MobileRT/Ray.hpp"
+#include "MobileRT/Shapes/Triangle.hpp"
+#include "MobileRT/Shapes/TrianglePacket.hpp"
+#include <gtest/gtest.h>
+#include <random>
+
+using ::MobileRT::Intersection;
+using ::MobileRT::Ray;
+using ::MobileRT::Triangle;
+using ::MobileRT::TrianglePacket;
+
+class TestTrianglePacket : public testing::Test {
+protected:
+    void SetUp () final {
+        errno = 0;
+    }
+
+    void TearDown () final {
+    }
+
+    ~TestTrianglePacket () override;
+};
+
+TestTrianglePacket::~TestTrianglePacket () {
+}
+
+/**
+ * Tests that a packet with 3 triangles finds the same nearest intersections and occlusions as intersecting them one
+ * by one.
+ */
+TEST_F(TestTrianglePacket, TestSameIntersectionsAsTriangles) {
+    const ::std::vector<Triangle> triangles {
+        Triangle::Builder(::glm::vec3 {0.0F, 0.0F, 2.0F}, ::glm::vec3 {4.0F, 0.0F, 2.0F}, ::glm::vec3 {0.0F, 4.0F, 2.0F}).build(),
+        Triangle::Builder(::glm::vec3 {0.0F, 0.0F, 1.0F}, ::glm::vec3 {0.0F, 2.0F, 1.0F}, ::glm::vec3 {2.0F, 0.0F, 1.0F}).build(),
+        Triangle::Builder(::glm::vec3 {1.0F, 1.0F, 3.0F}, ::glm::vec3 {5.0F, 1.0F, 3.0F}, ::glm::vec3 {1.0F, 5.0F, 4.0F}).build()
+    };
+    const TrianglePacket packet {{&triangles[0], &triangles[1], &triangles[2], nullptr}};
+
+    ::std::mt19937 generator {7U};
+    ::std::uniform_real_distribution<float> uniformDist {0.0F, 1.0F};
+    for (::std::int32_t i {}; i < 1000; ++i) {
+        const ::glm::vec3 origin {uniformDist(generator) * 5.0F, uniformDist(generator) * 5.0F, 0.0F};
+        const ::glm::vec3 direction {::glm::normalize(::glm::vec3 {uniformDist(generator) - 0.5F, uniformDist(generator) - 0.5F, 1.0F})};
+        Intersection intersectionPacket {Ray {direction, origin, 1, false}};
+        intersectionPacket = packet.intersect(::std::move(intersectionPacket));
+
+        Intersection intersection {Ray {direction, origin, 1, false}};
+        for (const Triangle &triangle : triangles) {
+            intersection = triangle.intersect(::std::move(intersection));
+        }
+
+        ASSERT_EQ(intersectionPacket.length_, intersection.length_);
+        ASSERT_EQ(intersectionPacket.primitive_, intersection.primitive_);
+        ASSERT_EQ(intersectionPacket.shape_, intersection.shape_);
+        ASSERT_FLOAT_EQ(intersectionPacket.barycentric_[0], intersection.barycentric_[0]);
+        ASSERT_FLOAT_EQ(intersectionPacket.barycentric_[1], intersection.barycentric_[1]);
+
+        const Ray shadowRay {direction, origin, 1, true};
+        ASSERT_EQ(packet.intersect(shadowRay, ::MobileRT::RayLengthMax), intersection.length_ < ::MobileRT::RayLengthMax);
+        ASSERT_FALSE(packet.intersect(shadowRay, intersection.length_));
+    }
+}
+
+/**
+ * Tests that a packet ignores the triangle from where the ray was casted.
+ */
+TEST_F(TestTrianglePacket, TestIgnoreOriginTriangle) {
+    const Triangle triangle {
+        Triangle::Builder(::glm::vec3 {-1.0F, -1.0F, 1.0F}, ::glm::vec3 {1.0F, -1.0F, 1.0F}, ::glm::vec3 {0.0F, 1.0F, 1.0F}).build()
+    };
+    const TrianglePacket packet {{&triangle, nullptr, nullptr, nullptr}};
+    const ::glm::vec3 direction {0.0F, 0.0F, 1.0F};
+
+    Intersection intersection {Ray {direction, ::glm::vec3 {}, 1, false}};
+    intersection = packet.intersect(::std::move(intersection));
+    ASSERT_EQ(intersection.length_, 1.0F);
+    ASSERT_EQ(intersection.primitive_, &triangle);
+
+    Intersection intersectionFromTriangle {Ray {direction, ::glm::vec3 {}, 1, false, &triangle}};
+    intersectionFromTriangle = packet.intersect(::std::move(intersectionFromTriangle));
+    ASSERT_EQ(intersectionFromTriangle.length_, ::MobileRT::RayLengthMax);
+
+    ASSERT_TRUE(packet.intersect(Ray {direction, ::glm::vec3 {}, 1, true}, ::MobileRT::RayLengthMax));
+    ASSERT_FALSE(packet.intersect(Ray {direction, ::glm::vec3 {}, 1, true, &triangle}, ::MobileRT::RayLengthMax));
+}
@@ -1,6 +1,7 @@
 #include <gtest/gtest.h>
 #include <MobileRT/Utils/Constants.hpp>
 #include <MobileRT/Utils/Utils.hpp>
+#include <algorithm>
 #include <array>
 #if __cplusplus >= 202002L
     #include <latch>
@@ -89,3 +90,27 @@ TEST(TestUtils, TestFillArrayWithPCGIsThreadSafe) {
 }
 
 #endif
+
+/**
+ * Tests that the colors are converted into the ARGB format and clamped to the range of the channels.
+ */
+TEST(TestUtils, TestToArgb) {
+    ASSERT_EQ(::MobileRT::toArgb(::glm::vec3 {0.0F, 0.0F, 0.0F}), static_cast<::std::int32_t> (0xFF000000));
+    ASSERT_EQ(::MobileRT::toArgb(::glm::vec3 {1.0F, 0.0F, 0.0F}), static_cast<::std::int32_t> (0xFF0000FF));
+    ASSERT_EQ(::MobileRT::toArgb(::glm::vec3 {0.0F, 2.0F, -1.0F}), static_cast<::std::int32_t> (0xFF00FF00));
+    ASSERT_EQ(::MobileRT::toArgb(::glm::vec3 {0.0F, 0.0F, 0.5F}), static_cast<::std::int32_t> (0xFF7F0000));
+}
+
+/**
+ * Tests that the PCG hash is deterministic and doesn't repeat values for consecutive indices.
+ */
+TEST(TestUtils, TestPcgHash) {
+    ::std::vector<::std::uint32_t> hashes {};
+    for (::std::uint32_t index {}; index < 1000; ++index) {
+        const ::std::uint32_t hash {::MobileRT::pcgHash(index)};
+        ASSERT_EQ(::MobileRT::pcgHash(index), hash);
+        hashes.emplace_back(hash);
+    }
+    ::std::sort(hashes.begin(), hashes.end());
+    ASSERT_EQ(::std::adjacent_find(hashes.begin(), hashes.end()), hashes.end());
+}
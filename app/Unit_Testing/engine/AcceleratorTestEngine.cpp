@@ -143,3 +143,22 @@ TEST_F(AcceleratorTestEngine, testRenderSceneWithBVH) {
 
     ::MobileRT::checkSystemError("testRenderSceneWithBVH end");
 }
+
+TEST_F(AcceleratorTestEngine, testRenderSceneWithBVH4) {
+    ::MobileRT::checkSystemError("testRenderSceneWithBVH4 start");
+    config.sceneIndex = -1; // OBJ
+    config.shader = 1; // Whitted
+    config.accelerator = ::MobileRT::Shader::Accelerator::ACC_BVH4;
+
+    config.objFilePath = ::std::string {"./app/src/androidTest/resources/CornellBox/CornellBox-Water.obj"};
+    config.mtlFilePath = ::std::string {"./app/src/androidTest/resources/CornellBox/CornellBox-Water.mtl"};
+    config.camFilePath = ::std::string {"./app/src/androidTest/resources/CornellBox/CornellBox-Water.cam"};
+
+    ASSERT_TRUE(::std::all_of(config.bitmap.begin()+1, config.bitmap.end(), ::std::bind(std::equal_to<int>(), ::std::placeholders::_1, config.bitmap.front())));
+    RayTrace(config, false);
+    ASSERT_FALSE(::std::all_of(config.bitmap.begin()+1, config.bitmap.end(), ::std::bind(std::equal_to<int>(), ::std::placeholders::_1, config.bitmap.front())));
+
+    assertVectorsEqual(config.bitmap, expectedBitmap, 45);
+
+    ::MobileRT::checkSystemError("testRenderSceneWithBVH4 end");
+}
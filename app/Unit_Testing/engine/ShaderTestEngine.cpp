@@ -123,3 +123,21 @@ TEST_F(ShaderTestEngine, testRenderSceneWithDiffuse) {
 
     ::MobileRT::checkSystemError("testRenderSceneWithDiffuse end");
 }
+
+TEST_F(ShaderTestEngine, testRenderSceneWithWavefrontPathTracing) {
+    ::MobileRT::checkSystemError("testRenderSceneWithWavefrontPathTracing start");
+
+    config.sceneIndex = -1; // OBJ
+    config.shader = 5; // WavefrontPathTracing
+    config.accelerator = ::MobileRT::Shader::Accelerator::ACC_BVH;
+
+    config.objFilePath = ::std::string {"./app/src/androidTest/resources/CornellBox/CornellBox-Water.obj"};
+    config.mtlFilePath = ::std::string {"./app/src/androidTest/resources/CornellBox/CornellBox-Water.mtl"};
+    config.camFilePath = ::std::string {"./app/src/androidTest/resources/CornellBox/CornellBox-Water.cam"};
+
+    ASSERT_TRUE(::std::all_of(config.bitmap.begin()+1, config.bitmap.end(), ::std::bind(std::equal_to<int>(), ::std::placeholders::_1, config.bitmap.front())));
+    RayTrace(config, false);
+    ASSERT_FALSE(::std::all_of(config.bitmap.begin()+1, config.bitmap.end(), ::std::bind(std::equal_to<int>(), ::std::placeholders::_1, config.bitmap.front())));
+
+    ::MobileRT::checkSystemError("testRenderSceneWithWavefrontPathTracing end");
+}
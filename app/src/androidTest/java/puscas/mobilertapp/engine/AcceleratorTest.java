@@ -75,4 +75,20 @@ public final class AcceleratorTest extends AbstractTest {
         assertRenderScene(Scene.OBJ, Shader.WHITTED, Accelerator.BVH, 1, 1, false, false);
     }
 
+    /**
+     * Tests rendering a scene with the {@link Accelerator#BVH4} accelerator.
+     *
+     * @throws TimeoutException If it couldn't render the whole scene in time.
+     */
+    @Test
+    public void testRenderSceneWithBVH4() throws TimeoutException {
+        mockFileManagerReply(false,
+            ConstantsAndroid.CORNELL_BOX_WATER_OBJ,
+            ConstantsAndroid.CORNELL_BOX_WATER_MTL,
+            ConstantsAndroid.CORNELL_BOX_WATER_CAM
+        );
+
+        assertRenderScene(Scene.OBJ, Shader.WHITTED, Accelerator.BVH4, 1, 1, false, false);
+    }
+
 }
@@ -658,14 +658,13 @@ public final class MainActivity extends Activity {
     }
 
     /**
-     * Auxiliary method to readjust the width and height of the image by
-     * rounding down the value to a multiple of the number of tiles in the
-     * Ray Tracer engine.
+     * Auxiliary method to readjust the width and height of the image.
+     * The Ray Tracer engine supports any resolution, by rendering partial
+     * tiles in the edges of the image, so the size only needs to be at least
+     * one pixel.
      *
-     * @param size The value to be rounded down to a multiple of the number of
-     *             tiles in the Ray Tracer engine.
-     * @return The highest value that is smaller than the size passed by
-     *     parameter and is a multiple of the number of tiles.
+     * @param size The value to be readjusted.
+     * @return The size passed by parameter, with a minimum of one pixel.
      */
     private native int rtResize(int size);
 
@@ -477,6 +477,24 @@ public final class MainRenderer implements GLSurfaceView.Renderer {
      */
     native int rtInitialize(Config config) throws LowMemoryException;
 
+    /**
+     * Updates the camera of the scene already loaded by
+     * {@link #rtInitialize(Config)}, keeping the scene and its acceleration
+     * structures, and restarts the accumulation of the samples.
+     * It can't be used while the scene is being rendered.
+     *
+     * @param position The new position of the camera.
+     * @param lookAt   The new point where the camera is looking at.
+     * @param up       The new up vector of the camera.
+     * @param fovH     The new horizontal field of view (or the horizontal
+     *                 size, for an orthographic camera).
+     * @param fovV     The new vertical field of view (or the vertical size,
+     *                 for an orthographic camera).
+     * @return Whether the camera was updated.
+     * @throws LowMemoryException If the device has low free memory.
+     */
+    native boolean rtUpdateCamera(float[] position, float[] lookAt, float[] up, float fovH, float fovV) throws LowMemoryException;
+
     /**
      * Let Ray Tracer engine start to render the scene.
      * It will render the scene asynchronously.
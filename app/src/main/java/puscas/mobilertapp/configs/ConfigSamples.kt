@@ -5,24 +5,28 @@ package puscas.mobilertapp.configs
  *
  * @property samplesPixel The number of samples per pixel.
  * @property samplesLight The number of samples per light.
+ * @property targetError  The target relative error of each pixel for the adaptive sampling (0 disables it).
  */
 @ConsistentCopyVisibility
 data class ConfigSamples private constructor(
     val samplesPixel : Int,
     val samplesLight : Int,
+    val targetError : Float,
 ) {
 
     init {
         require(samplesPixel >= 0) { "The samplesPixel must be >= 0." }
         require(samplesLight >= 0) { "The samplesLight must be >= 0." }
+        require(targetError >= 0.0F) { "The targetError must be >= 0." }
     }
 
     class Builder private constructor() {
         var samplesPixel = 0
         var samplesLight = 0
+        var targetError = 0.0F
 
         companion object { fun create() = Builder() }
 
-        fun build() = ConfigSamples(samplesPixel, samplesLight)
+        fun build() = ConfigSamples(samplesPixel, samplesLight, targetError)
     }
 }
@@ -31,7 +31,12 @@ public enum Accelerator {
     /**
      * The bounding volume hierarchy accelerator.
      */
-    BVH("BVH");
+    BVH("BVH"),
+
+    /**
+     * The bounding volume hierarchy accelerator with 4 children per node.
+     */
+    BVH4("BVH4");
 
     /**
      * Logger for this class.
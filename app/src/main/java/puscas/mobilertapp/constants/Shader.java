@@ -34,7 +34,12 @@ public enum Shader {
     /**
      * The Diffuse shader.
      */
-    DIFFUSE("Diffuse");
+    DIFFUSE("Diffuse"),
+
+    /**
+     * The Path Tracing shader which processes the rays in stages (wavefront).
+     */
+    WAVEFRONT_PATH_TRACING("WavefrontPathTracing");
 
     /**
      * Logger for this class.
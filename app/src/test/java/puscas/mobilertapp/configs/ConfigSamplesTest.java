@@ -21,6 +21,9 @@ public final class ConfigSamplesTest {
         Assertions.assertThat(configSamples.getSamplesLight())
             .as("The ConfigSamples#Builder#build with default samplesLight.")
             .isZero();
+        Assertions.assertThat(configSamples.getTargetError())
+            .as("The ConfigSamples#Builder#build with default targetError.")
+            .isZero();
     }
 
     /**
@@ -31,8 +34,10 @@ public final class ConfigSamplesTest {
         final ConfigSamples.Builder builder = ConfigSamples.Builder.Companion.create();
         final int samplesPixel = 123;
         final int samplesLight = 456;
+        final float targetError = 0.05F;
         builder.setSamplesPixel(samplesPixel);
         builder.setSamplesLight(samplesLight);
+        builder.setTargetError(targetError);
 
         final ConfigSamples configSamples = builder.build();
         Assertions.assertThat(configSamples.getSamplesPixel())
@@ -41,6 +46,9 @@ public final class ConfigSamplesTest {
         Assertions.assertThat(configSamples.getSamplesLight())
             .as("SamplesLight not the expected value.")
             .isEqualTo(samplesLight);
+        Assertions.assertThat(configSamples.getTargetError())
+            .as("TargetError not the expected value.")
+            .isEqualTo(targetError);
     }
 
     /**
@@ -75,6 +83,13 @@ public final class ConfigSamplesTest {
         Assertions.assertThatThrownBy(builder::build)
             .as("SamplesPixel not the expected value.")
             .isInstanceOf(IllegalArgumentException.class);
+
+        builder.setSamplesPixel(samplesPixel);
+        builder.setSamplesLight(samplesLight);
+        builder.setTargetError(-0.1F);
+        Assertions.assertThatThrownBy(builder::build)
+            .as("TargetError not the expected value.")
+            .isInstanceOf(IllegalArgumentException.class);
     }
 
     /**
@@ -20,7 +20,8 @@ public final class AcceleratorTest {
                 Accelerator.NONE,
                 Accelerator.NAIVE,
                 Accelerator.REG_GRID,
-                Accelerator.BVH
+                Accelerator.BVH,
+                Accelerator.BVH4
             );
     }
 
@@ -35,7 +36,8 @@ public final class AcceleratorTest {
                 (String) ReflectionTestUtils.getField(Accelerator.NONE, "name"),
                 (String) ReflectionTestUtils.getField(Accelerator.NAIVE, "name"),
                 (String) ReflectionTestUtils.getField(Accelerator.REG_GRID, "name"),
-                (String) ReflectionTestUtils.getField(Accelerator.BVH, "name")
+                (String) ReflectionTestUtils.getField(Accelerator.BVH, "name"),
+                (String) ReflectionTestUtils.getField(Accelerator.BVH4, "name")
             );
     }
 
@@ -19,7 +19,8 @@ public final class AcceleratorTest {
             "None",
             "Naive",
             "RegGrid",
-            "BVH"
+            "BVH",
+            "BVH4"
         );
     }
 
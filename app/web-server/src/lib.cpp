@@ -29,7 +29,7 @@ extern "C" {
         m_config.samplesPixel = 1;
         m_config.samplesLight = 1;
         m_config.repeats = 1;
-        m_config.accelerator = 3; // 0 -> off, 1 -> naive, 2 -> RegGrid, 3 -> BVH
+        m_config.accelerator = 3; // 0 -> off, 1 -> naive, 2 -> RegGrid, 3 -> BVH, 4 -> BVH4
 
         /*const ::std::string fileName {"../src/androidTest/resources/teapot/teapot"};
         ::std::cout << "Loading scene " << fileName << ::std::endl;